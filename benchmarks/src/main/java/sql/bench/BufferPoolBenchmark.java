@@ -0,0 +1,109 @@
+package sql.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sql.buffer.BufferPool;
+import sql.page.Page;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fetchPage + unpinPage on a resident page, on a miss that evicts a clean page,
+ * and on a miss that evicts a dirty page and writes it back first.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BufferPoolBenchmark {
+
+    @State(Scope.Thread)
+    public abstract static class PoolState {
+        @Param({"64", "1024"})
+        public int poolSize;
+
+        TempDatabase database;
+        BufferPool bufferPool;
+        int pages;
+        int nextPageId;
+
+        abstract int pageCount();
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            database = new TempDatabase();
+            pages = pageCount();
+            database.writeFilledPages(pages, TempDatabase.record(64));
+            bufferPool = new BufferPool(poolSize, database.getDiskManager());
+            for (int pageId = 0; pageId < Math.min(pages, poolSize); pageId++) {
+                bufferPool.fetchPage(pageId);
+                bufferPool.unpinPage(pageId, false);
+            }
+        }
+
+        int nextPage() {
+            int pageId = nextPageId;
+            nextPageId = pageId + 1 == pages ? 0 : pageId + 1;
+            return pageId;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            database.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Resident extends PoolState {
+        @Override
+        int pageCount() {
+            return poolSize;
+        }
+    }
+
+    // Cycling through four times the pool in order makes every fetch a FIFO miss
+    @State(Scope.Thread)
+    public static class Cycling extends PoolState {
+        @Override
+        int pageCount() {
+            return poolSize * 4;
+        }
+    }
+
+    @Benchmark
+    public Page hit(Resident state) throws IOException {
+        int pageId = state.nextPage();
+        Page page = state.bufferPool.fetchPage(pageId);
+        state.bufferPool.unpinPage(pageId, false);
+        return page;
+    }
+
+    @Benchmark
+    public Page missCleanEviction(Cycling state) throws IOException {
+        int pageId = state.nextPage();
+        Page page = state.bufferPool.fetchPage(pageId);
+        state.bufferPool.unpinPage(pageId, false);
+        return page;
+    }
+
+    @Benchmark
+    public Page missDirtyEviction(Cycling state) throws IOException {
+        int pageId = state.nextPage();
+        Page page = state.bufferPool.fetchPage(pageId);
+        state.bufferPool.unpinPage(pageId, true);
+        return page;
+    }
+}
@@ -0,0 +1,82 @@
+package sql.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sql.page.Page;
+import sql.storage.DeflateCodec;
+import sql.storage.DiskManager;
+import sql.storage.Lz4Codec;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random page reads and writes over a 16 MB file, plain and compressed. The file is
+ * usually in the OS page cache, so this measures the syscall and codec path, not the device.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class DiskManagerBenchmark {
+    private static final int PAGES = 4096;
+
+    @Param({"none", "lz4", "deflate"})
+    public String codec;
+
+    private TempDatabase database;
+    private DiskManager diskManager;
+    private byte[] page;
+    private byte[] written;
+    private long seed = 42;
+
+    @Setup
+    public void setup() throws IOException {
+        database = new TempDatabase(switch (codec) {
+            case "lz4" -> new Lz4Codec();
+            case "deflate" -> new DeflateCodec();
+            default -> null;
+        });
+        diskManager = database.getDiskManager();
+        database.writeFilledPages(PAGES, TempDatabase.record(100));
+        page = new byte[Page.PAGE_SIZE];
+        written = new byte[Page.PAGE_SIZE];
+        diskManager.readPage(0, written);
+    }
+
+    // xorshift: cheaper than Random and allocation free
+    private int nextPageId() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed & (PAGES - 1));
+    }
+
+    @Benchmark
+    public byte[] readPage() throws IOException {
+        diskManager.readPage(nextPageId(), page);
+        return page;
+    }
+
+    @Benchmark
+    public void writePage() throws IOException {
+        diskManager.writePage(nextPageId(), written);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        database.close();
+    }
+}
@@ -0,0 +1,67 @@
+package sql.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sql.page.Page;
+import sql.page.PageType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slotted page record operations, no buffer pool or disk involved.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class PageBenchmark {
+    @Param({"16", "100", "400"})
+    public int recordSize;
+
+    private byte[] record;
+    private Page scratch;
+    private Page full;
+    private int slots;
+    private int nextSlot;
+
+    @Setup
+    public void setup() {
+        record = TempDatabase.record(recordSize);
+        scratch = new Page(0, PageType.DATA);
+        full = new Page(1, PageType.DATA);
+        while (full.hasSpaceFor(recordSize)) {
+            full.insertRecord(record);
+        }
+        slots = full.getSlotCount();
+    }
+
+    // Empties the page and inserts until it is full; divide by records per page for the per-insert cost
+    @Benchmark
+    public int insertUntilFull() {
+        scratch.initEmpty(0, PageType.DATA);
+        int inserted = 0;
+        while (scratch.hasSpaceFor(recordSize)) {
+            scratch.insertRecord(record);
+            inserted++;
+        }
+        return inserted;
+    }
+
+    @Benchmark
+    public byte[] readRecord() {
+        int slot = nextSlot;
+        nextSlot = slot + 1 == slots ? 0 : slot + 1;
+        return full.readRecord(slot);
+    }
+}
@@ -0,0 +1,71 @@
+package sql.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sql.buffer.BufferPool;
+import sql.table.SequentialScan;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full scan of a 2000-page table, either cached in the pool or streamed through a small one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class SequentialScanBenchmark {
+    private static final int PAGES = 2000;
+
+    @Param({"32", "200"})
+    public int recordSize;
+
+    @Param({"64", "4096"})
+    public int poolSize;
+
+    private TempDatabase database;
+    private TableHeap table;
+    private int records;
+
+    @Setup
+    public void setup() throws IOException {
+        database = new TempDatabase();
+        records = database.writeFilledPages(PAGES, TempDatabase.record(recordSize));
+        table = new TableHeap(new BufferPool(poolSize, database.getDiskManager()), 0, PAGES - 1);
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) throws IOException {
+        SequentialScan scan = table.scan();
+        int seen = 0;
+        byte[] record;
+        while ((record = scan.next()) != null) {
+            blackhole.consume(record);
+            seen++;
+        }
+        scan.close();
+        if (seen != records) {
+            throw new IllegalStateException("Scanned " + seen + " of " + records + " records");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        database.close();
+    }
+}
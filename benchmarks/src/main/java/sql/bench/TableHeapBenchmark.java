@@ -0,0 +1,65 @@
+package sql.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sql.buffer.BufferPool;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading rows into an empty table. Insert looks for space from the first page on,
+ * so the cost per row grows with the table, and with misses once it outgrows the pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class TableHeapBenchmark {
+    @Param({"1000", "5000"})
+    public int rows;
+
+    @Param({"32", "200"})
+    public int recordSize;
+
+    @Param({"64", "1024"})
+    public int poolSize;
+
+    private byte[] record;
+    private TempDatabase database;
+    private TableHeap table;
+
+    @Setup(Level.Invocation)
+    public void setup() throws IOException {
+        record = TempDatabase.record(recordSize);
+        database = new TempDatabase();
+        table = new TableHeap(new BufferPool(poolSize, database.getDiskManager()), 0);
+    }
+
+    @Benchmark
+    public TableHeap insert() throws IOException {
+        for (int i = 0; i < rows; i++) {
+            table.insert(record);
+        }
+        return table;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+}
@@ -0,0 +1,62 @@
+package sql.bench;
+
+import sql.page.Page;
+import sql.page.PageType;
+import sql.storage.DiskManager;
+import sql.storage.PageCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A database file in the temp directory, removed again on close.
+ */
+final class TempDatabase implements AutoCloseable {
+    private final Path file;
+    private final DiskManager diskManager;
+
+    TempDatabase() throws IOException {
+        this(null);
+    }
+
+    TempDatabase(PageCodec codec) throws IOException {
+        this.file = Files.createTempFile("bench", ".db");
+        this.diskManager = new DiskManager(file.toString(), Page.PAGE_SIZE, codec);
+    }
+
+    DiskManager getDiskManager() {
+        return diskManager;
+    }
+
+    /**
+     * Write pages 0 to pages - 1 straight to disk, each filled with copies of record.
+     */
+    int writeFilledPages(int pages, byte[] record) throws IOException {
+        int records = 0;
+        for (int pageId = 0; pageId < pages; pageId++) {
+            Page page = new Page(pageId, PageType.DATA);
+            while (page.hasSpaceFor(record.length)) {
+                page.insertRecord(record);
+                records++;
+            }
+            diskManager.writePage(pageId, page.getData());
+        }
+        return records;
+    }
+
+    static byte[] record(int size) {
+        byte[] record = new byte[size];
+        for (int i = 0; i < size; i++) {
+            record[i] = (byte) ('a' + i % 26);
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        diskManager.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + ".map"));
+    }
+}
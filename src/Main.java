@@ -1,18 +1,92 @@
 import sql.buffer.BufferPool;
+import sql.buffer.CompressedPageCache;
 import sql.buffer.Frame;
+import sql.catalog.Catalog;
+import sql.catalog.TableInfo;
+import sql.execution.Aggregate;
+import sql.execution.AggregateFunction;
+import sql.execution.ExternalSort;
+import sql.execution.Filter;
+import sql.execution.GroupTable;
+import sql.execution.HashAggregate;
+import sql.execution.HashJoin;
+import sql.execution.IndexScan;
+import sql.execution.Limit;
+import sql.execution.NestedLoopJoin;
+import sql.execution.Operator;
+import sql.execution.Project;
+import sql.execution.SortKey;
+import sql.execution.TableScan;
+import sql.execution.vector.ColumnarScan;
+import sql.execution.vector.CompareOp;
+import sql.execution.vector.Kernels;
+import sql.execution.vector.ParallelHashAggregate;
+import sql.execution.vector.VectorAggregate;
+import sql.execution.vector.VectorFilter;
+import sql.index.ExtendibleHashIndex;
+import sql.metrics.BufferPoolMetrics;
+import sql.metrics.DiskMetrics;
+import sql.metrics.Jmx;
+import sql.metrics.PageEvictEvent;
+import sql.metrics.PageIoEvent;
+import sql.metrics.PinnedStallEvent;
 import sql.page.Page;
 import sql.page.PageType;
 import sql.page.Slot;
+import sql.record.Column;
+import sql.record.ColumnType;
 import sql.record.RecordId;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.query.PreparedStatement;
+import sql.query.QueryEngine;
+import sql.server.Client;
+import sql.server.LoadGenerator;
+import sql.server.Server;
+import sql.statistics.Analyzer;
+import sql.statistics.ColumnStatistics;
+import sql.statistics.CostEstimator;
+import sql.statistics.HyperLogLog;
+import sql.statistics.TableStatistics;
+import sql.storage.DeflateCodec;
 import sql.storage.DiskManager;
+import sql.storage.Lz4Codec;
+import sql.storage.PageCodec;
 import sql.table.SequentialScan;
 import sql.table.TableHeap;
+import sql.transaction.DeadlockException;
+import sql.transaction.LockManager;
+import sql.transaction.LockMode;
+import sql.transaction.MvccTable;
+import sql.transaction.Transaction;
+import sql.transaction.TransactionManager;
+import sql.transaction.WriteConflictException;
 
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 public class Main {
     public static void main(String[] args) throws Exception {
@@ -21,7 +95,23 @@ public class Main {
 //        testTableHeap();
 //        testSequentialScan();
 //        testDeleteAndScan();
-        testUpdate();
+//        testUpdate();
+//        testExecution();
+//        benchVectorized();
+//        testHashJoin();
+//        testExternalSort();
+//        testGroupAggregate();
+//        testMvcc();
+//        testLockManager();
+//        testHashIndex();
+//        testStatistics();
+//        testZoneMap();
+//        benchCompression();
+//        benchSecondTier();
+//        testPackedIds();
+//        testMetrics();
+//        benchServer();
+        testSql();
     }
 
     private static void testPage() throws IOException {
@@ -297,7 +387,7 @@ public class Main {
         bufferPool.unpinPage(r1b.getPageId(), false);
         System.out.println("Data 1: " + Arrays.toString(p1.getData()));
 
-        // Case 2: force move
+        // Case 2: grow within the same page
         RecordId r2 = table.update(r1b, "Hello World!!!".getBytes());
         byte[] b = table.read(r2);
         System.out.println("Update in place b -> " + new String(b));
@@ -305,9 +395,1865 @@ public class Main {
         bufferPool.unpinPage(r2.getPageId(), false);
         System.out.println("Data 1: " + Arrays.toString(p1.getData()));
 
+        if (!r2.equals(r1)) {
+            throw new IllegalStateException("RecordId changed on update: " + r1 + " -> " + r2);
+        }
+
+        // Case 3: fill the page so the record has to move to another page
+        byte[] filler = new byte[100];
+        while (table.getLastPageId() == r1.getPageId()) {
+            table.insert(filler);
+        }
+
+        byte[] big = new byte[500];
+        Arrays.fill(big, (byte) 'x');
+        RecordId r3 = table.update(r1, big);
+        if (!r3.equals(r1) || !Arrays.equals(table.read(r1), big)) {
+            throw new IllegalStateException("Forwarded record not readable through " + r1);
+        }
+        System.out.println("Forwarded record read through " + r1);
+
+        // Scan must return the moved record exactly once
+        SequentialScan scan = new SequentialScan(bufferPool, 0, table.getLastPageId());
+        int bigCount = 0;
+        byte[] record;
+        while ((record = scan.next()) != null) {
+            if (Arrays.equals(record, big)) {
+                bigCount++;
+            }
+        }
+        scan.close();
+
+        if (bigCount != 1) {
+            throw new IllegalStateException("Expected moved record once in scan, got " + bigCount);
+        }
+
+        // Case 4: a moved record that can move nowhere else keeps its old copy
+        TableHeap full = new TableHeap(bufferPool, 200);
+        full.setPageLimit(201);
+        RecordId moved = full.insert("moved".getBytes());
+        int rows = 1;
+        while (full.getLastPageId() == 200) {
+            full.insert(filler);
+            rows++;
+        }
+        full.update(moved, big);
+        try {
+            while (true) {
+                full.insert(filler);
+                rows++;
+            }
+        } catch (IllegalStateException e) {
+            System.out.println("Filled: " + e.getMessage());
+        }
+        try {
+            full.update(moved, new byte[3000]);
+            throw new IllegalStateException("Update into full pages should fail");
+        } catch (IllegalStateException e) {
+            if (!e.getMessage().contains("are full")) {
+                throw e;
+            }
+        }
+        if (!Arrays.equals(full.read(moved), big)) {
+            throw new IllegalStateException("Failed update lost the record " + moved);
+        }
+        int scanned = 0;
+        SequentialScan fullScan = full.scan();
+        while (fullScan.next() != null) {
+            scanned++;
+        }
+        fullScan.close();
+        if (scanned != rows) {
+            throw new IllegalStateException("Expected " + rows + " rows after failed update, scanned " + scanned);
+        }
+        for (Frame frame : bufferPool.getPageTable().values()) {
+            if (frame.isPinned()) {
+                throw new IllegalStateException("Failed update left a page pinned");
+            }
+        }
+
+        // Case 5: the largest record fits an empty page, one byte more is rejected
+        TableHeap edge = new TableHeap(bufferPool, 300);
+        edge.setPageLimit(310);
+        RecordId largest = edge.insert(new byte[Page.MAX_RECORD_SIZE]);
+        if (largest.getPageId() != 300 || edge.read(largest).length != Page.MAX_RECORD_SIZE) {
+            throw new IllegalStateException("Largest record not stored on the first page: " + largest);
+        }
+        try {
+            edge.insert(new byte[Page.MAX_RECORD_SIZE + 1]);
+            throw new IllegalStateException("Record over the limit should be rejected");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Rejected: " + e.getMessage());
+        }
+        if (edge.getLastPageId() != 300) {
+            throw new IllegalStateException("Rejected record grew the table to page " + edge.getLastPageId());
+        }
+
         System.out.println("UPDATE PASSED");
     }
 
+    private static void testExecution() throws Exception {
+        System.out.println("\n=== Execution Engine Test ===");
+
+        Path dbFile = Path.of("execution_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(4, diskManager);
+
+        Schema users = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("name", ColumnType.VARCHAR),
+                new Column("age", ColumnType.INT));
+        Schema orders = new Schema(
+                new Column("user_id", ColumnType.INT),
+                new Column("amount", ColumnType.LONG));
+
+        // users on pages from 0, orders far enough away not to collide
+        TableHeap userTable = new TableHeap(bufferPool, 0);
+        TableHeap orderTable = new TableHeap(bufferPool, 1000);
+
+        List<RecordId> adults = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int age = 10 + i % 50;
+            RecordId rid = userTable.insert(new Tuple(users, i, "user" + i, age).toBytes());
+            if (age >= 18) {
+                adults.add(rid);
+            }
+            orderTable.insert(new Tuple(orders, i, (long) i * 10).toBytes());
+            orderTable.insert(new Tuple(orders, i, 1L).toBytes());
+        }
+
+        // SELECT name FROM users WHERE age >= 18 LIMIT 100
+        Operator adultNames = new Limit(
+                new Project(new Filter(new TableScan(userTable, users), t -> t.getInt(2) >= 18), 1), 100);
+        int count = drain(adultNames);
+        if (count != 100) {
+            throw new IllegalStateException("Expected 100 rows from limit, got " + count);
+        }
+
+        // Same rows through an index style lookup
+        count = drain(new IndexScan(userTable, users, adults));
+        if (count != adults.size()) {
+            throw new IllegalStateException("Expected " + adults.size() + " rows from index scan, got " + count);
+        }
+
+        // SELECT u.id, o.amount FROM users u JOIN orders o ON u.id = o.user_id WHERE u.id < 10
+        Operator join = new NestedLoopJoin(
+                new Filter(new TableScan(userTable, users), t -> t.getInt(0) < 10),
+                new TableScan(orderTable, orders),
+                (u, o) -> u.getInt(0) == o.getInt(0));
+        count = drain(join);
+        if (count != 20) {
+            throw new IllegalStateException("Expected 20 joined rows, got " + count);
+        }
+
+        // SELECT user_id, count(*), sum(amount) FROM orders GROUP BY user_id
+        Operator groups = new HashAggregate(new TableScan(orderTable, orders), new int[]{0},
+                List.of(Aggregate.countAll(), new Aggregate(AggregateFunction.SUM, 1)));
+        groups.open();
+        int groupCount = 0;
+        Tuple group;
+        while ((group = groups.next()) != null) {
+            if (group.getLong(1) != 2 || group.getLong(2) != group.getInt(0) * 10L + 1) {
+                throw new IllegalStateException("Wrong aggregate " + group);
+            }
+            groupCount++;
+        }
+        groups.close();
+        if (groupCount != 500) {
+            throw new IllegalStateException("Expected 500 groups, got " + groupCount);
+        }
+
+        System.out.println("Execution Engine PASSED");
+    }
+
+    // Run with --add-modules jdk.incubator.vector to use the SIMD kernels
+    private static void benchVectorized() throws Exception {
+        System.out.println("\n=== Vectorized vs Row-at-a-time ===");
+
+        Path dbFile = Path.of("vector_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        // large enough to keep the whole table cached, so we time CPU not disk
+        BufferPool bufferPool = new BufferPool(4096, diskManager);
+
+        Schema schema = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("qty", ColumnType.INT),
+                new Column("price", ColumnType.DOUBLE));
+        TableHeap table = new TableHeap(bufferPool, 0);
+
+        int rows = 300_000;
+        for (int i = 0; i < rows; i++) {
+            table.insert(new Tuple(schema, i, i % 100, (i % 1000) / 10.0).toBytes());
+        }
+
+        // SELECT count(*), sum(qty), max(price) FROM t WHERE qty >= 50
+        List<Aggregate> rowAggregates = List.of(Aggregate.countAll(),
+                new Aggregate(AggregateFunction.SUM, 1), new Aggregate(AggregateFunction.MAX, 2));
+        List<Aggregate> vectorAggregates = List.of(Aggregate.countAll(),
+                new Aggregate(AggregateFunction.SUM, 0), new Aggregate(AggregateFunction.MAX, 1));
+
+        Operator rowPlan = new HashAggregate(
+                new Filter(new TableScan(table, schema), t -> t.getInt(1) >= 50), new int[0], rowAggregates);
+        Operator scalarPlan = new VectorAggregate(
+                new VectorFilter(new ColumnarScan(table, schema, 1, 2), 0, CompareOp.GE, 50, Kernels.scalar()),
+                vectorAggregates, Kernels.scalar());
+        Operator simdPlan = new VectorAggregate(
+                new VectorFilter(new ColumnarScan(table, schema, 1, 2), 0, CompareOp.GE, 50),
+                vectorAggregates);
+
+        Tuple expected = runSingle(rowPlan);
+        if (!expected.equals(runSingle(scalarPlan)) || !expected.equals(runSingle(simdPlan))) {
+            throw new IllegalStateException("Vectorized result differs from " + expected);
+        }
+        System.out.println("Result: " + expected);
+
+        // Constants an INT column cannot hold must filter like the row-at-a-time comparison
+        for (double c : new double[]{2.5, -0.5, 49.0, 1e30, -1e30, Double.NaN}) {
+            for (CompareOp op : CompareOp.values()) {
+                Operator rowCount = new HashAggregate(new Filter(new TableScan(table, schema), t -> {
+                    int q = t.getInt(1);
+                    return switch (op) {
+                        case EQ -> q == c;
+                        case NE -> q != c;
+                        case LT -> q < c;
+                        case LE -> q <= c;
+                        case GT -> q > c;
+                        case GE -> q >= c;
+                    };
+                }), new int[0], List.of(Aggregate.countAll()));
+                Tuple want = runSingle(rowCount);
+                for (Kernels kernels : List.of(Kernels.scalar(), Kernels.get())) {
+                    Tuple got = runSingle(new VectorAggregate(
+                            new VectorFilter(new ColumnarScan(table, schema, 1, 2), 0, op, c, kernels),
+                            List.of(Aggregate.countAll()), kernels));
+                    if (!want.equals(got)) {
+                        throw new IllegalStateException("qty " + op + " " + c + ": vectorized " + got
+                                + ", row-at-a-time " + want);
+                    }
+                }
+            }
+        }
+
+        // Kernels alone, on data already in column vectors
+        int[] qty = new int[KernelBench.SIZE];
+        for (int i = 0; i < qty.length; i++) {
+            qty[i] = i % 100;
+        }
+        int[] selection = new int[qty.length];
+
+        for (int round = 0; round < 5; round++) {
+            long rowTime = time(() -> runSingle(rowPlan));
+            long scalarTime = time(() -> runSingle(scalarPlan));
+            long simdTime = time(() -> runSingle(simdPlan));
+            long scalarKernel = time(() -> KernelBench.filterAndSum(Kernels.scalar(), qty, selection));
+            long simdKernel = time(() -> KernelBench.filterAndSum(Kernels.get(), qty, selection));
+
+            System.out.printf("round %d | row %d ms | vector scalar %d ms | vector %s %d ms"
+                            + " | kernels only: scalar %d us, %s %d us%n",
+                    round, rowTime / 1_000_000, scalarTime / 1_000_000,
+                    Kernels.get().getClass().getSimpleName(), simdTime / 1_000_000,
+                    scalarKernel / 1_000, Kernels.get().getClass().getSimpleName(), simdKernel / 1_000);
+        }
+
+        System.out.println("Vectorized PASSED");
+    }
+
+    private static void testHashJoin() throws Exception {
+        System.out.println("\n=== Hash Join Test ===");
+
+        Path dbFile = Path.of("hashjoin_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(16, diskManager);
+
+        Schema customers = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("name", ColumnType.VARCHAR));
+        Schema orders = new Schema(
+                new Column("customer_id", ColumnType.INT),
+                new Column("amount", ColumnType.LONG));
+
+        TableHeap customerTable = new TableHeap(bufferPool, 0);
+        TableHeap orderTable = new TableHeap(bufferPool, 10_000);
+
+        int customerCount = 5_000;
+        for (int i = 0; i < customerCount; i++) {
+            customerTable.insert(new Tuple(customers, i, "customer-" + i).toBytes());
+        }
+        // every third customer has no orders, some orders have no customer
+        long expectedSum = 0;
+        int expectedRows = 0;
+        for (int i = 0; i < customerCount + 500; i++) {
+            if (i % 3 == 0) {
+                continue;
+            }
+            for (int n = 0; n < 2; n++) {
+                orderTable.insert(new Tuple(orders, i, (long) n + i).toBytes());
+                if (i < customerCount) {
+                    expectedSum += n + i;
+                    expectedRows++;
+                }
+            }
+        }
+
+        for (long budget : new long[]{HashJoin.DEFAULT_MEMORY_BUDGET, 256 * 1024}) {
+            HashJoin join = new HashJoin(
+                    new TableScan(customerTable, customers), new TableScan(orderTable, orders), 0, 0, budget);
+
+            join.open();
+            int rows = 0;
+            long sum = 0;
+            Tuple tuple;
+            while ((tuple = join.next()) != null) {
+                if (tuple.getInt(0) != tuple.getInt(2)
+                        || !tuple.getString(1).equals("customer-" + tuple.getInt(0))) {
+                    throw new IllegalStateException("Bad join row " + tuple);
+                }
+                rows++;
+                sum += tuple.getLong(3);
+            }
+            join.close();
+
+            System.out.println("budget=" + budget + " rows=" + rows + " spilled=" + join.getPartitionsSpilled());
+            if (rows != expectedRows || sum != expectedSum) {
+                throw new IllegalStateException("Expected " + expectedRows + " rows / sum " + expectedSum
+                        + ", got " + rows + " / " + sum);
+            }
+            if (budget < HashJoin.DEFAULT_MEMORY_BUDGET && join.getPartitionsSpilled() == 0) {
+                throw new IllegalStateException("Small budget should have spilled");
+            }
+        }
+
+        // keys of different numeric types match by value: INT with LONG, LONG with DOUBLE, -0.0 with 0.0
+        Schema ints = new Schema(new Column("k", ColumnType.INT));
+        Schema longs = new Schema(new Column("k", ColumnType.LONG));
+        Schema doubles = new Schema(new Column("k", ColumnType.DOUBLE));
+        TableHeap intTable = new TableHeap(bufferPool, 30_000);
+        TableHeap longTable = new TableHeap(bufferPool, 31_000);
+        TableHeap doubleTable = new TableHeap(bufferPool, 32_000);
+        for (int i = -5; i < 5; i++) {
+            intTable.insert(new Tuple(ints, i).toBytes());
+            longTable.insert(new Tuple(longs, (long) i).toBytes());
+        }
+        for (double d : new double[]{-0.0, 3.0, 3.5, 1e30}) {
+            doubleTable.insert(new Tuple(doubles, d).toBytes());
+        }
+        int intLong = collect(new HashJoin(
+                new TableScan(intTable, ints), new TableScan(longTable, longs), 0, 0)).size();
+        int longDouble = collect(new HashJoin(
+                new TableScan(longTable, longs), new TableScan(doubleTable, doubles), 0, 0)).size();
+        if (intLong != 10 || longDouble != 2) {
+            throw new IllegalStateException("Mixed key joins: INT-LONG " + intLong + " rows, expected 10; "
+                    + "LONG-DOUBLE " + longDouble + " rows, expected 2 (0 = -0.0 and 3 = 3.0)");
+        }
+
+        System.out.println("Hash Join PASSED");
+    }
+
+    private static void testExternalSort() throws Exception {
+        System.out.println("\n=== External Sort Test ===");
+
+        Path dbFile = Path.of("sort_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(16, diskManager);
+
+        Schema schema = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("score", ColumnType.LONG),
+                new Column("name", ColumnType.VARCHAR));
+        TableHeap table = new TableHeap(bufferPool, 0);
+
+        Random random = new Random(42);
+        int rows = 5_000;
+        for (int i = 0; i < rows; i++) {
+            Long score = i % 97 == 0 ? null : (long) random.nextInt(1000);
+            table.insert(new Tuple(schema, i, score, "name" + random.nextInt(100)).toBytes());
+        }
+
+        // ORDER BY score DESC, id
+        List<SortKey> keys = List.of(SortKey.desc(1), SortKey.asc(0));
+        Comparator<Tuple> order = SortKey.comparator(keys);
+
+        // 64KB budget forces several runs and a merge pass
+        ExternalSort sort = new ExternalSort(new TableScan(table, schema), keys, 64 * 1024, ExternalSort.NO_LIMIT);
+        List<Tuple> sorted = collect(sort);
+        System.out.println("Sorted " + sorted.size() + " rows using " + sort.getRunsWritten() + " runs");
+
+        if (sorted.size() != rows || sort.getRunsWritten() < 2) {
+            throw new IllegalStateException("Expected " + rows + " rows over several runs");
+        }
+        for (int i = 1; i < sorted.size(); i++) {
+            if (order.compare(sorted.get(i - 1), sorted.get(i)) > 0) {
+                throw new IllegalStateException("Out of order at " + i + ": " + sorted.get(i - 1) + " > " + sorted.get(i));
+            }
+        }
+        // nulls sort first, so they come last descending
+        if (!sorted.get(rows - 1).isNull(1)) {
+            throw new IllegalStateException("Nulls should be last in descending order");
+        }
+
+        // ORDER BY ... LIMIT 10 through the top-N heap
+        ExternalSort topN = new ExternalSort(new TableScan(table, schema), keys, 64 * 1024, 10);
+        List<Tuple> top = collect(topN);
+        if (!top.equals(sorted.subList(0, 10)) || topN.getRunsWritten() != 0) {
+            throw new IllegalStateException("Top-N differs from full sort: " + top);
+        }
+
+        System.out.println("External Sort PASSED");
+    }
+
+    private static void testGroupAggregate() throws Exception {
+        System.out.println("\n=== Group Aggregate Test ===");
+
+        Path dbFile = Path.of("group_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(16, diskManager);
+
+        Schema schema = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("region", ColumnType.INT),
+                new Column("amount", ColumnType.LONG),
+                new Column("price", ColumnType.DOUBLE),
+                new Column("name", ColumnType.VARCHAR));
+        TableHeap table = new TableHeap(bufferPool, 0);
+
+        int rows = 10_000;
+        int regions = 1_000;
+        Map<Integer, Long> expectedSums = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            Integer region = i % 101 == 0 ? null : i % regions;
+            Long amount = i % 7 == 0 ? null : (long) i;
+            table.insert(new Tuple(schema, i, region, amount, i % 10 + 0.5, "n" + i).toBytes());
+            if (amount != null) {
+                expectedSums.merge(region, amount, Long::sum);
+            }
+        }
+
+        // SELECT region, count(*), sum(amount), min(price), max(amount), avg(price) GROUP BY region
+        List<Aggregate> aggregates = List.of(
+                Aggregate.countAll(),
+                new Aggregate(AggregateFunction.SUM, 2),
+                new Aggregate(AggregateFunction.MIN, 3),
+                new Aggregate(AggregateFunction.MAX, 2),
+                new Aggregate(AggregateFunction.AVG, 3));
+        if (!GroupTable.supports(schema, new int[]{1}, aggregates)) {
+            throw new IllegalStateException("Integer group key should use the primitive table");
+        }
+
+        List<Tuple> serial = collect(new HashAggregate(new TableScan(table, schema), new int[]{1}, aggregates));
+        if (serial.size() != regions + 1) {
+            throw new IllegalStateException("Expected " + (regions + 1) + " groups, got " + serial.size());
+        }
+        long counted = 0;
+        for (Tuple group : serial) {
+            Integer region = group.isNull(0) ? null : group.getInt(0);
+            counted += group.getLong(1);
+            if (!Objects.equals(expectedSums.get(region), group.getValue(2))) {
+                throw new IllegalStateException("Wrong sum for region " + region + ": " + group);
+            }
+        }
+        if (counted != rows) {
+            throw new IllegalStateException("Counts add up to " + counted + ", expected " + rows);
+        }
+
+        // Same query split over threads, scanning only region, amount, price
+        List<Aggregate> projected = List.of(
+                Aggregate.countAll(),
+                new Aggregate(AggregateFunction.SUM, 1),
+                new Aggregate(AggregateFunction.MIN, 2),
+                new Aggregate(AggregateFunction.MAX, 1),
+                new Aggregate(AggregateFunction.AVG, 2));
+        for (int threads : new int[]{1, 4}) {
+            List<Tuple> parallel = collect(new ParallelHashAggregate(
+                    table, schema, new int[]{1, 2, 3}, new int[]{0}, projected, threads));
+            if (!parallel.equals(serial)) {
+                throw new IllegalStateException("Parallel aggregate with " + threads + " threads differs");
+            }
+        }
+
+        // Two INT keys packed into one long, and a VARCHAR key on the boxed path
+        List<Tuple> pairs = collect(new HashAggregate(
+                new TableScan(table, schema), new int[]{1, 0}, List.of(Aggregate.countAll())));
+        List<Tuple> names = collect(new HashAggregate(
+                new TableScan(table, schema), new int[]{4}, List.of(Aggregate.countAll())));
+        if (pairs.size() != rows || names.size() != rows) {
+            throw new IllegalStateException("Expected one group per row, got " + pairs.size() + " / " + names.size());
+        }
+
+        // COUNT(name) over a VARCHAR column, grouped by an INT key
+        List<Tuple> namedPerRegion = collect(new HashAggregate(new TableScan(table, schema), new int[]{1},
+                List.of(new Aggregate(AggregateFunction.COUNT, 4))));
+        long namesCounted = 0;
+        for (Tuple group : namedPerRegion) {
+            namesCounted += group.getLong(1);
+        }
+        if (namedPerRegion.size() != regions + 1 || namesCounted != rows) {
+            throw new IllegalStateException("COUNT(name) GROUP BY region counted " + namesCounted);
+        }
+
+        // Empty input without GROUP BY still yields one row
+        Tuple empty = runSingle(new HashAggregate(
+                new Limit(new TableScan(table, schema), 0), new int[0], aggregates));
+        if (empty.getLong(0) != 0 || !empty.isNull(1)) {
+            throw new IllegalStateException("Bad empty aggregate " + empty);
+        }
+
+        System.out.println("groups=" + serial.size() + " first=" + serial.get(0));
+        System.out.println("Group Aggregate PASSED");
+    }
+
+    private static void testMvcc() throws Exception {
+        System.out.println("\n=== MVCC Test ===");
+
+        Path dbFile = Path.of("mvcc_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(16, diskManager);
+
+        Schema accounts = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("balance", ColumnType.LONG));
+        TransactionManager manager = new TransactionManager();
+        MvccTable table = new MvccTable(new TableHeap(bufferPool, 0), manager);
+
+        Transaction setup = manager.begin();
+        List<RecordId> rids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rids.add(table.insert(setup, new Tuple(accounts, i, 100L).toBytes()));
+        }
+        manager.commit(setup);
+
+        // A reporting snapshot taken before the writer starts keeps seeing the old rows
+        Transaction report = manager.begin();
+        Transaction writer = manager.begin();
+        table.update(writer, rids.get(0), new Tuple(accounts, 0, 50L).toBytes());
+        table.delete(writer, rids.get(1));
+        table.insert(writer, new Tuple(accounts, 3, 7L).toBytes());
+
+        checkBalances(table, accounts, writer, 50 + 100 + 7, 3);
+        checkBalances(table, accounts, report, 300, 3);
+        manager.commit(writer);
+        checkBalances(table, accounts, report, 300, 3);
+        checkBalances(table, accounts, manager.begin(), 157, 3);
+
+        // Index lookups apply the same snapshot
+        List<Tuple> viaIndex = collect(new IndexScan(table.getHeap(), accounts, rids, table.visibility(report)));
+        if (viaIndex.size() != 3 || viaIndex.get(1).getLong(1) != 100) {
+            throw new IllegalStateException("Index lookup ignored the snapshot: " + viaIndex);
+        }
+        manager.commit(report);
+
+        // First updater wins, also after it commits
+        Transaction first = manager.begin();
+        Transaction second = manager.begin();
+        table.update(first, rids.get(2), new Tuple(accounts, 2, 1L).toBytes());
+        expectConflict(table, second, rids.get(2), accounts);
+        manager.commit(first);
+        expectConflict(table, second, rids.get(2), accounts);
+        manager.abort(second);
+
+        // Abort restores every write
+        Transaction doomed = manager.begin();
+        table.update(doomed, rids.get(0), new Tuple(accounts, 0, 999L).toBytes());
+        table.update(doomed, rids.get(0), new Tuple(accounts, 0, 1000L).toBytes());
+        table.delete(doomed, rids.get(2));
+        table.insert(doomed, new Tuple(accounts, 4, 5L).toBytes());
+        manager.abort(doomed);
+        checkBalances(table, accounts, manager.begin(), 50 + 1 + 7, 3);
+
+        // Concurrent transfers keep the total constant for every snapshot
+        TransactionManager bankManager = new TransactionManager();
+        MvccTable bank = new MvccTable(new TableHeap(bufferPool, 1_000), bankManager);
+        Transaction open = bankManager.begin();
+        List<RecordId> bankRids = new ArrayList<>();
+        int accountCount = 20;
+        for (int i = 0; i < accountCount; i++) {
+            bankRids.add(bank.insert(open, new Tuple(accounts, i, 1_000L).toBytes()));
+        }
+        bankManager.commit(open);
+
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger scans = new AtomicInteger();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 3; w++) {
+            int seed = w;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    for (int n = 0; n < 300; n++) {
+                        Transaction tx = bankManager.begin();
+                        try {
+                            RecordId from = bankRids.get(random.nextInt(accountCount));
+                            RecordId to = bankRids.get(random.nextInt(accountCount));
+                            if (from.equals(to)) {
+                                bankManager.commit(tx);
+                                continue;
+                            }
+                            Tuple a = Tuple.fromBytes(accounts, bank.read(tx, from));
+                            Tuple b = Tuple.fromBytes(accounts, bank.read(tx, to));
+                            bank.update(tx, from, new Tuple(accounts, a.getInt(0), a.getLong(1) - 10).toBytes());
+                            bank.update(tx, to, new Tuple(accounts, b.getInt(0), b.getLong(1) + 10).toBytes());
+                            bankManager.commit(tx);
+                        } catch (WriteConflictException e) {
+                            conflicts.incrementAndGet();
+                            bankManager.abort(tx);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            try {
+                for (int n = 0; n < 200; n++) {
+                    Transaction tx = bankManager.begin();
+                    checkBalances(bank, accounts, tx, 1_000L * accountCount, accountCount);
+                    bankManager.commit(tx);
+                    scans.incrementAndGet();
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Concurrent MVCC failed", failures.get(0));
+        }
+
+        int before = bank.getVersionCount();
+        int removed = bank.vacuum();
+        if (bank.getVersionCount() != 0 || removed != before) {
+            throw new IllegalStateException("Vacuum left " + bank.getVersionCount() + " of " + before + " versions");
+        }
+        checkBalances(bank, accounts, bankManager.begin(), 1_000L * accountCount, accountCount);
+
+        // Vacuum removes deleted rows from the heap once no snapshot can see them, and old aborts
+        TransactionManager cleanManager = new TransactionManager();
+        MvccTable clean = new MvccTable(new TableHeap(bufferPool, 2_000), cleanManager);
+        Transaction fill = cleanManager.begin();
+        List<RecordId> cleanRids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            cleanRids.add(clean.insert(fill, new Tuple(accounts, i, 1L).toBytes()));
+        }
+        cleanManager.commit(fill);
+
+        Transaction pinned = cleanManager.begin();
+        Transaction remover = cleanManager.begin();
+        for (int i = 0; i < 150; i++) {
+            clean.delete(remover, cleanRids.get(i));
+        }
+        cleanManager.commit(remover);
+        Transaction failed = cleanManager.begin();
+        clean.update(failed, cleanRids.get(199), new Tuple(accounts, 199, 2L).toBytes());
+        cleanManager.abort(failed);
+
+        int whilePinned = clean.vacuum();
+        if (whilePinned != 0 || storedRecords(clean.getHeap()) != 200) {
+            throw new IllegalStateException("Vacuum removed rows a running snapshot can see");
+        }
+        checkBalances(clean, accounts, pinned, 200, 200);
+        cleanManager.commit(pinned);
+
+        int vacuumed = clean.vacuum();
+        if (vacuumed != 150 || storedRecords(clean.getHeap()) != 50 || cleanManager.getAbortedCount() != 0) {
+            throw new IllegalStateException("Vacuum removed " + vacuumed + " rows, kept "
+                    + storedRecords(clean.getHeap()) + ", aborted ids left " + cleanManager.getAbortedCount());
+        }
+        checkBalances(clean, accounts, cleanManager.begin(), 50, 50);
+
+        // A new manager over the stored heap sees every committed version, and its ids do not collide
+        bufferPool.flushAll();
+        diskManager.close();
+        DiskManager reopenedDisk = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool reopenedPool = new BufferPool(16, reopenedDisk);
+        TransactionManager reopenedManager = new TransactionManager();
+        MvccTable reopened = new MvccTable(
+                new TableHeap(reopenedPool, 1_000, bank.getHeap().getLastPageId()), reopenedManager);
+        checkBalances(reopened, accounts, reopenedManager.begin(), 1_000L * accountCount, accountCount);
+
+        Transaction afterReopen = reopenedManager.begin();
+        SequentialScan reopenedScan = reopened.getHeap().scan();
+        reopenedScan.next();
+        RecordId firstAccount = reopenedScan.getLastRecordId();
+        reopenedScan.close();
+        Tuple account = Tuple.fromBytes(accounts, reopened.read(afterReopen, firstAccount));
+        if (!reopened.update(afterReopen, firstAccount,
+                new Tuple(accounts, account.getInt(0), account.getLong(1) + 1).toBytes())) {
+            throw new IllegalStateException("Reopened record not writable: " + firstAccount);
+        }
+        reopenedManager.commit(afterReopen);
+        checkBalances(reopened, accounts, reopenedManager.begin(), 1_000L * accountCount + 1, accountCount);
+        reopenedDisk.close();
+
+        System.out.println("scans=" + scans + " conflicts=" + conflicts + " vacuumed=" + removed);
+        System.out.println("MVCC PASSED");
+    }
+
+    // Records stored in the heap, including versions no snapshot sees
+    private static int storedRecords(TableHeap heap) throws IOException {
+        SequentialScan scan = heap.scan();
+        int count = 0;
+        while (scan.next() != null) {
+            count++;
+        }
+        scan.close();
+        return count;
+    }
+
+    private static void testLockManager() throws Exception {
+        System.out.println("\n=== Lock Manager Test ===");
+
+        try (LockManager locks = new LockManager(LockManager.DEFAULT_STRIPES, 10)) {
+            TransactionManager manager = new TransactionManager(locks);
+            int table = 0;
+            RecordId rowA = new RecordId(1, (short) 0);
+            RecordId rowB = new RecordId(1, (short) 1);
+
+            // Shared locks coexist, an exclusive request waits for both to end
+            Transaction reader1 = manager.begin();
+            Transaction reader2 = manager.begin();
+            locks.lockRow(reader1, table, rowA, LockMode.S);
+            locks.lockRow(reader2, table, rowA, LockMode.S);
+
+            Transaction writer = manager.begin();
+            CountDownLatch granted = new CountDownLatch(1);
+            Thread writerThread = new Thread(() -> {
+                try {
+                    locks.lockRow(writer, table, rowA, LockMode.X);
+                    granted.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            writerThread.start();
+            if (granted.await(100, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("X granted while S locks are held");
+            }
+            manager.commit(reader1);
+            manager.commit(reader2);
+            if (!granted.await(1, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("X not granted after readers ended");
+            }
+            writerThread.join();
+
+            // The row lock put IX on the table, which blocks a table-wide S lock
+            Transaction scanner = manager.begin();
+            CountDownLatch scanGranted = new CountDownLatch(1);
+            Thread scanThread = new Thread(() -> {
+                try {
+                    locks.lockTable(scanner, table, LockMode.S);
+                    scanGranted.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            scanThread.start();
+            if (scanGranted.await(100, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Table S granted next to IX");
+            }
+            manager.commit(writer);
+            if (!scanGranted.await(1, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Table S not granted after writer ended");
+            }
+            scanThread.join();
+            manager.commit(scanner);
+
+            // Two transactions locking rows in opposite order: the younger one is the victim
+            Transaction older = manager.begin();
+            Transaction younger = manager.begin();
+            locks.lockRow(older, table, rowA, LockMode.X);
+            locks.lockRow(younger, table, rowB, LockMode.X);
+
+            List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger victims = new AtomicInteger();
+            Thread olderThread = new Thread(() -> lockOrAbort(manager, older, rowB, victims, failures));
+            Thread youngerThread = new Thread(() -> lockOrAbort(manager, younger, rowA, victims, failures));
+            olderThread.start();
+            youngerThread.start();
+            olderThread.join(5_000);
+            youngerThread.join(5_000);
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("Deadlock test failed", failures.get(0));
+            }
+            if (victims.get() != 1 || younger.getState() != Transaction.State.ABORTED
+                    || older.getState() != Transaction.State.COMMITTED) {
+                throw new IllegalStateException("Expected the younger transaction as the only victim");
+            }
+            if (locks.getDeadlocksDetected() != victims.get()) {
+                throw new IllegalStateException("Counted " + locks.getDeadlocksDetected() + " deadlocks for "
+                        + victims.get() + " victims");
+            }
+            System.out.println("deadlocks detected=" + locks.getDeadlocksDetected());
+
+            // Uncontended lock and release of a row with its table and page intentions
+            Transaction solo = manager.begin();
+            int rounds = 1_000_000;
+            for (int round = 0; round < 2; round++) {
+                long elapsed = time(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        locks.lockRow(solo, table, new RecordId(i & 1023, (short) (i >>> 10)), LockMode.X);
+                        locks.releaseAll(solo);
+                    }
+                });
+                System.out.printf("uncontended row lock + release: %.0f ns%n", (double) elapsed / rounds);
+            }
+            manager.commit(solo);
+        }
+
+        System.out.println("Lock Manager PASSED");
+    }
+
+    private static void lockOrAbort(TransactionManager manager, Transaction tx, RecordId rid,
+                                    AtomicInteger victims, List<Throwable> failures) {
+        try {
+            try {
+                manager.getLockManager().lockRow(tx, 0, rid, LockMode.X);
+                manager.commit(tx);
+            } catch (DeadlockException e) {
+                victims.incrementAndGet();
+                manager.abort(tx);
+            }
+        } catch (Throwable t) {
+            failures.add(t);
+        }
+    }
+
+    private static void testHashIndex() throws Exception {
+        System.out.println("\n=== Hash Index Test ===");
+
+        Path dbFile = Path.of("hashindex_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(16, diskManager);
+        int rootPageId = 100_000;
+        ExtendibleHashIndex index = new ExtendibleHashIndex(bufferPool, rootPageId);
+
+        // Unique keys force many splits and several directory doublings
+        int keys = 200_000;
+        for (int i = 0; i < keys; i++) {
+            index.insert(i * 7L, new RecordId(i / 100, (short) (i % 100)));
+        }
+        // A hot key with more entries than a bucket holds goes to an overflow chain
+        int duplicates = 1_000;
+        for (int i = 0; i < duplicates; i++) {
+            index.insert(-1, new RecordId(0, (short) i));
+        }
+
+        for (int i = 0; i < keys; i += 37) {
+            List<RecordId> found = index.find(i * 7L);
+            if (found.size() != 1 || !found.get(0).equals(new RecordId(i / 100, (short) (i % 100)))) {
+                throw new IllegalStateException("Lookup of " + i * 7L + " returned " + found);
+            }
+        }
+        if (!index.find(3).isEmpty() || index.find(-1).size() != duplicates) {
+            throw new IllegalStateException("Missing key or duplicates not all found");
+        }
+
+        if (!index.delete(14, new RecordId(0, (short) 2)) || index.delete(14, new RecordId(0, (short) 2))
+                || !index.find(14).isEmpty()) {
+            throw new IllegalStateException("Delete did not remove exactly one entry");
+        }
+        System.out.println("entries=" + (keys + duplicates) + " globalDepth=" + index.getGlobalDepth()
+                + " pages=" + index.getPageCount());
+
+        // Reopen from disk through a fresh buffer pool
+        bufferPool.flushAll();
+        BufferPool reopened = new BufferPool(16, diskManager);
+        ExtendibleHashIndex loaded = new ExtendibleHashIndex(reopened, rootPageId);
+        if (loaded.getGlobalDepth() != index.getGlobalDepth() || loaded.find(7L * 12_345).size() != 1
+                || loaded.find(-1).size() != duplicates) {
+            throw new IllegalStateException("Index changed after reopening");
+        }
+
+        // A hot key and many other keys sharing the low bits of its hash all start in one bucket:
+        // the hot key's chain must not stop the bucket from taking and splitting the others
+        ExtendibleHashIndex skewed = new ExtendibleHashIndex(reopened, 400_000);
+        long hotKey = 7;
+        List<Long> neighbours = new ArrayList<>();
+        for (long key = 1; neighbours.size() < 600; key++) {
+            if (key != hotKey && (indexHash(key) & 0xFF) == (indexHash(hotKey) & 0xFF)) {
+                neighbours.add(key);
+            }
+        }
+        for (int i = 0; i < 2_000; i++) {
+            skewed.insert(hotKey, new RecordId(i, (short) 0));
+            if (i < neighbours.size()) {
+                skewed.insert(neighbours.get(i), new RecordId(i, (short) 1));
+            }
+        }
+        skewed.insert(281_826, new RecordId(0, (short) 2));
+        System.out.println("hot key + " + neighbours.size() + " neighbours: globalDepth=" + skewed.getGlobalDepth()
+                + " pages=" + skewed.getPageCount());
+        if (skewed.getGlobalDepth() > 12 || skewed.find(hotKey).size() != 2_000 || skewed.find(281_826).size() != 1) {
+            throw new IllegalStateException("Hot key blew up the directory or lost entries");
+        }
+        for (int i = 0; i < neighbours.size(); i++) {
+            List<RecordId> found = skewed.find(neighbours.get(i));
+            if (found.size() != 1 || !found.get(0).equals(new RecordId(i, (short) 1))) {
+                throw new IllegalStateException("Lookup of " + neighbours.get(i) + " returned " + found);
+            }
+        }
+        if (!skewed.delete(hotKey, new RecordId(5, (short) 0)) || skewed.find(hotKey).size() != 1_999) {
+            throw new IllegalStateException("Delete from the overflow chain failed");
+        }
+
+        // Feed an IndexScan from the index
+        Schema schema = new Schema(new Column("id", ColumnType.INT), new Column("tag", ColumnType.VARCHAR));
+        TableHeap table = new TableHeap(reopened, 0);
+        ExtendibleHashIndex byId = new ExtendibleHashIndex(reopened, 50_000);
+        for (int i = 0; i < 500; i++) {
+            byId.insert(i % 50, table.insert(new Tuple(schema, i % 50, "row" + i).toBytes()));
+        }
+        List<Tuple> matches = collect(new IndexScan(table, schema, byId.lookup(7)));
+        if (matches.size() != 10 || matches.stream().anyMatch(t -> t.getInt(0) != 7)) {
+            throw new IllegalStateException("IndexScan through hash index returned " + matches);
+        }
+
+        System.out.println("Hash Index PASSED");
+    }
+
+    // Same mixing as ExtendibleHashIndex.hash, to build keys that land in one bucket
+    private static int indexHash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static void testStatistics() throws Exception {
+        System.out.println("\n=== Statistics Test ===");
+
+        Path dbFile = Path.of("stats_test.db");
+        Path catalogFile = Path.of("stats_test.catalog");
+        Files.deleteIfExists(dbFile);
+        Files.deleteIfExists(catalogFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(16, diskManager);
+        Catalog catalog = new Catalog(bufferPool, catalogFile);
+
+        Schema orderSchema = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("customer", ColumnType.INT),
+                new Column("price", ColumnType.DOUBLE),
+                new Column("note", ColumnType.VARCHAR));
+        TableInfo orders = catalog.createTable("orders", orderSchema, 0);
+        catalog.createIndex("orders", 0, 200_000);
+        catalog.createIndex("orders", 1, 300_000);
+
+        Random random = new Random(7);
+        int rows = 10_000;
+        for (int i = 0; i < rows; i++) {
+            Double price = i % 10 == 0 ? null : random.nextDouble() * 1000;
+            orders.insert(new Tuple(orderSchema, i, random.nextInt(50), price, "note" + (i % 300)));
+        }
+
+        // ANALYZE over a third of the pages
+        int pages = orders.getHeap().getLastPageId() - orders.getHeap().getFirstPageId() + 1;
+        TableStatistics stats = catalog.analyze("orders", new Analyzer(pages / 3, 32, new Random(1)));
+        System.out.println(stats);
+
+        checkEstimate("rows", stats.getRowCount(), rows, 0.1);
+        checkEstimate("distinct ids", stats.getColumn(0).getDistinctCount(), rows, 0.15);
+        checkEstimate("distinct customers", stats.getColumn(1).getDistinctCount(), 50, 0.1);
+        checkEstimate("distinct notes", stats.getColumn(3).getDistinctCount(), 300, 0.15);
+        checkEstimate("price null fraction", stats.getColumn(2).getNullFraction(), 0.1, 0.35);
+        checkEstimate("price <= 100", CostEstimator.rangeSelectivity(stats, 2, 0, 100), 0.09, 0.25);
+        if (stats.getColumn(3).getHistogram() != null) {
+            throw new IllegalStateException("VARCHAR columns have no histogram");
+        }
+
+        // A point lookup on the unique id uses the index, one on 50 customers does not
+        CostEstimator.ScanPlan byId = CostEstimator.chooseScan(stats, CostEstimator.equalsSelectivity(stats, 0), true);
+        CostEstimator.ScanPlan byCustomer = CostEstimator.chooseScan(stats, CostEstimator.equalsSelectivity(stats, 1), true);
+        System.out.println("id = ? -> " + byId + ", customer = ? -> " + byCustomer);
+        if (byId.path() != CostEstimator.AccessPath.INDEX_SCAN
+                || byCustomer.path() != CostEstimator.AccessPath.SEQUENTIAL_SCAN) {
+            throw new IllegalStateException("Wrong access paths");
+        }
+
+        // Rows added after the last DDL still grow the saved page range
+        for (int i = rows; i < rows + 2_000; i++) {
+            orders.insert(new Tuple(orderSchema, i, i % 50, 1.0, "late" + i));
+        }
+
+        // Page ranges cannot overlap, and a table stops at the next extent
+        TableInfo tiny = catalog.createTable("tiny", orderSchema, 150_000);
+        List<Timed> clashes = List.of(
+                () -> catalog.createTable("clash", orderSchema, 5),
+                () -> catalog.createIndex("tiny", 1, 150_000),
+                () -> catalog.createIndex("tiny", 1, 200_001),
+                () -> catalog.createIndex("tiny", 1, 199_999));
+        for (Timed clash : clashes) {
+            try {
+                clash.run();
+                throw new IllegalStateException("Overlapping pages accepted");
+            } catch (IllegalArgumentException e) {
+                if (!e.getMessage().contains("overlap")) {
+                    throw e;
+                }
+                System.out.println("Rejected: " + e.getMessage());
+            }
+        }
+        catalog.createIndex("tiny", 0, 150_002);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                tiny.insert(new Tuple(orderSchema, i, i, 1.0, "x".repeat(100)));
+            }
+            throw new IllegalStateException("Table grew into the next extent");
+        } catch (IllegalStateException e) {
+            if (tiny.getHeap().getLastPageId() != 150_001) {
+                throw e;
+            }
+            System.out.println("Rejected: " + e.getMessage());
+        }
+
+        // Statistics and indexes survive reopening the catalog
+        bufferPool.flushAll();
+        Catalog reopened = new Catalog(new BufferPool(16, diskManager), catalogFile);
+        TableInfo loaded = reopened.getTable("orders");
+        ColumnStatistics customers = loaded.getStatistics().getColumn(1);
+        if (customers.getDistinctCount() != stats.getColumn(1).getDistinctCount()
+                || loaded.getIndex(0).find(1234).size() != 1
+                || loaded.getHeap().getLastPageId() != orders.getHeap().getLastPageId()) {
+            throw new IllegalStateException("Catalog did not survive reopening");
+        }
+
+        // orders(10000) joins customers(50) joins regions(5): the small dimension tables go first
+        TableStatistics customerStats = fakeStatistics(50, new long[]{50, 5});
+        TableStatistics regionStats = fakeStatistics(5, new long[]{5});
+        CostEstimator.JoinOrder order = CostEstimator.chooseJoinOrder(
+                List.of(new CostEstimator.JoinInput("orders", stats, 1),
+                        new CostEstimator.JoinInput("customers", customerStats, 1),
+                        new CostEstimator.JoinInput("regions", regionStats, 1)),
+                List.of(new CostEstimator.JoinCondition(0, 1, 1, 0),
+                        new CostEstimator.JoinCondition(1, 1, 2, 0)));
+        System.out.println("join order " + order);
+        if (order.order().get(2) != 0) {
+            throw new IllegalStateException("orders should be joined last: " + order);
+        }
+
+        System.out.println("Statistics PASSED");
+    }
+
+    private static TableStatistics fakeStatistics(long rows, long[] distinct) {
+        ColumnStatistics[] columns = new ColumnStatistics[distinct.length];
+        for (int i = 0; i < distinct.length; i++) {
+            columns[i] = new ColumnStatistics(0, distinct[i], new HyperLogLog(), null);
+        }
+        return new TableStatistics(rows, 1, 16, columns);
+    }
+
+    private static void checkEstimate(String what, double estimate, double actual, double tolerance) {
+        System.out.printf("%s: estimated %.3f, actual %.3f%n", what, estimate, actual);
+        if (Math.abs(estimate - actual) > actual * tolerance) {
+            throw new IllegalStateException(what + " estimate " + estimate + " is more than "
+                    + (int) (tolerance * 100) + "% off " + actual);
+        }
+    }
+
+    private static void testZoneMap() throws Exception {
+        System.out.println("\n=== Zone Map Test ===");
+
+        Path dbFile = Path.of("zonemap_test.db");
+        Files.deleteIfExists(dbFile);
+
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(16, diskManager);
+
+        // Time series: timestamps arrive in order, so each page covers a narrow time range
+        Schema schema = new Schema(
+                new Column("ts", ColumnType.LONG),
+                new Column("sensor", ColumnType.INT),
+                new Column("reading", ColumnType.DOUBLE));
+        TableHeap table = new TableHeap(bufferPool, 0);
+
+        int half = 5_000;
+        for (int i = 0; i < half; i++) {
+            table.insert(new Tuple(schema, 1_000_000L + i * 10, i % 8, Math.sin(i)).toBytes());
+        }
+        // built from the rows so far, maintained by the inserts below
+        table.enableZoneMap(schema, 0, 2);
+        for (int i = half; i < 2 * half; i++) {
+            table.insert(new Tuple(schema, 1_000_000L + i * 10, i % 8, Math.sin(i)).toBytes());
+        }
+        int pages = table.getLastPageId() - table.getFirstPageId() + 1;
+
+        long lo = 1_000_000L + 7_000 * 10;
+        long hi = lo + 500;
+        SequentialScan scan = table.scanRange(0, lo, hi);
+        int matched = 0;
+        byte[] record;
+        while ((record = scan.next()) != null) {
+            long ts = Tuple.fromBytes(schema, record).getLong(0);
+            if (ts >= lo && ts <= hi) {
+                matched++;
+            }
+        }
+        scan.close();
+        System.out.println("pages=" + pages + " skipped=" + scan.getPagesSkipped() + " matched=" + matched);
+        if (matched != 51 || scan.getPagesSkipped() < pages * 0.9) {
+            throw new IllegalStateException("Expected 51 rows with over 90% of pages skipped");
+        }
+
+        // Moving a row out of its page's range widens the zone instead of hiding the row
+        RecordId moved = new RecordId(table.getFirstPageId(), (short) 3);
+        table.update(moved, new Tuple(schema, 42L, 3, 0.5).toBytes());
+        Filter old = new Filter(new TableScan(table, schema, null, table.getZoneMap().pagesMatching(0, 0, 100)),
+                t -> t.getLong(0) <= 100);
+        List<Tuple> found = collect(old);
+        if (found.size() != 1 || !found.get(0).getRecordId().equals(moved)) {
+            throw new IllegalStateException("Updated row not found through the zone map: " + found);
+        }
+
+        // No page holds readings above 1
+        SequentialScan none = table.scanRange(2, 1.5, 10);
+        if (none.next() != null || none.getPagesSkipped() != pages) {
+            throw new IllegalStateException("Out of range scan should skip every page");
+        }
+        none.close();
+
+        System.out.println("Zone Map PASSED");
+    }
+
+    private static void benchCompression() throws Exception {
+        System.out.println("\n=== Page Compression ===");
+
+        // Order lines: repetitive status strings and small ids, which is what cold tables look like
+        Schema schema = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("customer", ColumnType.INT),
+                new Column("status", ColumnType.VARCHAR),
+                new Column("amount", ColumnType.DOUBLE));
+        String[] statuses = {"PENDING", "SHIPPED", "DELIVERED", "RETURNED"};
+        int rows = 100_000;
+
+        String[] names = {"none", "lz4", "deflate"};
+        PageCodec[] codecs = {null, new Lz4Codec(), new DeflateCodec()};
+        long expected = -1;
+        for (int c = 0; c < codecs.length; c++) {
+            Path dbFile = Path.of("compress_" + names[c] + ".db");
+            Path mapFile = Path.of(dbFile + ".map");
+            Files.deleteIfExists(dbFile);
+            Files.deleteIfExists(mapFile);
+
+            // Load in memory, then write every page out once through the codec
+            DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE, codecs[c]);
+            BufferPool bufferPool = new BufferPool(4096, diskManager);
+            TableHeap table = new TableHeap(bufferPool, 0);
+            long loadTime = time(() -> {
+                for (int i = 0; i < rows; i++) {
+                    table.insert(new Tuple(schema, i, i % 500, statuses[i % 4], (i % 10_000) / 100.0).toBytes());
+                }
+                bufferPool.flushAll();
+            });
+            int lastPageId = table.getLastPageId();
+            long stored = diskManager.getStoredBytes();
+            diskManager.close();
+
+            // Reopen cold, reading the slot map back from disk
+            DiskManager reopened = new DiskManager(dbFile.toString(), Page.PAGE_SIZE, codecs[c]);
+            TableHeap cold = new TableHeap(new BufferPool(16, reopened), 0, lastPageId);
+            long[] checksum = new long[1];
+            long scanTime = time(() -> checksum[0] = checksum(cold.scan(), schema));
+            if (expected >= 0 && checksum[0] != expected) {
+                throw new IllegalStateException(names[c] + " read back different rows");
+            }
+            expected = checksum[0];
+
+            System.out.printf("%-8s | %4d pages | %8d bytes on disk (%.2fx) | load %d ms | cold scan %d ms%n",
+                    names[c], lastPageId + 1, stored, (double) (lastPageId + 1) * Page.PAGE_SIZE / stored,
+                    loadTime / 1_000_000, scanTime / 1_000_000);
+
+            if (codecs[c] != null) {
+                // Rows that compress worse make pages outgrow their slots and move
+                BufferPool pool = new BufferPool(16, reopened);
+                TableHeap heap = new TableHeap(pool, 0, lastPageId);
+                Random random = new Random(7);
+                for (int pageId = 0; pageId <= lastPageId; pageId += 3) {
+                    RecordId rid = new RecordId(pageId, (short) 0);
+                    Tuple row = Tuple.fromBytes(schema, heap.read(rid));
+                    String noise = Long.toHexString(random.nextLong());
+                    heap.update(rid, new Tuple(schema, row.getInt(0), row.getInt(1), noise.substring(0, 7),
+                            row.getDouble(3)).toBytes());
+                }
+                pool.flushAll();
+                reopened.close();
+
+                DiskManager again = new DiskManager(dbFile.toString(), Page.PAGE_SIZE, codecs[c]);
+                long rewritten = checksum(new TableHeap(new BufferPool(16, again), 0, lastPageId).scan(), schema);
+                if (rewritten == expected) {
+                    throw new IllegalStateException(names[c] + " lost the rewritten pages");
+                }
+                again.close();
+            } else {
+                reopened.close();
+            }
+        }
+
+        // CPU per page, against the disk read it replaces
+        byte[] page = new byte[Page.PAGE_SIZE];
+        try (RandomAccessFile file = new RandomAccessFile("compress_none.db", "r")) {
+            file.seek(10L * Page.PAGE_SIZE);
+            file.readFully(page);
+        }
+        byte[] out = new byte[Page.PAGE_SIZE];
+        byte[] back = new byte[Page.PAGE_SIZE];
+        int iterations = 20_000;
+        for (int c = 1; c < codecs.length; c++) {
+            PageCodec codec = codecs[c];
+            for (int round = 0; round < 3; round++) {
+                int[] length = new int[1];
+                long compressTime = time(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        length[0] = codec.compress(page, out);
+                    }
+                });
+                long decompressTime = time(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        codec.decompress(out, length[0], back);
+                    }
+                });
+                if (!Arrays.equals(page, back)) {
+                    throw new IllegalStateException(names[c] + " round trip failed");
+                }
+                System.out.printf("%-8s round %d | %4d -> %4d bytes | compress %.2f us/page | decompress %.2f us/page%n",
+                        names[c], round, Page.PAGE_SIZE, length[0],
+                        compressTime / 1_000.0 / iterations, decompressTime / 1_000.0 / iterations);
+            }
+        }
+
+        System.out.println("Page Compression PASSED");
+    }
+
+    private static void testMetrics() throws Exception {
+        System.out.println("\n=== Buffer Pool and Disk Metrics ===");
+
+        Path dbFile = Path.of("metrics_test.db");
+        Files.deleteIfExists(dbFile);
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(8, diskManager);
+        ObjectName poolName = Jmx.register("BufferPool", "metrics_test", bufferPool.getMetrics());
+        ObjectName diskName = Jmx.register("DiskManager", "metrics_test", diskManager.getMetrics());
+
+        Recording recording = new Recording();
+        recording.enable(PageIoEvent.class);
+        recording.enable(PageEvictEvent.class);
+        recording.enable(PinnedStallEvent.class);
+        recording.start();
+
+        // 16 new pages through 8 frames: the second half evicts the first half dirty
+        for (int pageId = 0; pageId < 16; pageId++) {
+            Page page = bufferPool.fetchPage(pageId);
+            page.initEmpty(pageId, PageType.DATA);
+            page.insertRecord(("page " + pageId).getBytes(StandardCharsets.UTF_8));
+            bufferPool.unpinPage(pageId, true);
+        }
+        // Reading the first half back evicts the second half dirty, then the reverse evicts clean
+        for (int pageId = 0; pageId < 16; pageId++) {
+            bufferPool.fetchPage(pageId);
+            bufferPool.unpinPage(pageId, false);
+        }
+        for (int pageId = 8; pageId < 16; pageId++) {
+            bufferPool.fetchPage(pageId);
+            bufferPool.unpinPage(pageId, false);
+        }
+        // With 7 of 8 frames pinned, eviction passes over all 7 before taking page 15's frame
+        for (int pageId = 8; pageId < 15; pageId++) {
+            bufferPool.fetchPage(pageId);
+        }
+        bufferPool.fetchPage(0);
+        bufferPool.unpinPage(0, false);
+        for (int pageId = 8; pageId < 15; pageId++) {
+            bufferPool.unpinPage(pageId, false);
+        }
+        diskManager.sync();
+
+        recording.stop();
+        Path recordingFile = Files.createTempFile("metrics_test", ".jfr");
+        recording.dump(recordingFile);
+        recording.close();
+
+        BufferPoolMetrics pool = bufferPool.getMetrics();
+        DiskMetrics disk = diskManager.getMetrics();
+        System.out.println("pool: " + pool);
+        System.out.println("disk: " + disk);
+        if (pool.getHits() != 15 || pool.getMisses() != 33 || pool.getDirtyEvictions() != 16
+                || pool.getCleanEvictions() != 9 || pool.getPinnedStalls() != 7 || pool.getResidentPages() != 8) {
+            throw new IllegalStateException("Unexpected buffer pool counters: " + pool);
+        }
+        if (disk.getPageReads() != 17 || disk.getPageWrites() != 32 || disk.getFsyncs() != 1
+                || disk.getBytesRead() != 17L * Page.PAGE_SIZE || disk.getReadLatency().getCount() != 17
+                || disk.getReadLatencyP99Nanos() <= 0 || disk.getReadLatencyP99Nanos() > disk.getReadLatencyMaxNanos()) {
+            throw new IllegalStateException("Unexpected disk counters: " + disk);
+        }
+
+        // The same numbers through JMX
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (!Long.valueOf(15).equals(server.getAttribute(poolName, "Hits"))
+                || !Long.valueOf(1).equals(server.getAttribute(diskName, "Fsyncs"))) {
+            throw new IllegalStateException("JMX attributes disagree with the counters");
+        }
+        Jmx.unregister(poolName);
+        Jmx.unregister(diskName);
+
+        Map<String, Integer> events = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            events.merge(event.getEventType().getName(), 1, Integer::sum);
+        }
+        Files.deleteIfExists(recordingFile);
+        System.out.println("JFR events: " + events);
+        if (events.getOrDefault("sqleminh.PageIo", 0) != 17 + 32 + 1
+                || events.getOrDefault("sqleminh.PageEvict", 0) != 25
+                || events.getOrDefault("sqleminh.PinnedStall", 0) != 1) {
+            throw new IllegalStateException("Unexpected JFR events " + events);
+        }
+
+        System.out.println("Buffer Pool and Disk Metrics PASSED");
+    }
+
+    private static void testPackedIds() throws Exception {
+        System.out.println("\n=== Packed Page Table and RecordIds ===");
+
+        RecordId[] samples = {new RecordId(0, (short) 0), new RecordId(123_456, (short) 77),
+                new RecordId(Integer.MAX_VALUE, Short.MAX_VALUE), new RecordId(5, (short) -1)};
+        for (RecordId rid : samples) {
+            long packed = rid.toLong();
+            if (!RecordId.fromLong(packed).equals(rid) || packed >>> 48 != 0
+                    || RecordId.pageIdOf(packed) != rid.getPageId() || RecordId.slotIdOf(packed) != rid.getSlotId()) {
+                throw new IllegalStateException("Packing does not round trip " + rid);
+            }
+        }
+        if (new RecordId(9, (short) 4).hashCode() != new RecordId(9, (short) 4).hashCode()) {
+            throw new IllegalStateException("Equal RecordIds hash differently");
+        }
+
+        Path dbFile = Path.of("packed_test.db");
+        Files.deleteIfExists(dbFile);
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+
+        // Index entries come back packed, without a RecordId per entry
+        BufferPool indexPool = new BufferPool(16, diskManager);
+        ExtendibleHashIndex index = new ExtendibleHashIndex(indexPool, 1_000);
+        for (int i = 0; i < 600; i++) {
+            index.insert(i % 3, RecordId.pack(i, (short) i));
+        }
+        long[] packed = index.findPacked(1);
+        List<RecordId> found = index.find(1);
+        if (packed.length != 200 || found.size() != 200 || !RecordId.fromLong(packed[0]).equals(found.get(0))
+                || !index.delete(1, RecordId.pack(4, (short) 4)) || index.findPacked(1).length != 199) {
+            throw new IllegalStateException("Packed index lookups disagree with find");
+        }
+        indexPool.flushAll();
+
+        // Eviction churn through a small pool keeps every page's contents
+        BufferPool small = new BufferPool(8, diskManager);
+        for (int pageId = 0; pageId < 64; pageId++) {
+            Page page = small.fetchPage(pageId);
+            page.initEmpty(pageId, PageType.DATA);
+            page.insertRecord(("page " + pageId).getBytes(StandardCharsets.UTF_8));
+            small.unpinPage(pageId, true);
+        }
+        for (int pageId = 63; pageId >= 0; pageId--) {
+            Page page = small.fetchPage(pageId);
+            String text = new String(page.readRecord(0), StandardCharsets.UTF_8);
+            small.unpinPage(pageId, false);
+            if (!text.equals("page " + pageId) || small.getPageTable().size() > 8) {
+                throw new IllegalStateException("Page " + pageId + " read back as " + text);
+            }
+        }
+
+        // Hits on a warm pool allocate nothing, even for page ids past the Integer cache
+        BufferPool warm = new BufferPool(64, diskManager);
+        int hits = 2_000_000;
+        Timed hitLoop = () -> {
+            for (int i = 0; i < hits; i++) {
+                int pageId = 5_000 + (i & 63);
+                warm.fetchPage(pageId);
+                warm.unpinPage(pageId, false);
+            }
+        };
+        hitLoop.run();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long hitTime = time(hitLoop);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        System.out.printf("fetch+unpin hit: %.1f ns, %d bytes allocated over %d hits%n",
+                (double) hitTime / hits, allocated, hits);
+        if (allocated > 4096) {
+            throw new IllegalStateException("Buffer pool hits allocated " + allocated + " bytes");
+        }
+
+        System.out.println("Packed Page Table and RecordIds PASSED");
+    }
+
+    private static void benchSecondTier() throws Exception {
+        System.out.println("\n=== Compressed Second-Tier Cache ===");
+
+        Schema schema = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("customer", ColumnType.INT),
+                new Column("status", ColumnType.VARCHAR),
+                new Column("amount", ColumnType.DOUBLE));
+        String[] statuses = {"PENDING", "SHIPPED", "DELIVERED", "RETURNED"};
+        int rows = 100_000;
+        int workingSet = 400;
+        int reads = 200_000;
+
+        // Same RAM for the last two: 320 frames, or 64 frames plus 256 frames' worth of compressed pages
+        String[] names = {"pool 64", "pool 320", "pool 64 + 1 MB lz4"};
+        int[] frames = {64, 320, 64};
+        long[] budgets = {0, 0, 256L * Page.PAGE_SIZE};
+        // Read-only, then one update per 20 reads: dirty evictions have to be compressed again
+        int[] updateEvery = {0, 20};
+        for (int workload : updateEvery) {
+            System.out.println(workload == 0 ? "read only:" : "one update per " + workload + " reads:");
+            long expected = -1;
+            for (int c = 0; c < names.length; c++) {
+                Path dbFile = Path.of("second_tier_" + c + ".db");
+                Files.deleteIfExists(dbFile);
+
+                DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+                BufferPool loader = new BufferPool(4096, diskManager);
+                TableHeap load = new TableHeap(loader, 0);
+                for (int i = 0; i < rows; i++) {
+                    load.insert(new Tuple(schema, i, i % 500, statuses[i % 4], (i % 10_000) / 100.0).toBytes());
+                }
+                loader.flushAll();
+                int lastPageId = load.getLastPageId();
+
+                CompressedPageCache cache = budgets[c] == 0 ? null : new CompressedPageCache(budgets[c], Page.PAGE_SIZE);
+                BufferPool bufferPool = new BufferPool(frames[c], diskManager, cache);
+                TableHeap table = new TableHeap(bufferPool, 0, lastPageId);
+
+                // Point reads over a working set bigger than the pool
+                Random random = new Random(11);
+                long[] times = new long[3];
+                for (int round = 0; round < times.length; round++) {
+                    times[round] = time(() -> {
+                        for (int i = 0; i < reads; i++) {
+                            RecordId rid = new RecordId(random.nextInt(workingSet), (short) random.nextInt(40));
+                            Tuple row = Tuple.fromBytes(schema, table.read(rid));
+                            if (workload > 0 && i % workload == 0) {
+                                table.update(rid, new Tuple(schema, row.getInt(0), row.getInt(1) + 1,
+                                        row.getString(2), row.getDouble(3)).toBytes());
+                            }
+                        }
+                    });
+                }
+                bufferPool.flushAll();
+
+                long sum = checksumCustomers(table.scan(), schema);
+                if (expected >= 0 && sum != expected) {
+                    throw new IllegalStateException(names[c] + " lost updates");
+                }
+                expected = sum;
+
+                System.out.printf("  %-20s | %d reads in %d / %d / %d ms", names[c], reads,
+                        times[0] / 1_000_000, times[1] / 1_000_000, times[2] / 1_000_000);
+                if (cache != null) {
+                    System.out.printf(" | tier hits %d, disk reads %d | %d pages in %d KB",
+                            cache.getHits(), cache.getMisses(), cache.getPageCount(), cache.getStoredBytes() / 1024);
+                }
+                System.out.println();
+                diskManager.close();
+            }
+        }
+
+        System.out.println("Compressed Second-Tier Cache PASSED");
+    }
+
+    private static long checksumCustomers(SequentialScan scan, Schema schema) throws IOException {
+        long sum = 0;
+        byte[] record;
+        while ((record = scan.next()) != null) {
+            sum += Tuple.fromBytes(schema, record).getInt(1);
+        }
+        scan.close();
+        return sum;
+    }
+
+    private static long checksum(SequentialScan scan, Schema schema) throws IOException {
+        long sum = 0;
+        byte[] record;
+        while ((record = scan.next()) != null) {
+            Tuple row = Tuple.fromBytes(schema, record);
+            sum = sum * 31 + row.getInt(0) + row.getString(2).hashCode();
+        }
+        scan.close();
+        return sum;
+    }
+
+    private static void testSql() throws Exception {
+        System.out.println("\n=== SQL Front End ===");
+
+        Path dbFile = Path.of("sql_test.db");
+        Files.deleteIfExists(dbFile);
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(1024, diskManager);
+        Catalog catalog = new Catalog(bufferPool);
+
+        Schema schema = new Schema(
+                new Column("id", ColumnType.INT),
+                new Column("name", ColumnType.VARCHAR),
+                new Column("age", ColumnType.INT),
+                new Column("score", ColumnType.DOUBLE));
+        TableInfo users = catalog.createTable("users", schema, 0);
+        catalog.createIndex("users", 0, 500_000);
+        QueryEngine engine = new QueryEngine(catalog);
+
+        // One prepared INSERT, rows with a NULL score every 10th
+        int rows = 2000;
+        PreparedStatement insert = engine.prepare("INSERT INTO users (id, name, age, score) VALUES (?, ?, ?, ?)");
+        for (int i = 0; i < rows; i++) {
+            insert.update(i, "user" + i, 18 + i % 50, i % 10 == 0 ? null : i * 0.5);
+        }
+        engine.update("insert into users values (-1, 'O''Brien', 99, 1.5), (-2, NULL, 99, -2.25)");
+
+        // Point lookup goes through the index
+        PreparedStatement byId = engine.prepare("SELECT name, score FROM users WHERE id = ?");
+        System.out.println(byId);
+        List<Tuple> found = byId.queryAll(1234);
+        if (!byId.explain().startsWith("IndexScan(users.id)") || found.size() != 1
+                || !found.get(0).getString(0).equals("user1234") || found.get(0).getDouble(1) != 617.0) {
+            throw new IllegalStateException("Point lookup returned " + found);
+        }
+        if (!engine.query("SELECT * FROM users WHERE id = -1").get(0).getString(1).equals("O'Brien")
+                || !engine.query("SELECT * FROM users WHERE id = ?", (Object) null).isEmpty()) {
+            throw new IllegalStateException("Literal or NULL lookup wrong");
+        }
+
+        // Range, ORDER BY and LIMIT, checked against the same query done by hand
+        List<Tuple> top = engine.query(
+                "SELECT id, age FROM users WHERE age >= ? AND age < 40 AND score IS NOT NULL ORDER BY age DESC, id LIMIT 5", 30);
+        List<int[]> expected = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            int age = 18 + i % 50;
+            if (age >= 30 && age < 40 && i % 10 != 0) {
+                expected.add(new int[] {i, age});
+            }
+        }
+        expected.sort(Comparator.<int[]>comparingInt(r -> -r[1]).thenComparingInt(r -> r[0]));
+        for (int i = 0; i < 5; i++) {
+            if (top.get(i).getInt(0) != expected.get(i)[0] || top.get(i).getInt(1) != expected.get(i)[1]) {
+                throw new IllegalStateException("ORDER BY returned " + top);
+            }
+        }
+        System.out.println("Top 5: " + top);
+        int nullScores = engine.query("SELECT id FROM users WHERE score IS NULL").size();
+        if (top.size() != 5 || nullScores != rows / 10) {
+            throw new IllegalStateException("Expected 5 rows and " + rows / 10 + " null scores, got " + nullScores);
+        }
+
+        // UPDATE moves the index entry of a changed key, DELETE removes rows and entries
+        int updated = engine.update("UPDATE users SET id = ?, name = 'moved' WHERE id = ?", 100_000, 7);
+        if (updated != 1 || !engine.query("SELECT * FROM users WHERE id = 7").isEmpty()
+                || !engine.query("SELECT name FROM users WHERE id = 100000").get(0).getString(0).equals("moved")) {
+            throw new IllegalStateException("UPDATE did not move the row");
+        }
+        int deleted = engine.update("DELETE FROM users WHERE age = 99");
+        int left = engine.query("SELECT id FROM users").size();
+        if (deleted != 2 || left != rows || users.getIndex(0).find(-1).size() != 0) {
+            throw new IllegalStateException("DELETE removed " + deleted + ", left " + left);
+        }
+
+        // Shared statements from several threads: rows deleted, reinserted and updated under each other
+        PreparedStatement deleteHot = engine.prepare("DELETE FROM users WHERE id = ?");
+        PreparedStatement insertHot = engine.prepare("INSERT INTO users VALUES (?, 'hot', 1, 0.0)");
+        PreparedStatement updateHot = engine.prepare("UPDATE users SET id = ?, age = 2 WHERE id = ?");
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            Thread writer = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    for (int i = 0; i < 2_000; i++) {
+                        int id = -100 - random.nextInt(20);
+                        switch (random.nextInt(3)) {
+                            case 0 -> deleteHot.update(id);
+                            case 1 -> insertHot.update(id);
+                            default -> updateHot.update(-100 - random.nextInt(20), id);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Concurrent statement failed", failures.get(0));
+        }
+        for (int id = -119; id <= -100; id++) {
+            int inHeap = 0;
+            for (Tuple row : engine.query("SELECT id FROM users WHERE age <= 2")) {
+                inHeap += row.getInt(0) == id ? 1 : 0;
+            }
+            if (users.getIndex(0).find(id).size() != inHeap) {
+                throw new IllegalStateException("Index and heap disagree on id " + id);
+            }
+        }
+        engine.update("DELETE FROM users WHERE age <= 2");
+
+        // Layout and keyword case do not matter to the cache
+        PreparedStatement again = engine.prepare("select name, score\n  from users\n where id=?;");
+        if (again != byId) {
+            throw new IllegalStateException("Normalized statement was planned again");
+        }
+
+        // Errors name the problem
+        for (String bad : List.of(
+                "SELECT * FROM missing",
+                "SELECT nope FROM users",
+                "SELECT * FROM users WHERE age = 'old'",
+                "SELECT * FROM users WHERE",
+                "INSERT INTO users (id, id) VALUES (1, 2)",
+                "UPDATE users SET age = 1.5",
+                "DROP TABLE users",
+                "SELECT * FROM users WHERE name = 'open")) {
+            try {
+                engine.prepare(bad);
+                throw new IllegalStateException("Accepted: " + bad);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Rejected: " + e.getMessage());
+            }
+        }
+        try {
+            byId.queryAll("1234");
+            throw new IllegalStateException("Accepted a string for an INT parameter");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Rejected: " + e.getMessage());
+        }
+
+        // The hot path: same statement, new parameter, cached versus planned every time
+        QueryEngine uncached = new QueryEngine(catalog, 0);
+        String lookup = "SELECT name FROM users WHERE id = ?";
+        int lookups = 200_000;
+        for (int round = 0; round < 3; round++) {
+            long cachedNanos = time(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    engine.query(lookup, i % rows);
+                }
+            });
+            long plannedNanos = time(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    uncached.query(lookup, i % rows);
+                }
+            });
+            System.out.printf("%d lookups: cached %d ms, parsed and planned each time %d ms%n",
+                    lookups, cachedNanos / 1_000_000, plannedNanos / 1_000_000);
+        }
+        System.out.println("Cache: " + engine.getCache().size() + " statements, "
+                + engine.getCache().getHits() + " hits, " + engine.getCache().getMisses() + " misses");
+        if (uncached.getCache().size() != 0) {
+            throw new IllegalStateException("A zero capacity cache kept statements");
+        }
+
+        bufferPool.flushAll();
+        System.out.println("SQL Front End PASSED");
+    }
+
+    private static void benchServer() throws Exception {
+        System.out.println("\n=== Server Load Test ===");
+
+        Path dbFile = Path.of("server_test.db");
+        Files.deleteIfExists(dbFile);
+        DiskManager diskManager = new DiskManager(dbFile.toString(), Page.PAGE_SIZE);
+        BufferPool bufferPool = new BufferPool(2048, diskManager);
+        Catalog catalog = new Catalog(bufferPool);
+
+        Schema schema = new Schema(new Column("id", ColumnType.INT), new Column("payload", ColumnType.VARCHAR));
+        TableInfo kv = catalog.createTable("kv", schema, 0);
+        catalog.createIndex("kv", 0, 500_000);
+
+        try (Server server = new Server(catalog, 0).start()) {
+            System.out.println("Port " + server.getPort() + ", virtual threads: " + server.usesVirtualThreads());
+
+            // Bad requests answer ERROR and leave the connection usable
+            try (Client client = new Client(server.getPort())) {
+                client.ping();
+                expectServerError(() -> client.open("missing"));
+                int tableId = client.open("kv");
+                expectServerError(() -> client.read(tableId, RecordId.pack(999_999, (short) 0)));
+                expectServerError(() -> client.read(tableId + 1, 0));
+                expectServerError(() -> client.insert(tableId, new byte[] {0, 1}));
+
+                long rid = client.insert(tableId, new Tuple(schema, -1, "probe").toBytes());
+                Tuple probe = Tuple.fromBytes(schema, client.read(tableId, rid));
+                if (probe.getInt(0) != -1 || !client.delete(tableId, rid) || client.read(tableId, rid) != null) {
+                    throw new IllegalStateException("Insert, read, delete round trip failed");
+                }
+                if (kv.getIndex(0).find(-1).size() != 0) {
+                    throw new IllegalStateException("Delete over the server left an index entry");
+                }
+
+                // A record moved by an update is only addressable through its home slot
+                List<Long> filler = new ArrayList<>();
+                for (int i = 0; i < 15; i++) {
+                    filler.add(client.insert(tableId, new Tuple(schema, -2, "x".repeat(200)).toBytes()));
+                }
+                RecordId home = RecordId.fromLong(filler.get(0));
+                kv.getHeap().update(home, new Tuple(schema, -2, "y".repeat(1500)).toBytes());
+                long moved = RecordId.pack(kv.getHeap().getLastPageId(), (short) 0);
+                if (kv.getHeap().getLastPageId() == home.getPageId() || kv.getHeap().isAddressable(RecordId.fromLong(moved))) {
+                    throw new IllegalStateException("Update did not relocate the record");
+                }
+                expectServerError(() -> client.delete(tableId, moved));
+                for (long filled : filler) {
+                    if (!client.delete(tableId, filled)) {
+                        throw new IllegalStateException("Could not delete " + RecordId.fromLong(filled));
+                    }
+                }
+                if (client.scan(tableId, Integer.MAX_VALUE).size() != 0) {
+                    throw new IllegalStateException("Deleting through the home slot left the moved record");
+                }
+            }
+
+            LoadGenerator generator = new LoadGenerator(server.getPort(), "kv",
+                    n -> new Tuple(schema, (int) n, "payload-" + n).toBytes());
+            long inserted = 0;
+            for (int connections : new int[] {1, 4, 16}) {
+                for (int depth : new int[] {1, 16}) {
+                    // warm up, then measure
+                    inserted += generator.run(connections, depth, 500, 0.2).getInserts();
+                    LoadGenerator.Result result = generator.run(connections, depth, 32_000 / connections, 0.2);
+                    inserted += result.getInserts();
+                    System.out.printf("%2d connections, depth %2d: %s%n", connections, depth, result);
+                }
+            }
+
+            // Every acknowledged insert is in the table and its index
+            try (Client client = new Client(server.getPort())) {
+                int rows = client.scan(client.open("kv"), Integer.MAX_VALUE).size();
+                System.out.println("Rows: " + rows + ", expected " + inserted);
+                if (rows != inserted) {
+                    throw new IllegalStateException("Row count does not match acknowledged inserts");
+                }
+            }
+            if (kv.getIndex(0).find(7).isEmpty()) {
+                throw new IllegalStateException("Inserted key missing from the index");
+            }
+        }
+        bufferPool.flushAll();
+    }
+
+    private interface ServerCall {
+        void run() throws IOException;
+    }
+
+    private static void expectServerError(ServerCall call) {
+        try {
+            call.run();
+        } catch (IOException e) {
+            System.out.println("Rejected: " + e.getMessage());
+            return;
+        }
+        throw new IllegalStateException("Server accepted a bad request");
+    }
+
+    private static void checkBalances(MvccTable table, Schema schema, Transaction tx,
+                                      long expectedTotal, int expectedRows) throws IOException {
+        List<Tuple> rows = collect(new TableScan(table.getHeap(), schema, table.visibility(tx)));
+        long total = 0;
+        for (Tuple row : rows) {
+            total += row.getLong(1);
+        }
+        if (rows.size() != expectedRows || total != expectedTotal) {
+            throw new IllegalStateException("Transaction " + tx.getId() + " expected " + expectedRows
+                    + " rows totalling " + expectedTotal + ", saw " + rows);
+        }
+    }
+
+    private static void expectConflict(MvccTable table, Transaction tx, RecordId rid, Schema schema) throws IOException {
+        try {
+            table.update(tx, rid, new Tuple(schema, -1, -1L).toBytes());
+        } catch (WriteConflictException e) {
+            return;
+        }
+        throw new IllegalStateException("Expected a write conflict on " + rid);
+    }
+
+    private static List<Tuple> collect(Operator operator) throws IOException {
+        List<Tuple> tuples = new ArrayList<>();
+        operator.open();
+        Tuple tuple;
+        while ((tuple = operator.next()) != null) {
+            tuples.add(tuple);
+        }
+        operator.close();
+        return tuples;
+    }
+
+    private static Tuple runSingle(Operator operator) throws IOException {
+        operator.open();
+        Tuple tuple = operator.next();
+        operator.close();
+        return tuple;
+    }
+
+    private interface Timed {
+        void run() throws Exception;
+    }
+
+    private static long time(Timed body) throws Exception {
+        long start = System.nanoTime();
+        body.run();
+        return System.nanoTime() - start;
+    }
+
+    private static class KernelBench {
+        static final int SIZE = 1 << 20;
+
+        static long filterAndSum(Kernels kernels, int[] values, int[] selection) {
+            long sum = 0;
+            for (int repeat = 0; repeat < 10; repeat++) {
+                sum += kernels.selectIntRange(values, values.length, 50, Integer.MAX_VALUE, false, selection);
+                sum += kernels.sumInt(values, values.length);
+            }
+            return sum;
+        }
+    }
+
+    private static int drain(Operator operator) throws IOException {
+        Tuple[] batch = new Tuple[Operator.DEFAULT_BATCH_SIZE];
+        int count = 0;
+        int n;
+
+        operator.open();
+        while ((n = operator.nextBatch(batch)) > 0) {
+            count += n;
+        }
+        operator.close();
+
+        return count;
+    }
+
     private static void printRecord(Page page, int slot) {
         byte[] data = page.readRecord(slot);
         if (data == null) {
@@ -1,56 +1,105 @@
 package sql.buffer;
 
+import sql.metrics.BufferPoolMetrics;
+import sql.metrics.PinnedStallEvent;
 import sql.page.Page;
 import sql.page.PageType;
 import sql.storage.DiskManager;
+import sql.util.LongIntHashMap;
 
 import java.io.IOException;
 import java.util.*;
 
+/**
+ * Methods are synchronized so several scans can share the pool from different threads.
+ * Page contents are not latched: concurrent readers are fine, writers need outside coordination.
+ * <p>
+ * With a {@link CompressedPageCache}, evicted pages are kept there after any write-back
+ * and misses look there before reading from disk. Dirtying a page drops its cached copy.
+ * <p>
+ * Hits, timed misses, evictions and pinned-frame stalls are counted in {@link BufferPoolMetrics},
+ * which can be registered with JMX through {@link sql.metrics.Jmx}.
+ */
 public class BufferPool {
     private final int maxFrames;
     private final DiskManager diskManager;
+    private final CompressedPageCache secondTier;
+    private final BufferPoolMetrics metrics;
 
-    // Mapping pageId - frame
-    private final Map<Integer, Frame> pageTable;
+    private static final int NO_FRAME = -1;
 
-    // FIFO queue of pageIds;
-    private final Queue<Integer> fifoQueue;
+    // Mapping pageId - index into frames, primitive so lookups do not box or allocate
+    private final LongIntHashMap pageTable;
+    private final Frame[] frames;
+    private final int[] framePageIds;
+    private final int[] freeFrames;
+    private int freeCount;
+
+    // FIFO queue of frame indexes, as a ring
+    private final int[] fifoQueue;
+    private int fifoHead;
+    private int fifoSize;
 
     public BufferPool(int maxFrames, DiskManager diskManager) {
+        this(maxFrames, diskManager, null);
+    }
+
+    public BufferPool(int maxFrames, DiskManager diskManager, CompressedPageCache secondTier) {
         this.maxFrames = maxFrames;
         this.diskManager = diskManager;
-        this.pageTable = new HashMap<>();
-        this.fifoQueue = new LinkedList<>();
+        this.secondTier = secondTier;
+        this.pageTable = new LongIntHashMap(maxFrames);
+        this.frames = new Frame[maxFrames];
+        this.framePageIds = new int[maxFrames];
+        this.freeFrames = new int[maxFrames];
+        this.fifoQueue = new int[maxFrames];
+
+        // hand out low indexes first
+        for (int i = 0; i < maxFrames; i++) {
+            freeFrames[i] = maxFrames - 1 - i;
+        }
+        this.freeCount = maxFrames;
+        this.metrics = new BufferPoolMetrics(maxFrames, () -> maxFrames - freeCount);
+    }
+
+    public BufferPoolMetrics getMetrics() {
+        return metrics;
     }
 
     // get Page from this Buffer Pool
-    public Page fetchPage(int pageId) throws IOException {
-        if (pageTable.containsKey(pageId)) {
-            Frame frame = pageTable.get(pageId);
+    public synchronized Page fetchPage(int pageId) throws IOException {
+        int index = pageTable.get(pageId, NO_FRAME);
+        if (index != NO_FRAME) {
+            Frame frame = frames[index];
             frame.pin();
+            metrics.recordHit();
             return frame.getPage();
         }
 
-        if (pageTable.size() >= maxFrames) {
-            evictPage();
-        }
-
-        Page page;
-
-        if (diskManager.pageExists(pageId)) {
-            page = diskManager.getPage(pageId);
-        } else {
-            page = new Page(pageId, PageType.DATA);
-            diskManager.writePage(pageId, page.getData());
+        long start = System.nanoTime();
+        // one buffer per miss, the evicted frame's when the pool is full; every path overwrites all of it
+        byte[] data = freeCount == 0 ? evictPage() : new byte[Page.PAGE_SIZE];
+
+        Page page = new Page(data);
+        boolean cached = secondTier != null && secondTier.get(pageId, data);
+        if (!cached && diskManager.pageExists(pageId)) {
+            diskManager.readPage(pageId, data);
+        } else if (!cached) {
+            Arrays.fill(data, (byte) 0);
+            page.initEmpty(pageId, PageType.DATA);
+            diskManager.writePage(pageId, data);
         }
 
         Frame frame = new Frame(page);
         frame.pin();
 
-        pageTable.put(pageId, frame);
-        fifoQueue.add(pageId);
+        index = freeFrames[--freeCount];
+        frames[index] = frame;
+        framePageIds[index] = pageId;
+        pageTable.put(pageId, index, NO_FRAME);
+        enqueue(index);
 
+        metrics.recordMiss(System.nanoTime() - start);
         return page;
     }
 
@@ -58,22 +107,25 @@ public class BufferPool {
      * Unpin a page.
      * If dirty, mark it so it will be flushed later.
      */
-    public void unpinPage(int pageId, boolean isDirty) throws IOException {
-        Frame frame = pageTable.get(pageId);
+    public synchronized void unpinPage(int pageId, boolean isDirty) throws IOException {
+        Frame frame = frameOf(pageId);
         if (frame == null) {
             throw new IllegalArgumentException("Page not found in buffer pool: " + pageId);
         }
 
         if (isDirty) {
             frame.markDirty();
+            if (secondTier != null) {
+                secondTier.invalidate(pageId);
+            }
         }
 
         frame.unpin();
     }
 
     // Write a page back to disk if dirty
-    public void flushPage(int pageId) throws IOException {
-        Frame frame = pageTable.get(pageId);
+    public synchronized void flushPage(int pageId) throws IOException {
+        Frame frame = frameOf(pageId);
         if (frame == null) {
             return;
         }
@@ -86,39 +138,83 @@ public class BufferPool {
     }
 
     // Flush all dirty pages.
-    public void flushAll() throws IOException {
-        for (int pageId : pageTable.keySet()) {
-            flushPage(pageId);
+    public synchronized void flushAll() throws IOException {
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i] != null) {
+                flushPage(framePageIds[i]);
+            }
         }
     }
 
-    // Evict page out of queue
-    private void evictPage() throws IOException {
+    private Frame frameOf(int pageId) {
+        int index = pageTable.get(pageId, NO_FRAME);
+        return index == NO_FRAME ? null : frames[index];
+    }
+
+    private void enqueue(int index) {
+        fifoQueue[(fifoHead + fifoSize++) % fifoQueue.length] = index;
+    }
+
+    private int dequeue() {
+        int index = fifoQueue[fifoHead];
+        fifoHead = (fifoHead + 1) % fifoQueue.length;
+        fifoSize--;
+        return index;
+    }
 
-        int attempts = fifoQueue.size();
+    // Evict page out of queue, returning the freed frame's buffer for the page replacing it
+    private synchronized byte[] evictPage() throws IOException {
+
+        PinnedStallEvent stall = new PinnedStallEvent();
+        stall.begin();
+        int attempts = fifoSize;
+        int skipped = 0;
 
         while (attempts-- > 0) {
-            int pageId = fifoQueue.poll();
-            Frame victim = pageTable.get(pageId);
+            int index = dequeue();
+            int pageId = framePageIds[index];
+            Frame victim = frames[index];
             if (victim.isPinned()) {
-                fifoQueue.add(pageId);
+                enqueue(index);
+                skipped++;
                 continue;
             }
+            metrics.recordPinnedStalls(stall, skipped);
+            metrics.recordEviction(pageId, victim.isDirty());
 
             if (victim.isDirty()) {
                 Page page = victim.getPage();
                 diskManager.writePage(pageId, page.getData());
             }
+            if (secondTier != null && !secondTier.contains(pageId)) {
+                secondTier.put(pageId, victim.getPage().getData());
+            }
 
-            pageTable.remove(pageId);
-            return;
+            pageTable.remove(pageId, NO_FRAME);
+            frames[index] = null;
+            freeFrames[freeCount++] = index;
+            return victim.getPage().getData();
         }
 
         // If we reach here, all pages are pinned
+        metrics.recordPinnedStalls(stall, skipped);
         throw new IllegalStateException("All pages are pinned - No unpinned pages available for eviction");
     }
 
-    public Map<Integer, Frame> getPageTable() {
-        return pageTable;
+    public CompressedPageCache getSecondTier() {
+        return secondTier;
+    }
+
+    /**
+     * Snapshot of the resident pages by pageId, for tests and debugging.
+     */
+    public synchronized Map<Integer, Frame> getPageTable() {
+        Map<Integer, Frame> snapshot = new HashMap<>();
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i] != null) {
+                snapshot.put(framePageIds[i], frames[i]);
+            }
+        }
+        return snapshot;
     }
 }
@@ -0,0 +1,175 @@
+package sql.buffer;
+
+import sql.storage.Lz4Codec;
+import sql.storage.PageCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Second-tier cache for pages the BufferPool evicts. Pages are compressed into an
+ * off-heap ring of budgetBytes, so the same memory holds several times as many pages
+ * as the pool itself.
+ * <p>
+ * Pages are written at the head of the ring. When the head wraps around it overwrites
+ * the oldest pages, so eviction is FIFO like the pool's. A page read back into the pool
+ * stays cached until the pool dirties it, so evicting it again unchanged costs nothing.
+ */
+public class CompressedPageCache {
+    private static final int ALIGNMENT = 8;
+
+    private final ByteBuffer arena;
+    private final int capacity;
+    private final PageCodec codec;
+    private final byte[] compressed;
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    // Every slot in ring order, oldest first; invalidated entries linger until overwritten
+    private final ArrayDeque<Entry> ring = new ArrayDeque<>();
+    private int head;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long storedBytes;
+
+    private record Entry(int pageId, int offset, int length, boolean raw) {
+    }
+
+    public CompressedPageCache(long budgetBytes, int pageSize) {
+        this(budgetBytes, pageSize, new Lz4Codec());
+    }
+
+    public CompressedPageCache(long budgetBytes, int pageSize, PageCodec codec) {
+        if (budgetBytes < pageSize || budgetBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cache budget must be between one page and 2 GB: " + budgetBytes);
+        }
+        this.capacity = (int) budgetBytes;
+        this.arena = ByteBuffer.allocateDirect(capacity);
+        this.codec = codec;
+        this.compressed = new byte[pageSize];
+    }
+
+    /**
+     * Store a clean copy of a page, replacing any older copy.
+     */
+    public synchronized void put(int pageId, byte[] data) {
+        drop(pageId);
+
+        int length = codec.compress(data, compressed);
+        boolean raw = length < 0;
+        if (raw) {
+            length = data.length;
+        }
+
+        int offset = allocate(align(length));
+        arena.put(offset, raw ? data : compressed, 0, length);
+
+        Entry entry = new Entry(pageId, offset, length, raw);
+        entries.put(pageId, entry);
+        ring.add(entry);
+        storedBytes += length;
+    }
+
+    public synchronized boolean contains(int pageId) {
+        return entries.containsKey(pageId);
+    }
+
+    /**
+     * Copy a cached page into data. Returns false if it is not cached.
+     */
+    public synchronized boolean get(int pageId, byte[] data) throws IOException {
+        Entry entry = entries.get(pageId);
+        if (entry == null) {
+            misses++;
+            return false;
+        }
+
+        if (entry.raw()) {
+            arena.get(entry.offset(), data, 0, entry.length());
+        } else {
+            arena.get(entry.offset(), compressed, 0, entry.length());
+            codec.decompress(compressed, entry.length(), data);
+        }
+        hits++;
+        return true;
+    }
+
+    /**
+     * Forget a page whose cached copy is out of date.
+     */
+    public synchronized void invalidate(int pageId) {
+        drop(pageId);
+    }
+
+    private void drop(int pageId) {
+        Entry entry = entries.remove(pageId);
+        if (entry != null) {
+            storedBytes -= entry.length();
+        }
+    }
+
+    // Claim size bytes at the head, overwriting the oldest slots in the way
+    private int allocate(int size) {
+        if (head + size > capacity) {
+            // the tail end of the ring is too short; everything still there is from the last lap
+            while (!ring.isEmpty() && ring.peek().offset() >= head) {
+                evict(ring.poll());
+            }
+            head = 0;
+        }
+        while (!ring.isEmpty() && overlaps(ring.peek(), head, size)) {
+            evict(ring.poll());
+        }
+
+        int offset = head;
+        head += size;
+        return offset;
+    }
+
+    private static boolean overlaps(Entry entry, int offset, int size) {
+        return entry.offset() < offset + size && offset < entry.offset() + align(entry.length());
+    }
+
+    private void evict(Entry entry) {
+        // the slot may belong to a page that was already invalidated or replaced
+        if (entries.get(entry.pageId()) == entry) {
+            drop(entry.pageId());
+            evictions++;
+        }
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    public synchronized int getPageCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Compressed bytes held for live pages.
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    public long getBudgetBytes() {
+        return capacity;
+    }
+}
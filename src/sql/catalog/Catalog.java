@@ -0,0 +1,298 @@
+package sql.catalog;
+
+import sql.buffer.BufferPool;
+import sql.index.ExtendibleHashIndex;
+import sql.record.Column;
+import sql.record.ColumnType;
+import sql.record.RecordId;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.statistics.Analyzer;
+import sql.statistics.TableStatistics;
+import sql.table.SequentialScan;
+import sql.table.TableHeap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tables by name with their schemas, page ranges, indexes and statistics.
+ *
+ * With a file, the catalog is loaded on open and written back by save(), which
+ * DDL, ANALYZE and every table growing by a page call. The file is replaced
+ * atomically, so a crash keeps the old one.
+ *
+ * Tables and indexes each own the pages from their first page up to the first page
+ * of the next one, and cannot grow past that. Creating one whose first page is
+ * already in use, or with no room before the next one, is rejected.
+ */
+public class Catalog {
+    private static final int MAGIC = 0x53514C43;
+    private static final int VERSION = 1;
+
+    private final BufferPool bufferPool;
+    private final Path file;
+    private final Map<String, TableInfo> tables = Collections.synchronizedMap(new LinkedHashMap<>());
+    // Serializes writes of the file. Heaps save when they grow, holding their latch, so
+    // saving must not wait for the catalog monitor, which DDL holds while scanning a heap.
+    private final Object fileLock = new Object();
+    private final TableHeap.GrowthListener saveOnGrowth = heap -> save();
+
+    // Pages a table and an index use as soon as they are created
+    private static final int TABLE_INITIAL_PAGES = 1;
+    private static final int INDEX_INITIAL_PAGES = 2;
+
+    // Pages in use by one table or index, from start to last
+    private record Extent(String owner, int start, int last) {
+    }
+
+    // In-memory catalog, nothing is persisted
+    public Catalog(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.file = null;
+    }
+
+    public Catalog(BufferPool bufferPool, Path file) throws IOException {
+        this.bufferPool = bufferPool;
+        this.file = file;
+        if (Files.exists(file)) {
+            load();
+            assignPageLimits();
+        }
+    }
+
+    public synchronized TableInfo createTable(String name, Schema schema, int firstPageId) throws IOException {
+        if (tables.containsKey(name)) {
+            throw new IllegalArgumentException("Table already exists: " + name);
+        }
+        checkFreePages("table " + name, firstPageId, TABLE_INITIAL_PAGES);
+        TableInfo table = new TableInfo(name, schema, new TableHeap(bufferPool, firstPageId));
+        table.getHeap().setGrowthListener(saveOnGrowth);
+        tables.put(name, table);
+        assignPageLimits();
+        save();
+        return table;
+    }
+
+    public synchronized boolean hasTable(String name) {
+        return tables.containsKey(name);
+    }
+
+    public synchronized TableInfo getTable(String name) {
+        TableInfo table = tables.get(name);
+        if (table == null) {
+            throw new IllegalArgumentException("Unknown table: " + name);
+        }
+        return table;
+    }
+
+    public Collection<TableInfo> getTables() {
+        synchronized (tables) {
+            return Collections.unmodifiableCollection(new ArrayList<>(tables.values()));
+        }
+    }
+
+    /**
+     * Build a hash index over an INT or LONG column from the rows already in the table.
+     */
+    public synchronized ExtendibleHashIndex createIndex(String tableName, int column, int rootPageId)
+            throws IOException {
+        TableInfo table = getTable(tableName);
+        if (!TableInfo.isIndexable(table.getSchema().getType(column))) {
+            throw new IllegalArgumentException("Hash indexes need an INT or LONG column, got "
+                    + table.getSchema().getColumn(column));
+        }
+        if (table.getIndex(column) != null) {
+            throw new IllegalArgumentException("Column " + column + " of " + tableName + " is already indexed");
+        }
+
+        checkFreePages("index on " + tableName + "." + table.getSchema().getColumn(column).getName(),
+                rootPageId, INDEX_INITIAL_PAGES);
+        ExtendibleHashIndex index = new ExtendibleHashIndex(bufferPool, rootPageId);
+        // limit the new index before filling it, it must not grow into the next extent
+        int next = nextExtentStart(rootPageId);
+        if (next != Integer.MAX_VALUE) {
+            index.setPageLimit(next - 1);
+        }
+        SequentialScan scan = table.getHeap().scan();
+        byte[] record;
+        while ((record = scan.next()) != null) {
+            Tuple tuple = Tuple.fromBytes(table.getSchema(), record);
+            if (!tuple.isNull(column)) {
+                RecordId rid = scan.getLastRecordId();
+                index.insert(tuple.getLong(column), rid);
+            }
+        }
+        scan.close();
+
+        table.addIndex(column, rootPageId, index);
+        assignPageLimits();
+        save();
+        return index;
+    }
+
+    private List<Extent> extents() {
+        List<Extent> extents = new ArrayList<>();
+        for (TableInfo table : getTables()) {
+            TableHeap heap = table.getHeap();
+            extents.add(new Extent("table " + table.getName(), heap.getFirstPageId(), heap.getLastPageId()));
+            for (Map.Entry<Integer, Integer> entry : table.getIndexRootPages().entrySet()) {
+                ExtendibleHashIndex index = table.getIndex(entry.getKey());
+                extents.add(new Extent("index on " + table.getName(), entry.getValue(), index.getLastPageId()));
+            }
+        }
+        return extents;
+    }
+
+    // pages first .. first + count - 1 must be unused and before the next extent
+    private void checkFreePages(String owner, int firstPageId, int count) {
+        if (firstPageId < 0) {
+            throw new IllegalArgumentException("Negative first page for " + owner + ": " + firstPageId);
+        }
+        for (Extent extent : extents()) {
+            if (firstPageId <= extent.last() && firstPageId + count - 1 >= extent.start()) {
+                throw new IllegalArgumentException("Pages of " + owner + " from " + firstPageId
+                        + " overlap " + extent.owner() + " on pages " + extent.start() + ".." + extent.last());
+            }
+        }
+    }
+
+    private int nextExtentStart(int pageId) {
+        int next = Integer.MAX_VALUE;
+        for (Extent extent : extents()) {
+            if (extent.start() > pageId) {
+                next = Math.min(next, extent.start());
+            }
+        }
+        return next;
+    }
+
+    // Every table and index may grow up to the page before the next extent
+    private void assignPageLimits() {
+        for (TableInfo table : getTables()) {
+            TableHeap heap = table.getHeap();
+            heap.setPageLimit(nextExtentStart(heap.getFirstPageId()) - 1);
+            for (Map.Entry<Integer, Integer> entry : table.getIndexRootPages().entrySet()) {
+                table.getIndex(entry.getKey()).setPageLimit(nextExtentStart(entry.getValue()) - 1);
+            }
+        }
+    }
+
+    public TableStatistics analyze(String tableName) throws IOException {
+        return analyze(tableName, new Analyzer());
+    }
+
+    // ANALYZE: sample the table and keep the statistics in the catalog
+    public TableStatistics analyze(String tableName, Analyzer analyzer) throws IOException {
+        TableInfo table = getTable(tableName);
+        TableStatistics statistics = analyzer.analyze(table.getHeap(), table.getSchema());
+        synchronized (this) {
+            table.setStatistics(statistics);
+            save();
+        }
+        return statistics;
+    }
+
+    /**
+     * Write the catalog file.
+     */
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+
+        synchronized (fileLock) {
+            Collection<TableInfo> current = getTables();
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(current.size());
+                for (TableInfo table : current) {
+                    writeTable(out, table);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private static void writeTable(DataOutputStream out, TableInfo table) throws IOException {
+        out.writeUTF(table.getName());
+        out.writeInt(table.getHeap().getFirstPageId());
+        out.writeInt(table.getHeap().getLastPageId());
+
+        Schema schema = table.getSchema();
+        out.writeInt(schema.getColumnCount());
+        for (Column column : schema.getColumns()) {
+            out.writeUTF(column.getName());
+            out.writeByte(column.getType().code);
+        }
+
+        out.writeInt(table.getIndexRootPages().size());
+        for (Map.Entry<Integer, Integer> index : table.getIndexRootPages().entrySet()) {
+            out.writeInt(index.getKey());
+            out.writeInt(index.getValue());
+        }
+
+        TableStatistics statistics = table.getStatistics();
+        out.writeBoolean(statistics != null);
+        if (statistics != null) {
+            statistics.write(out);
+        }
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a catalog file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalog version " + version + " in " + file);
+            }
+
+            int tableCount = in.readInt();
+            for (int t = 0; t < tableCount; t++) {
+                TableInfo table = readTable(in);
+                tables.put(table.getName(), table);
+            }
+        }
+    }
+
+    private TableInfo readTable(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        int firstPageId = in.readInt();
+        int lastPageId = in.readInt();
+
+        List<Column> columns = new ArrayList<>();
+        int columnCount = in.readInt();
+        for (int c = 0; c < columnCount; c++) {
+            columns.add(new Column(in.readUTF(), ColumnType.from(in.readByte())));
+        }
+
+        TableInfo table = new TableInfo(name, new Schema(columns), new TableHeap(bufferPool, firstPageId, lastPageId));
+        table.getHeap().setGrowthListener(saveOnGrowth);
+
+        int indexCount = in.readInt();
+        for (int i = 0; i < indexCount; i++) {
+            int column = in.readInt();
+            int rootPageId = in.readInt();
+            table.addIndex(column, rootPageId, new ExtendibleHashIndex(bufferPool, rootPageId));
+        }
+
+        if (in.readBoolean()) {
+            table.setStatistics(TableStatistics.read(in));
+        }
+        return table;
+    }
+}
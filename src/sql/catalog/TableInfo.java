@@ -0,0 +1,124 @@
+package sql.catalog;
+
+import sql.index.ExtendibleHashIndex;
+import sql.record.ColumnType;
+import sql.record.RecordId;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.statistics.TableStatistics;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A table registered in the catalog: schema, heap, hash indexes by column, and statistics.
+ */
+public class TableInfo {
+    private final String name;
+    private final Schema schema;
+    private final TableHeap heap;
+    // Read by catalog saves that a growing heap triggers from any thread
+    private final Map<Integer, ExtendibleHashIndex> indexes = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Integer> indexRootPages = new ConcurrentSkipListMap<>();
+    private volatile TableStatistics statistics;
+
+    TableInfo(String name, Schema schema, TableHeap heap) {
+        this.name = name;
+        this.schema = schema;
+        this.heap = heap;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public TableHeap getHeap() {
+        return heap;
+    }
+
+    // Index on the column, null if there is none
+    public ExtendibleHashIndex getIndex(int column) {
+        return indexes.get(column);
+    }
+
+    public Map<Integer, Integer> getIndexRootPages() {
+        return Collections.unmodifiableMap(indexRootPages);
+    }
+
+    // Statistics of the last ANALYZE, null if never analyzed
+    public TableStatistics getStatistics() {
+        return statistics;
+    }
+
+    void setStatistics(TableStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    void addIndex(int column, int rootPageId, ExtendibleHashIndex index) {
+        indexes.put(column, index);
+        indexRootPages.put(column, rootPageId);
+    }
+
+    /**
+     * Insert a tuple into the heap and every index of the table.
+     */
+    public RecordId insert(Tuple tuple) throws IOException {
+        RecordId rid = heap.insert(tuple.toBytes());
+        for (Map.Entry<Integer, ExtendibleHashIndex> entry : indexes.entrySet()) {
+            int column = entry.getKey();
+            if (!tuple.isNull(column)) {
+                entry.getValue().insert(tuple.getLong(column), rid);
+            }
+        }
+        return rid;
+    }
+
+    /**
+     * Delete a tuple, read beforehand, from the heap and its index entries.
+     */
+    public void delete(RecordId rid, Tuple tuple) throws IOException {
+        for (Map.Entry<Integer, ExtendibleHashIndex> entry : indexes.entrySet()) {
+            int column = entry.getKey();
+            if (!tuple.isNull(column)) {
+                entry.getValue().delete(tuple.getLong(column), rid);
+            }
+        }
+        heap.delete(rid);
+    }
+
+    /**
+     * Replace a tuple, read beforehand, and move its index entries where a key changed.
+     */
+    public void update(RecordId rid, Tuple oldTuple, Tuple newTuple) throws IOException {
+        heap.update(rid, newTuple.toBytes());
+        for (Map.Entry<Integer, ExtendibleHashIndex> entry : indexes.entrySet()) {
+            int column = entry.getKey();
+            if (Objects.equals(oldTuple.getValue(column), newTuple.getValue(column))) {
+                continue;
+            }
+            if (!oldTuple.isNull(column)) {
+                entry.getValue().delete(oldTuple.getLong(column), rid);
+            }
+            if (!newTuple.isNull(column)) {
+                entry.getValue().insert(newTuple.getLong(column), rid);
+            }
+        }
+    }
+
+    static boolean isIndexable(ColumnType type) {
+        return type == ColumnType.INT || type == ColumnType.LONG;
+    }
+
+    @Override
+    public String toString() {
+        return "TableInfo{" + name + " " + schema + '}';
+    }
+}
@@ -0,0 +1,55 @@
+package sql.execution;
+
+import sql.record.Column;
+import sql.record.ColumnType;
+import sql.record.Schema;
+
+/**
+ * An aggregate over one input column. COUNT with column -1 is COUNT(*).
+ */
+public class Aggregate {
+    public static final int ALL_COLUMNS = -1;
+
+    private final AggregateFunction function;
+    private final int column;
+
+    public Aggregate(AggregateFunction function, int column) {
+        if (column == ALL_COLUMNS && function != AggregateFunction.COUNT) {
+            throw new IllegalArgumentException(function + " needs an input column");
+        }
+        this.function = function;
+        this.column = column;
+    }
+
+    public static Aggregate countAll() {
+        return new Aggregate(AggregateFunction.COUNT, ALL_COLUMNS);
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    // Output column of this aggregate given the input schema
+    public Column outputColumn(Schema input) {
+        String argument = column == ALL_COLUMNS ? "*" : input.getColumn(column).getName();
+        String name = function.name().toLowerCase() + "(" + argument + ")";
+        return new Column(name, outputType(input));
+    }
+
+    public ColumnType outputType(Schema input) {
+        switch (function) {
+            case COUNT:
+                return ColumnType.LONG;
+            case AVG:
+                return ColumnType.DOUBLE;
+            case SUM:
+                return input.getType(column) == ColumnType.DOUBLE ? ColumnType.DOUBLE : ColumnType.LONG;
+            default:
+                return input.getType(column);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package sql.execution;
+
+public enum AggregateFunction {
+    COUNT,
+    SUM,
+    MIN,
+    MAX,
+    AVG
+}
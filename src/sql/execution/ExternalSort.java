@@ -0,0 +1,204 @@
+package sql.execution;
+
+import sql.page.Page;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.storage.SpillFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * ORDER BY within a fixed memory budget.
+ *
+ * Input is collected until the budget is reached, sorted and written to a spill file
+ * as a sorted run. The runs, plus the last one still in memory, are merged with a
+ * loser tree. If there are more runs than the budget can hold one page each for,
+ * groups of runs are merged into longer runs first.
+ *
+ * With a limit that fits in memory the sort keeps only the best rows in a bounded
+ * heap instead (ORDER BY ... LIMIT n), reading the input once and never spilling.
+ */
+public class ExternalSort implements Operator {
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    public static final long NO_LIMIT = -1;
+    private static final int MAX_MERGE_FAN_IN = 256;
+    // Assumed heap size of a row when deciding whether a top-N heap fits the budget
+    private static final int TOP_N_ROW_ESTIMATE = 256;
+
+    private final Operator child;
+    private final Comparator<Tuple> comparator;
+    private final long memoryBudget;
+    private final long limit;
+    private final int mergeFanIn;
+
+    private LoserTree merger;
+    private long returned;
+    private int runsWritten;
+
+    public ExternalSort(Operator child, List<SortKey> keys) {
+        this(child, keys, DEFAULT_MEMORY_BUDGET, NO_LIMIT);
+    }
+
+    public ExternalSort(Operator child, List<SortKey> keys, long memoryBudget, long limit) {
+        this.child = child;
+        this.comparator = SortKey.comparator(keys);
+        this.memoryBudget = memoryBudget;
+        this.limit = limit;
+        // each run being merged holds one page in memory
+        this.mergeFanIn = (int) Math.max(2, Math.min(MAX_MERGE_FAN_IN, memoryBudget / (2 * Page.PAGE_SIZE)));
+    }
+
+    @Override
+    public void open() throws IOException {
+        returned = 0;
+        runsWritten = 0;
+
+        if (limit != NO_LIMIT && limit * TOP_N_ROW_ESTIMATE <= memoryBudget) {
+            merger = new LoserTree(new TupleSource[]{TupleSource.of(topN().iterator())}, comparator);
+        } else {
+            merger = sortRuns();
+        }
+    }
+
+    // Keep the limit smallest tuples in a heap whose top is the largest kept one
+    private List<Tuple> topN() throws IOException {
+        PriorityQueue<Tuple> heap = new PriorityQueue<>((int) Math.max(1, Math.min(limit, 1 << 16)) + 1,
+                comparator.reversed());
+
+        if (limit > 0) {
+            child.open();
+            Tuple tuple;
+            while ((tuple = child.next()) != null) {
+                if (heap.size() < limit) {
+                    heap.add(tuple);
+                } else if (comparator.compare(tuple, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(tuple);
+                }
+            }
+            child.close();
+        }
+
+        List<Tuple> sorted = new ArrayList<>(heap);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    private LoserTree sortRuns() throws IOException {
+        Schema schema = child.getSchema();
+        List<SpillFile> runs = new ArrayList<>();
+        List<Tuple> buffer = new ArrayList<>();
+        long memory = 0;
+
+        try {
+            child.open();
+            Tuple tuple;
+            while ((tuple = child.next()) != null) {
+                buffer.add(tuple);
+                memory += tuple.estimateSize() + 8;
+
+                if (memory > memoryBudget) {
+                    runs.add(writeRun(buffer));
+                    buffer.clear();
+                    memory = 0;
+                }
+            }
+            child.close();
+
+            // the last run stays in memory, so a sort that fits never touches disk
+            buffer.sort(comparator);
+
+            // leave room for the in-memory run in the final merge
+            while (runs.size() + 1 > mergeFanIn) {
+                runs = mergeRuns(runs, schema);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (SpillFile run : runs) {
+                run.close();
+            }
+            throw e;
+        }
+
+        TupleSource[] sources = new TupleSource[runs.size() + 1];
+        for (int i = 0; i < runs.size(); i++) {
+            sources[i] = TupleSource.of(runs.get(i), schema);
+        }
+        sources[runs.size()] = TupleSource.of(buffer.iterator());
+        return new LoserTree(sources, comparator);
+    }
+
+    private SpillFile writeRun(List<Tuple> buffer) throws IOException {
+        buffer.sort(comparator);
+
+        SpillFile run = new SpillFile("sort-run");
+        for (Tuple tuple : buffer) {
+            run.append(tuple.toBytes());
+        }
+        run.finish();
+        runsWritten++;
+        return run;
+    }
+
+    // One merge pass: every group of mergeFanIn runs becomes one longer run
+    private List<SpillFile> mergeRuns(List<SpillFile> runs, Schema schema) throws IOException {
+        List<SpillFile> merged = new ArrayList<>();
+
+        for (int start = 0; start < runs.size(); start += mergeFanIn) {
+            List<SpillFile> group = runs.subList(start, Math.min(runs.size(), start + mergeFanIn));
+            TupleSource[] sources = new TupleSource[group.size()];
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = TupleSource.of(group.get(i), schema);
+            }
+
+            LoserTree tree = new LoserTree(sources, comparator);
+            SpillFile run = new SpillFile("sort-run");
+            Tuple tuple;
+            while ((tuple = tree.next()) != null) {
+                run.append(tuple.toBytes());
+            }
+            run.finish();
+            runsWritten++;
+            // deletes the input runs
+            tree.close();
+
+            merged.add(run);
+        }
+
+        return merged;
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        if (limit != NO_LIMIT && returned >= limit) {
+            return null;
+        }
+
+        Tuple tuple = merger.next();
+        if (tuple != null) {
+            returned++;
+        }
+        return tuple;
+    }
+
+    // Runs written to disk since open(), including intermediate merge passes
+    public int getRunsWritten() {
+        return runsWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (merger != null) {
+            merger.close();
+            merger = null;
+        }
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+}
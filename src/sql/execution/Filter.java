@@ -0,0 +1,65 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+public class Filter implements Operator {
+    private final Operator child;
+    private final Predicate<Tuple> predicate;
+
+    public Filter(Operator child, Predicate<Tuple> predicate) {
+        this.child = child;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void open() throws IOException {
+        child.open();
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        Tuple tuple;
+        while ((tuple = child.next()) != null) {
+            if (predicate.test(tuple)) {
+                return tuple;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int nextBatch(Tuple[] batch) throws IOException {
+        while (true) {
+            int count = child.nextBatch(batch);
+            if (count == 0) {
+                return 0;
+            }
+
+            // keep matching tuples at the front of the batch
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (predicate.test(batch[i])) {
+                    batch[kept++] = batch[i];
+                }
+            }
+
+            if (kept > 0) {
+                return kept;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        child.close();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+}
@@ -0,0 +1,354 @@
+package sql.execution;
+
+import sql.execution.vector.ColumnBatch;
+import sql.execution.vector.ColumnVector;
+import sql.record.ColumnType;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GROUP BY state kept in flat primitive arrays.
+ *
+ * Group keys are packed into one long (a single INT/LONG column, or two INT columns)
+ * and mapped to a dense group index by an open addressing table. Each aggregate
+ * keeps a count array plus a long or double array indexed by group, so adding a
+ * row never allocates. Keys containing nulls use a separate table per null pattern.
+ *
+ * Tables built on different threads over the same input schema can be merged,
+ * so partial aggregation per thread is combined at the end.
+ */
+public class GroupTable {
+    private static final int NOT_FOUND = -1;
+
+    private final ColumnType[] keyTypes;
+    private final int[] groupBy;
+    private final AggregateFunction[] functions;
+    private final int[] aggregateColumns;
+    // input type of each aggregate column, null for COUNT(*)
+    private final ColumnType[] inputTypes;
+
+    // one table per null mask of the key columns
+    private final LongIntHashMap[] tables;
+
+    private int groupCount;
+    private long[] groupKeys;
+    private byte[] groupNullMasks;
+
+    private final long[][] counts;
+    private final long[][] longValues;
+    private final double[][] doubleValues;
+
+    public GroupTable(Schema input, int[] groupBy, List<Aggregate> aggregates) {
+        if (!supports(input, groupBy, aggregates)) {
+            throw new IllegalArgumentException("Group keys or aggregates are not primitive");
+        }
+
+        this.groupBy = groupBy.clone();
+        this.keyTypes = new ColumnType[groupBy.length];
+        for (int i = 0; i < groupBy.length; i++) {
+            keyTypes[i] = input.getType(groupBy[i]);
+        }
+
+        int aggregateCount = aggregates.size();
+        this.functions = new AggregateFunction[aggregateCount];
+        this.aggregateColumns = new int[aggregateCount];
+        this.inputTypes = new ColumnType[aggregateCount];
+        this.counts = new long[aggregateCount][];
+        this.longValues = new long[aggregateCount][];
+        this.doubleValues = new double[aggregateCount][];
+
+        int capacity = 16;
+        for (int a = 0; a < aggregateCount; a++) {
+            Aggregate aggregate = aggregates.get(a);
+            functions[a] = aggregate.getFunction();
+            aggregateColumns[a] = aggregate.getColumn();
+            inputTypes[a] = aggregate.getColumn() == Aggregate.ALL_COLUMNS ? null : input.getType(aggregate.getColumn());
+
+            counts[a] = new long[capacity];
+            if (functions[a] != AggregateFunction.COUNT) {
+                if (inputTypes[a] == ColumnType.DOUBLE) {
+                    doubleValues[a] = new double[capacity];
+                } else {
+                    longValues[a] = new long[capacity];
+                }
+            }
+        }
+
+        this.tables = new LongIntHashMap[1 << groupBy.length];
+        this.groupKeys = new long[capacity];
+        this.groupNullMasks = new byte[capacity];
+
+        // without GROUP BY there is always exactly one group, even for empty input
+        if (groupBy.length == 0) {
+            findOrAddGroup(0, 0);
+        }
+    }
+
+    /**
+     * Keys must pack into a long and MIN/MAX/SUM/AVG need numeric input.
+     */
+    public static boolean supports(Schema input, int[] groupBy, List<Aggregate> aggregates) {
+        if (groupBy.length > 2) {
+            return false;
+        }
+        for (int column : groupBy) {
+            ColumnType type = input.getType(column);
+            if (type != ColumnType.INT && (type != ColumnType.LONG || groupBy.length > 1)) {
+                return false;
+            }
+        }
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.getFunction() != AggregateFunction.COUNT
+                    && !input.getType(aggregate.getColumn()).isNumeric()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(Tuple tuple) {
+        long key = 0;
+        int nullMask = 0;
+        for (int i = 0; i < groupBy.length; i++) {
+            if (tuple.isNull(groupBy[i])) {
+                nullMask |= 1 << i;
+            } else {
+                key = packKey(key, i, tuple.getLong(groupBy[i]));
+            }
+        }
+        int group = findOrAddGroup(key, nullMask);
+
+        for (int a = 0; a < functions.length; a++) {
+            int column = aggregateColumns[a];
+            if (column == Aggregate.ALL_COLUMNS) {
+                counts[a][group]++;
+            } else if (!tuple.isNull(column)) {
+                // COUNT only needs the value to be non-null, it may be a VARCHAR
+                if (functions[a] == AggregateFunction.COUNT) {
+                    counts[a][group]++;
+                } else if (inputTypes[a] == ColumnType.DOUBLE) {
+                    addDouble(a, group, tuple.getDouble(column));
+                } else {
+                    addLong(a, group, tuple.getLong(column));
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the live rows of a batch. Column indexes refer to the batch schema.
+     */
+    public void add(ColumnBatch batch) {
+        int[] selection = batch.getSelection();
+        boolean selected = batch.isSelectionActive();
+        int live = batch.getSelectedCount();
+
+        for (int i = 0; i < live; i++) {
+            int row = selected ? selection[i] : i;
+
+            long key = 0;
+            int nullMask = 0;
+            for (int k = 0; k < groupBy.length; k++) {
+                ColumnVector vector = batch.getColumn(groupBy[k]);
+                if (vector.isNull(row)) {
+                    nullMask |= 1 << k;
+                } else {
+                    long value = keyTypes[k] == ColumnType.INT ? vector.getInts()[row] : vector.getLongs()[row];
+                    key = packKey(key, k, value);
+                }
+            }
+            int group = findOrAddGroup(key, nullMask);
+
+            for (int a = 0; a < functions.length; a++) {
+                int column = aggregateColumns[a];
+                if (column == Aggregate.ALL_COLUMNS) {
+                    counts[a][group]++;
+                    continue;
+                }
+
+                ColumnVector vector = batch.getColumn(column);
+                if (vector.isNull(row)) {
+                    continue;
+                }
+                switch (inputTypes[a]) {
+                    case INT -> addLong(a, group, vector.getInts()[row]);
+                    case LONG -> addLong(a, group, vector.getLongs()[row]);
+                    case DOUBLE -> addDouble(a, group, vector.getDoubles()[row]);
+                    default -> counts[a][group]++;
+                }
+            }
+        }
+    }
+
+    // Two INT keys share the long, first in the high half
+    private long packKey(long key, int position, long value) {
+        if (groupBy.length == 1) {
+            return value;
+        }
+        return position == 0 ? key | (value << 32) : key | (value & 0xFFFFFFFFL);
+    }
+
+    private int findOrAddGroup(long key, int nullMask) {
+        LongIntHashMap table = tables[nullMask];
+        if (table == null) {
+            table = tables[nullMask] = new LongIntHashMap();
+        }
+
+        int group = table.get(key, NOT_FOUND);
+        if (group != NOT_FOUND) {
+            return group;
+        }
+
+        group = groupCount++;
+        if (group == groupKeys.length) {
+            grow(group * 2);
+        }
+        groupKeys[group] = key;
+        groupNullMasks[group] = (byte) nullMask;
+        table.put(key, group, NOT_FOUND);
+        return group;
+    }
+
+    private void grow(int capacity) {
+        groupKeys = Arrays.copyOf(groupKeys, capacity);
+        groupNullMasks = Arrays.copyOf(groupNullMasks, capacity);
+
+        for (int a = 0; a < functions.length; a++) {
+            counts[a] = Arrays.copyOf(counts[a], capacity);
+            if (longValues[a] != null) {
+                longValues[a] = Arrays.copyOf(longValues[a], capacity);
+            }
+            if (doubleValues[a] != null) {
+                doubleValues[a] = Arrays.copyOf(doubleValues[a], capacity);
+            }
+        }
+    }
+
+    private void addLong(int a, int group, long value) {
+        long count = counts[a][group]++;
+        switch (functions[a]) {
+            case SUM, AVG -> longValues[a][group] += value;
+            case MIN -> longValues[a][group] = count == 0 ? value : Math.min(longValues[a][group], value);
+            case MAX -> longValues[a][group] = count == 0 ? value : Math.max(longValues[a][group], value);
+            default -> {
+            }
+        }
+    }
+
+    private void addDouble(int a, int group, double value) {
+        long count = counts[a][group]++;
+        switch (functions[a]) {
+            case SUM, AVG -> doubleValues[a][group] += value;
+            case MIN -> doubleValues[a][group] = count == 0 ? value : Math.min(doubleValues[a][group], value);
+            case MAX -> doubleValues[a][group] = count == 0 ? value : Math.max(doubleValues[a][group], value);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Fold another table built with the same schema, group columns and aggregates into this one.
+     */
+    public void merge(GroupTable other) {
+        for (int from = 0; from < other.groupCount; from++) {
+            int group = findOrAddGroup(other.groupKeys[from], other.groupNullMasks[from]);
+
+            for (int a = 0; a < functions.length; a++) {
+                long otherCount = other.counts[a][from];
+                if (otherCount == 0) {
+                    continue;
+                }
+                long count = counts[a][group];
+                counts[a][group] += otherCount;
+
+                if (longValues[a] != null) {
+                    long value = other.longValues[a][from];
+                    switch (functions[a]) {
+                        case SUM, AVG -> longValues[a][group] += value;
+                        case MIN -> longValues[a][group] = count == 0 ? value : Math.min(longValues[a][group], value);
+                        default -> longValues[a][group] = count == 0 ? value : Math.max(longValues[a][group], value);
+                    }
+                } else if (doubleValues[a] != null) {
+                    double value = other.doubleValues[a][from];
+                    switch (functions[a]) {
+                        case SUM, AVG -> doubleValues[a][group] += value;
+                        case MIN -> doubleValues[a][group] = count == 0 ? value : Math.min(doubleValues[a][group], value);
+                        default -> doubleValues[a][group] = count == 0 ? value : Math.max(doubleValues[a][group], value);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Group columns followed by aggregate results, in the given output schema.
+     */
+    public Tuple getGroup(int group, Schema output) {
+        Object[] values = new Object[groupBy.length + functions.length];
+
+        int nullMask = groupNullMasks[group];
+        long key = groupKeys[group];
+        for (int k = 0; k < groupBy.length; k++) {
+            if ((nullMask & (1 << k)) != 0) {
+                continue;
+            }
+            if (groupBy.length == 2) {
+                values[k] = k == 0 ? (int) (key >>> 32) : (int) key;
+            } else {
+                values[k] = keyTypes[k] == ColumnType.INT ? (Object) (int) key : (Object) key;
+            }
+        }
+
+        for (int a = 0; a < functions.length; a++) {
+            values[groupBy.length + a] = result(a, group, output.getType(groupBy.length + a));
+        }
+        return new Tuple(output, values);
+    }
+
+    private Object result(int a, int group, ColumnType outputType) {
+        long count = counts[a][group];
+        if (functions[a] == AggregateFunction.COUNT) {
+            return count;
+        }
+        if (count == 0) {
+            return null;
+        }
+        if (functions[a] == AggregateFunction.AVG) {
+            double sum = longValues[a] != null ? longValues[a][group] : doubleValues[a][group];
+            return sum / count;
+        }
+        switch (outputType) {
+            case INT:
+                return (int) longValues[a][group];
+            case LONG:
+                return longValues[a][group];
+            default:
+                return doubleValues[a][group];
+        }
+    }
+
+    // Approximate heap used by keys, hash tables and accumulators
+    public long memoryBytes() {
+        long bytes = (long) groupKeys.length * (Long.BYTES + 1);
+        for (LongIntHashMap table : tables) {
+            if (table != null) {
+                bytes += table.memoryBytes();
+            }
+        }
+        for (int a = 0; a < functions.length; a++) {
+            bytes += (long) counts[a].length * Long.BYTES;
+            if (longValues[a] != null || doubleValues[a] != null) {
+                bytes += (long) counts[a].length * Long.BYTES;
+            }
+        }
+        return bytes;
+    }
+}
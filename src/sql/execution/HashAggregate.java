@@ -0,0 +1,202 @@
+package sql.execution;
+
+import sql.record.Column;
+import sql.record.ColumnType;
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GROUP BY with aggregates. Consumes the whole child on open(), then returns
+ * one tuple per group: group columns followed by aggregate values.
+ *
+ * Integer group keys and numeric aggregates go through a {@link GroupTable};
+ * anything else (VARCHAR keys, MIN/MAX over strings) uses boxed keys in a map.
+ */
+public class HashAggregate implements Operator {
+    private final Operator child;
+    private final int[] groupBy;
+    private final List<Aggregate> aggregates;
+    private final Schema schema;
+
+    private GroupTable groupTable;
+    private int nextGroup;
+    private Iterator<Map.Entry<List<Object>, Accumulator[]>> groups;
+
+    public HashAggregate(Operator child, int[] groupBy, List<Aggregate> aggregates) {
+        this.child = child;
+        this.groupBy = groupBy;
+        this.aggregates = aggregates;
+
+        Schema input = child.getSchema();
+        List<Column> columns = new ArrayList<>(input.project(groupBy).getColumns());
+        for (Aggregate aggregate : aggregates) {
+            columns.add(aggregate.outputColumn(input));
+        }
+        this.schema = new Schema(columns);
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (GroupTable.supports(child.getSchema(), groupBy, aggregates)) {
+            openPrimitive();
+            return;
+        }
+
+        Map<List<Object>, Accumulator[]> table = new LinkedHashMap<>();
+
+        child.open();
+        Tuple[] batch = new Tuple[DEFAULT_BATCH_SIZE];
+        int count;
+        while ((count = child.nextBatch(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                Tuple tuple = batch[i];
+                Accumulator[] accumulators = table.computeIfAbsent(groupKey(tuple), key -> newAccumulators());
+                for (int a = 0; a < accumulators.length; a++) {
+                    accumulators[a].add(tuple);
+                }
+            }
+        }
+        child.close();
+
+        // Without GROUP BY an empty input still produces one row
+        if (table.isEmpty() && groupBy.length == 0) {
+            table.put(List.of(), newAccumulators());
+        }
+
+        groups = table.entrySet().iterator();
+    }
+
+    private void openPrimitive() throws IOException {
+        groupTable = new GroupTable(child.getSchema(), groupBy, aggregates);
+        nextGroup = 0;
+
+        child.open();
+        Tuple[] batch = new Tuple[DEFAULT_BATCH_SIZE];
+        int count;
+        while ((count = child.nextBatch(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                groupTable.add(batch[i]);
+            }
+        }
+        child.close();
+    }
+
+    private List<Object> groupKey(Tuple tuple) {
+        Object[] key = new Object[groupBy.length];
+        for (int i = 0; i < groupBy.length; i++) {
+            key[i] = tuple.getValue(groupBy[i]);
+        }
+        return Arrays.asList(key);
+    }
+
+    private Accumulator[] newAccumulators() {
+        Accumulator[] accumulators = new Accumulator[aggregates.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = new Accumulator(aggregates.get(i), child.getSchema());
+        }
+        return accumulators;
+    }
+
+    @Override
+    public Tuple next() {
+        if (groupTable != null) {
+            return nextGroup < groupTable.getGroupCount() ? groupTable.getGroup(nextGroup++, schema) : null;
+        }
+        if (!groups.hasNext()) {
+            return null;
+        }
+
+        Map.Entry<List<Object>, Accumulator[]> group = groups.next();
+        List<Object> key = group.getKey();
+        Accumulator[] accumulators = group.getValue();
+
+        Object[] values = new Object[key.size() + accumulators.length];
+        for (int i = 0; i < key.size(); i++) {
+            values[i] = key.get(i);
+        }
+        for (int i = 0; i < accumulators.length; i++) {
+            values[key.size() + i] = accumulators[i].result();
+        }
+        return new Tuple(schema, values);
+    }
+
+    @Override
+    public void close() {
+        groupTable = null;
+        groups = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+
+    // Running state of one aggregate for one group, nulls are ignored
+    private static class Accumulator {
+        private final AggregateFunction function;
+        private final int column;
+        private final ColumnType outputType;
+
+        private long count;
+        private long longSum;
+        private double doubleSum;
+        private Comparable<Object> extreme;
+
+        Accumulator(Aggregate aggregate, Schema input) {
+            this.function = aggregate.getFunction();
+            this.column = aggregate.getColumn();
+            this.outputType = aggregate.outputType(input);
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(Tuple tuple) {
+            if (column != Aggregate.ALL_COLUMNS && tuple.isNull(column)) {
+                return;
+            }
+            count++;
+
+            switch (function) {
+                case SUM, AVG -> {
+                    if (outputType == ColumnType.LONG) {
+                        longSum += tuple.getLong(column);
+                    } else {
+                        doubleSum += tuple.getDouble(column);
+                    }
+                }
+                case MIN, MAX -> {
+                    Comparable<Object> value = (Comparable<Object>) tuple.getValue(column);
+                    int cmp = extreme == null ? 0 : value.compareTo(extreme);
+                    if (extreme == null || (function == AggregateFunction.MIN ? cmp < 0 : cmp > 0)) {
+                        extreme = value;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        Object result() {
+            switch (function) {
+                case COUNT:
+                    return count;
+                case SUM:
+                    if (count == 0) {
+                        return null;
+                    }
+                    return outputType == ColumnType.LONG ? (Object) longSum : (Object) doubleSum;
+                case AVG:
+                    return count == 0 ? null : doubleSum / count;
+                default:
+                    return extreme;
+            }
+        }
+    }
+}
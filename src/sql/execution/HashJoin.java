@@ -0,0 +1,310 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.storage.SpillFile;
+import sql.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Equi-join that builds a hash table on the left input and probes it with the right.
+ * Output is left columns followed by right columns, null keys never match.
+ *
+ * Join keys are reduced to a long (the value for INT/LONG, a hash otherwise) and
+ * indexed in an open addressing table, rows with the same key are chained through
+ * an int array. If the build side does not fit the memory budget, both inputs are
+ * partitioned by key into spill files (grace hash join) and each partition pair is
+ * joined on its own, partitioning again with a new hash seed if still too large.
+ */
+public class HashJoin implements Operator {
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    private static final int PARTITION_COUNT = 16;
+    // After this many rounds a partition is joined in memory regardless, it is one hot key
+    private static final int MAX_PARTITION_LEVEL = 4;
+    private static final int NO_ROW = -1;
+
+    private final Operator left;
+    private final Operator right;
+    private final int leftKey;
+    private final int rightKey;
+    private final long memoryBudget;
+    private final Schema schema;
+
+    private Deque<Partition> pending;
+
+    // In-memory table of the partition being probed
+    private List<Tuple> buildRows;
+    private LongIntHashMap heads;
+    private int[] chain;
+
+    private TupleSource probe;
+    private Tuple probeTuple;
+    private int matchRow;
+
+    private int partitionsSpilled;
+
+    public HashJoin(Operator left, Operator right, int leftKey, int rightKey) {
+        this(left, right, leftKey, rightKey, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public HashJoin(Operator left, Operator right, int leftKey, int rightKey, long memoryBudget) {
+        this.left = left;
+        this.right = right;
+        this.leftKey = leftKey;
+        this.rightKey = rightKey;
+        this.memoryBudget = memoryBudget;
+        this.schema = Schema.concat(left.getSchema(), right.getSchema());
+    }
+
+    @Override
+    public void open() throws IOException {
+        pending = new ArrayDeque<>();
+        pending.add(new Partition(TupleSource.of(left), TupleSource.of(right), 0));
+        partitionsSpilled = 0;
+        clearTable();
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        while (true) {
+            if (probe != null) {
+                // rest of the chain for the current probe tuple
+                while (matchRow != NO_ROW) {
+                    Tuple buildTuple = buildRows.get(matchRow);
+                    matchRow = chain[matchRow];
+                    if (keysEqual(buildTuple.getValue(leftKey), probeTuple.getValue(rightKey))) {
+                        return join(buildTuple, probeTuple);
+                    }
+                }
+
+                probeTuple = probe.next();
+                if (probeTuple == null) {
+                    probe.close();
+                    probe = null;
+                    clearTable();
+                    continue;
+                }
+                if (!probeTuple.isNull(rightKey)) {
+                    matchRow = heads.get(keyOf(probeTuple, rightKey), NO_ROW);
+                }
+                continue;
+            }
+
+            if (pending.isEmpty()) {
+                return null;
+            }
+            startPartition(pending.poll());
+        }
+    }
+
+    // Build the partition in memory, or split it further when it does not fit
+    private void startPartition(Partition partition) throws IOException {
+        buildRows = new ArrayList<>();
+        heads = new LongIntHashMap();
+        chain = new int[1024];
+        long memory = 0;
+
+        Tuple tuple;
+        while ((tuple = partition.build.next()) != null) {
+            if (tuple.isNull(leftKey)) {
+                continue;
+            }
+            addBuildRow(tuple);
+            memory += tuple.estimateSize() + Integer.BYTES;
+
+            if (memory + heads.memoryBytes() > memoryBudget && partition.level < MAX_PARTITION_LEVEL) {
+                spill(partition);
+                return;
+            }
+        }
+        partition.build.close();
+
+        // nothing can match an empty build side
+        if (buildRows.isEmpty()) {
+            partition.probe.close();
+            clearTable();
+            return;
+        }
+
+        probe = partition.probe;
+        probeTuple = null;
+        matchRow = NO_ROW;
+    }
+
+    private void addBuildRow(Tuple tuple) {
+        int row = buildRows.size();
+        buildRows.add(tuple);
+        if (row == chain.length) {
+            chain = Arrays.copyOf(chain, row * 2);
+        }
+        chain[row] = heads.put(keyOf(tuple, leftKey), row, NO_ROW);
+    }
+
+    private void spill(Partition partition) throws IOException {
+        partitionsSpilled++;
+        int level = partition.level;
+
+        SpillFile[] buildFiles = new SpillFile[PARTITION_COUNT];
+        SpillFile[] probeFiles = new SpillFile[PARTITION_COUNT];
+        try {
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+                buildFiles[i] = new SpillFile("hashjoin-build");
+                probeFiles[i] = new SpillFile("hashjoin-probe");
+            }
+
+            // rows already in memory, then the rest of the build input
+            for (Tuple tuple : buildRows) {
+                buildFiles[partitionOf(tuple, leftKey, level)].append(tuple.toBytes());
+            }
+            clearTable();
+
+            Tuple tuple;
+            while ((tuple = partition.build.next()) != null) {
+                if (!tuple.isNull(leftKey)) {
+                    buildFiles[partitionOf(tuple, leftKey, level)].append(tuple.toBytes());
+                }
+            }
+            partition.build.close();
+
+            while ((tuple = partition.probe.next()) != null) {
+                if (!tuple.isNull(rightKey)) {
+                    probeFiles[partitionOf(tuple, rightKey, level)].append(tuple.toBytes());
+                }
+            }
+            partition.probe.close();
+        } catch (IOException | RuntimeException e) {
+            closeAll(buildFiles);
+            closeAll(probeFiles);
+            throw e;
+        }
+
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            if (buildFiles[i].getRecordCount() == 0 || probeFiles[i].getRecordCount() == 0) {
+                buildFiles[i].close();
+                probeFiles[i].close();
+                continue;
+            }
+            pending.add(new Partition(
+                    TupleSource.of(buildFiles[i], left.getSchema()),
+                    TupleSource.of(probeFiles[i], right.getSchema()),
+                    level + 1));
+        }
+    }
+
+    private static void closeAll(SpillFile[] files) throws IOException {
+        for (SpillFile file : files) {
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    private void clearTable() {
+        buildRows = null;
+        heads = null;
+        chain = null;
+    }
+
+    private static long keyOf(Tuple tuple, int column) {
+        Object value = tuple.getValue(column);
+        if (value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double) {
+            // whole doubles take the key of the same integer, so 5.0 meets 5 and -0.0 meets 0.0
+            double d = (Double) value;
+            return isWhole(d) ? (long) d : Double.doubleToLongBits(d);
+        }
+        // strings: hash only, matches are checked for equality when probing
+        return value.hashCode();
+    }
+
+    // Numbers compare by value across INT, LONG and DOUBLE, anything else with equals
+    private static boolean keysEqual(Object a, Object b) {
+        if (!(a instanceof Number x) || !(b instanceof Number y)) {
+            return a.equals(b);
+        }
+        boolean aDouble = a instanceof Double;
+        boolean bDouble = b instanceof Double;
+        if (aDouble && bDouble) {
+            return x.doubleValue() == y.doubleValue();
+        }
+        if (aDouble || bDouble) {
+            double d = aDouble ? x.doubleValue() : y.doubleValue();
+            long l = aDouble ? y.longValue() : x.longValue();
+            return isWhole(d) && (long) d == l;
+        }
+        return x.longValue() == y.longValue();
+    }
+
+    private static boolean isWhole(double d) {
+        return d == Math.rint(d) && d >= -0x1p63 && d < 0x1p63;
+    }
+
+    // Each level uses different hash bits so a partition splits again when re-partitioned
+    private static int partitionOf(Tuple tuple, int column, int level) {
+        long h = keyOf(tuple, column) * 0xC2B2AE3D27D4EB4FL + level * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 32;
+        return (int) h & (PARTITION_COUNT - 1);
+    }
+
+    private Tuple join(Tuple buildTuple, Tuple probeTuple) {
+        int leftCount = buildTuple.getSchema().getColumnCount();
+        int rightCount = probeTuple.getSchema().getColumnCount();
+
+        Object[] values = new Object[leftCount + rightCount];
+        for (int i = 0; i < leftCount; i++) {
+            values[i] = buildTuple.getValue(i);
+        }
+        for (int i = 0; i < rightCount; i++) {
+            values[leftCount + i] = probeTuple.getValue(i);
+        }
+        return new Tuple(schema, values);
+    }
+
+    // Number of times an input had to be partitioned to disk since open()
+    public int getPartitionsSpilled() {
+        return partitionsSpilled;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (probe != null) {
+            probe.close();
+            probe = null;
+        }
+        if (pending != null) {
+            for (Partition partition : pending) {
+                partition.build.close();
+                partition.probe.close();
+            }
+            pending = null;
+        }
+        clearTable();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+
+    private static class Partition {
+        final TupleSource build;
+        final TupleSource probe;
+        final int level;
+
+        Partition(TupleSource build, TupleSource probe, int level) {
+            this.build = build;
+            this.probe = probe;
+            this.level = level;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package sql.execution;
+
+import sql.record.RecordId;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.table.RecordVisibility;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Fetches the tuples whose RecordIds an index lookup produced.
+ * The lookup runs on every open(), so the scan can be restarted.
+ * With a visibility, records the reader cannot see are skipped like deleted ones.
+ */
+public class IndexScan implements Operator {
+    private final TableHeap table;
+    private final Schema schema;
+    private final Iterable<RecordId> lookup;
+    private final RecordVisibility visibility;
+
+    private Iterator<RecordId> recordIds;
+
+    public IndexScan(TableHeap table, Schema schema, Iterable<RecordId> lookup) {
+        this(table, schema, lookup, null);
+    }
+
+    public IndexScan(TableHeap table, Schema schema, Iterable<RecordId> lookup, RecordVisibility visibility) {
+        this.table = table;
+        this.schema = schema;
+        this.lookup = lookup;
+        this.visibility = visibility;
+    }
+
+    @Override
+    public void open() throws IOException {
+        recordIds = lookup.iterator();
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        while (recordIds.hasNext()) {
+            RecordId rid = recordIds.next();
+            byte[] record = visibility == null ? table.read(rid) : table.read(rid, visibility);
+
+            // deleted since the index entry was written, or not visible
+            if (record == null) {
+                continue;
+            }
+
+            Tuple tuple = Tuple.fromBytes(schema, record);
+            tuple.setRecordId(rid);
+            return tuple;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        recordIds = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
@@ -0,0 +1,74 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+
+/**
+ * Returns at most limit tuples. Stops pulling from the child once reached.
+ */
+public class Limit implements Operator {
+    private final Operator child;
+    private final long limit;
+
+    private long returned;
+
+    public Limit(Operator child, long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        this.child = child;
+        this.limit = limit;
+    }
+
+    @Override
+    public void open() throws IOException {
+        child.open();
+        returned = 0;
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        if (returned >= limit) {
+            return null;
+        }
+
+        Tuple tuple = child.next();
+        if (tuple != null) {
+            returned++;
+        }
+        return tuple;
+    }
+
+    @Override
+    public int nextBatch(Tuple[] batch) throws IOException {
+        long remaining = limit - returned;
+        if (remaining <= 0) {
+            return 0;
+        }
+
+        int count;
+        if (remaining < batch.length) {
+            // do not pull more from the child than we can return
+            Tuple[] smaller = new Tuple[(int) remaining];
+            count = child.nextBatch(smaller);
+            System.arraycopy(smaller, 0, batch, 0, count);
+        } else {
+            count = child.nextBatch(batch);
+        }
+
+        returned += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        child.close();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+}
@@ -0,0 +1,91 @@
+package sql.execution;
+
+import sql.record.Tuple;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * k-way merge of sorted sources with a tournament tree of losers.
+ * Each next() replays one leaf-to-root path, log2(k) comparisons, unlike a heap
+ * which compares against both children on the way down. Ties go to the lower
+ * source index, so merging runs in creation order is stable.
+ */
+class LoserTree {
+    private final TupleSource[] sources;
+    private final Comparator<Tuple> comparator;
+    private final Tuple[] heads;
+    // tree[0] is the winner, tree[1..k-1] the loser at each internal node
+    private final int[] tree;
+    private final int k;
+
+    LoserTree(TupleSource[] sources, Comparator<Tuple> comparator) throws IOException {
+        this.sources = sources;
+        this.comparator = comparator;
+        this.k = sources.length;
+        this.heads = new Tuple[k];
+        this.tree = new int[Math.max(k, 1)];
+
+        for (int i = 0; i < k; i++) {
+            heads[i] = sources[i].next();
+        }
+
+        // index k is a virtual source that beats everything, replaying every leaf pushes it out
+        Arrays.fill(tree, k);
+        for (int i = k - 1; i >= 0; i--) {
+            replay(i);
+        }
+    }
+
+    /**
+     * Returns the smallest remaining tuple, or null when every source is exhausted.
+     */
+    Tuple next() throws IOException {
+        if (k == 0) {
+            return null;
+        }
+
+        int winner = tree[0];
+        Tuple tuple = heads[winner];
+        if (tuple == null) {
+            return null;
+        }
+
+        heads[winner] = sources[winner].next();
+        replay(winner);
+        return tuple;
+    }
+
+    private void replay(int source) {
+        int winner = source;
+        for (int node = (source + k) / 2; node > 0; node /= 2) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    // Exhausted sources lose to everything, the virtual source k wins against everything
+    private boolean beats(int a, int b) {
+        if (a == k || b == k) {
+            return a == k;
+        }
+        Tuple x = heads[a];
+        Tuple y = heads[b];
+        if (x == null || y == null) {
+            return y == null && x != null;
+        }
+        int cmp = comparator.compare(x, y);
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    void close() throws IOException {
+        for (TupleSource source : sources) {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+import java.util.function.BiPredicate;
+
+/**
+ * Block nested loop join.
+ * Buffers a batch of outer tuples and scans the inner side once per batch,
+ * so the inner side is read (outer rows / batch size) times instead of once per row.
+ */
+public class NestedLoopJoin implements Operator {
+    private final Operator outer;
+    private final Operator inner;
+    private final BiPredicate<Tuple, Tuple> condition;
+    private final Schema schema;
+
+    private final Tuple[] outerBlock;
+    private int blockSize;
+    private int outerIndex;
+    private Tuple innerTuple;
+
+    public NestedLoopJoin(Operator outer, Operator inner, BiPredicate<Tuple, Tuple> condition) {
+        this(outer, inner, condition, DEFAULT_BATCH_SIZE);
+    }
+
+    public NestedLoopJoin(Operator outer, Operator inner, BiPredicate<Tuple, Tuple> condition, int blockSize) {
+        this.outer = outer;
+        this.inner = inner;
+        this.condition = condition;
+        this.schema = Schema.concat(outer.getSchema(), inner.getSchema());
+        this.outerBlock = new Tuple[blockSize];
+    }
+
+    @Override
+    public void open() throws IOException {
+        outer.open();
+        blockSize = 0;
+        outerIndex = 0;
+        innerTuple = null;
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        while (true) {
+            // load the next outer block and restart the inner side
+            if (blockSize == 0) {
+                blockSize = outer.nextBatch(outerBlock);
+                if (blockSize == 0) {
+                    return null;
+                }
+                inner.open();
+                innerTuple = null;
+            }
+
+            // advance the inner side once the block is matched against the current inner tuple
+            if (innerTuple == null || outerIndex >= blockSize) {
+                innerTuple = inner.next();
+                outerIndex = 0;
+
+                if (innerTuple == null) {
+                    inner.close();
+                    blockSize = 0;
+                    continue;
+                }
+            }
+
+            while (outerIndex < blockSize) {
+                Tuple outerTuple = outerBlock[outerIndex++];
+                if (condition.test(outerTuple, innerTuple)) {
+                    return join(outerTuple, innerTuple);
+                }
+            }
+        }
+    }
+
+    private Tuple join(Tuple left, Tuple right) {
+        int leftCount = left.getSchema().getColumnCount();
+        int rightCount = right.getSchema().getColumnCount();
+
+        Object[] values = new Object[leftCount + rightCount];
+        for (int i = 0; i < leftCount; i++) {
+            values[i] = left.getValue(i);
+        }
+        for (int i = 0; i < rightCount; i++) {
+            values[leftCount + i] = right.getValue(i);
+        }
+        return new Tuple(schema, values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (blockSize > 0) {
+            inner.close();
+            blockSize = 0;
+        }
+        outer.close();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
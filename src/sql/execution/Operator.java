@@ -0,0 +1,42 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+
+/**
+ * Iterator style query operator.
+ * Call open() before pulling tuples and close() when done. An operator can be
+ * opened again after close() to restart it, joins rely on this to rescan.
+ */
+public interface Operator {
+    int DEFAULT_BATCH_SIZE = 1024;
+
+    void open() throws IOException;
+
+    /**
+     * Returns the next tuple, or null when the operator is exhausted.
+     */
+    Tuple next() throws IOException;
+
+    /**
+     * Fill the batch with up to batch.length tuples and return how many were written.
+     * Returns 0 when exhausted. Operators override this to move a whole batch per call.
+     */
+    default int nextBatch(Tuple[] batch) throws IOException {
+        int count = 0;
+        while (count < batch.length) {
+            Tuple tuple = next();
+            if (tuple == null) {
+                break;
+            }
+            batch[count++] = tuple;
+        }
+        return count;
+    }
+
+    void close() throws IOException;
+
+    Schema getSchema();
+}
@@ -0,0 +1,62 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+
+/**
+ * Keeps the given columns, in the given order.
+ */
+public class Project implements Operator {
+    private final Operator child;
+    private final int[] columns;
+    private final Schema schema;
+
+    public Project(Operator child, int... columns) {
+        this.child = child;
+        this.columns = columns;
+        this.schema = child.getSchema().project(columns);
+    }
+
+    @Override
+    public void open() throws IOException {
+        child.open();
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        Tuple tuple = child.next();
+        return tuple == null ? null : project(tuple);
+    }
+
+    @Override
+    public int nextBatch(Tuple[] batch) throws IOException {
+        int count = child.nextBatch(batch);
+        for (int i = 0; i < count; i++) {
+            batch[i] = project(batch[i]);
+        }
+        return count;
+    }
+
+    private Tuple project(Tuple tuple) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = tuple.getValue(columns[i]);
+        }
+
+        Tuple projected = new Tuple(schema, values);
+        projected.setRecordId(tuple.getRecordId());
+        return projected;
+    }
+
+    @Override
+    public void close() throws IOException {
+        child.close();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
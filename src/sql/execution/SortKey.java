@@ -0,0 +1,63 @@
+package sql.execution;
+
+import sql.record.Tuple;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One ORDER BY column. Nulls sort before every value, so they come first
+ * ascending and last descending.
+ */
+public class SortKey {
+    private final int column;
+    private final boolean ascending;
+
+    public SortKey(int column, boolean ascending) {
+        this.column = column;
+        this.ascending = ascending;
+    }
+
+    public static SortKey asc(int column) {
+        return new SortKey(column, true);
+    }
+
+    public static SortKey desc(int column) {
+        return new SortKey(column, false);
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Tuple a, Tuple b) {
+        Object x = a.getValue(column);
+        Object y = b.getValue(column);
+
+        int cmp;
+        if (x == null || y == null) {
+            cmp = x == null ? (y == null ? 0 : -1) : 1;
+        } else {
+            cmp = ((Comparable<Object>) x).compareTo(y);
+        }
+        return ascending ? cmp : -cmp;
+    }
+
+    public static Comparator<Tuple> comparator(List<SortKey> keys) {
+        SortKey[] sortKeys = keys.toArray(new SortKey[0]);
+        return (a, b) -> {
+            for (SortKey key : sortKeys) {
+                int cmp = key.compare(a, b);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.table.RecordVisibility;
+import sql.table.SequentialScan;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.util.function.IntPredicate;
+
+/**
+ * Reads every live tuple of a table in page order.
+ * With a visibility, e.g. an MVCC snapshot, only the versions it allows are returned.
+ * With a page filter, e.g. from a zone map, rejected pages are not read at all.
+ */
+public class TableScan implements Operator {
+    private final TableHeap table;
+    private final Schema schema;
+    private final RecordVisibility visibility;
+    private final IntPredicate pageFilter;
+
+    private SequentialScan scan;
+
+    public TableScan(TableHeap table, Schema schema) {
+        this(table, schema, null);
+    }
+
+    public TableScan(TableHeap table, Schema schema, RecordVisibility visibility) {
+        this(table, schema, visibility, null);
+    }
+
+    public TableScan(TableHeap table, Schema schema, RecordVisibility visibility, IntPredicate pageFilter) {
+        this.table = table;
+        this.schema = schema;
+        this.visibility = visibility;
+        this.pageFilter = pageFilter;
+    }
+
+    @Override
+    public void open() throws IOException {
+        scan = table.scan(visibility, pageFilter);
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+        byte[] record = scan.next();
+        if (record == null) {
+            return null;
+        }
+
+        Tuple tuple = Tuple.fromBytes(schema, record);
+        tuple.setRecordId(scan.getLastRecordId());
+        return tuple;
+    }
+
+    @Override
+    public int nextBatch(Tuple[] batch) throws IOException {
+        int count = 0;
+        byte[] record;
+        while (count < batch.length && (record = scan.next()) != null) {
+            Tuple tuple = Tuple.fromBytes(schema, record);
+            tuple.setRecordId(scan.getLastRecordId());
+            batch[count++] = tuple;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scan != null) {
+            scan.close();
+            scan = null;
+        }
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
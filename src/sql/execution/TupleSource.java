@@ -0,0 +1,77 @@
+package sql.execution;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.storage.SpillFile;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Pull-only stream of tuples used inside operators that spill,
+ * so their inputs can be a child operator, a spill file or memory.
+ */
+interface TupleSource {
+    Tuple next() throws IOException;
+
+    void close() throws IOException;
+
+    // Child operator, opened on first use
+    static TupleSource of(Operator operator) {
+        return new TupleSource() {
+            private boolean opened;
+            private boolean closed;
+
+            @Override
+            public Tuple next() throws IOException {
+                if (!opened) {
+                    operator.open();
+                    opened = true;
+                }
+                return operator.next();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (opened && !closed) {
+                    operator.close();
+                }
+                closed = true;
+            }
+        };
+    }
+
+    // Reads a spill file back and deletes it on close
+    static TupleSource of(SpillFile file, Schema schema) {
+        return new TupleSource() {
+            private SpillFile.Reader reader;
+
+            @Override
+            public Tuple next() throws IOException {
+                if (reader == null) {
+                    reader = file.reader();
+                }
+                byte[] record = reader.next();
+                return record == null ? null : Tuple.fromBytes(schema, record);
+            }
+
+            @Override
+            public void close() throws IOException {
+                file.close();
+            }
+        };
+    }
+
+    static TupleSource of(Iterator<Tuple> tuples) {
+        return new TupleSource() {
+            @Override
+            public Tuple next() {
+                return tuples.hasNext() ? tuples.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package sql.execution.vector;
+
+import sql.record.Schema;
+
+/**
+ * A batch of rows stored column by column.
+ * The selection vector lists the row indexes that are still live after filtering,
+ * when it is not active every row in [0, size) is live.
+ */
+public class ColumnBatch {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Schema schema;
+    private final ColumnVector[] columns;
+    private final int capacity;
+    private int size;
+
+    private final int[] selection;
+    private int selectedCount;
+    private boolean selectionActive;
+
+    public ColumnBatch(Schema schema, int capacity) {
+        this.schema = schema;
+        this.capacity = capacity;
+        this.columns = new ColumnVector[schema.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnVector(schema.getType(i), capacity);
+        }
+        this.selection = new int[capacity];
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isSelectionActive() {
+        return selectionActive;
+    }
+
+    public int[] getSelection() {
+        return selection;
+    }
+
+    // Number of live rows
+    public int getSelectedCount() {
+        return selectionActive ? selectedCount : size;
+    }
+
+    // Called after a filter wrote live row indexes into getSelection()
+    public void setSelection(int selectedCount) {
+        this.selectedCount = selectedCount;
+        this.selectionActive = true;
+    }
+
+    void reset() {
+        size = 0;
+        selectedCount = 0;
+        selectionActive = false;
+        for (ColumnVector column : columns) {
+            column.reset();
+        }
+    }
+}
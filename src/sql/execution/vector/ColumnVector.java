@@ -0,0 +1,87 @@
+package sql.execution.vector;
+
+import sql.record.ColumnType;
+
+import java.util.Arrays;
+
+/**
+ * Values of one column for a batch of rows, in a primitive array matching the column type.
+ */
+public class ColumnVector {
+    private final ColumnType type;
+
+    private final int[] ints;
+    private final long[] longs;
+    private final double[] doubles;
+    private final String[] strings;
+
+    private final boolean[] nulls;
+    private boolean hasNulls;
+
+    public ColumnVector(ColumnType type, int capacity) {
+        this.type = type;
+        this.ints = type == ColumnType.INT ? new int[capacity] : null;
+        this.longs = type == ColumnType.LONG ? new long[capacity] : null;
+        this.doubles = type == ColumnType.DOUBLE ? new double[capacity] : null;
+        this.strings = type == ColumnType.VARCHAR ? new String[capacity] : null;
+        this.nulls = new boolean[capacity];
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    public int[] getInts() {
+        return ints;
+    }
+
+    public long[] getLongs() {
+        return longs;
+    }
+
+    public double[] getDoubles() {
+        return doubles;
+    }
+
+    public String[] getStrings() {
+        return strings;
+    }
+
+    public boolean isNull(int row) {
+        return hasNulls && nulls[row];
+    }
+
+    // Kernels can skip null checks entirely when this is false
+    public boolean hasNulls() {
+        return hasNulls;
+    }
+
+    public void setNull(int row) {
+        nulls[row] = true;
+        hasNulls = true;
+    }
+
+    // Value as a number, for generic consumers outside the kernels
+    public Object getValue(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (type) {
+            case INT:
+                return ints[row];
+            case LONG:
+                return longs[row];
+            case DOUBLE:
+                return doubles[row];
+            default:
+                return strings[row];
+        }
+    }
+
+    void reset() {
+        if (hasNulls) {
+            Arrays.fill(nulls, false);
+            hasNulls = false;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package sql.execution.vector;
+
+import sql.record.ColumnType;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.table.SequentialScan;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Scans a table and decodes only the requested columns straight into column vectors,
+ * without building a Tuple per row.
+ */
+public class ColumnarScan implements VectorOperator {
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle DOUBLE_VIEW =
+            MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final TableHeap table;
+    private final Schema tableSchema;
+    private final Schema schema;
+    private final int batchSize;
+    // Page range to read, WHOLE_TABLE reads the table as it is at open()
+    private final int fromPageId;
+    private final int toPageId;
+
+    // For each table column, its index in the output batch or -1 if not read
+    private final int[] outputIndex;
+    // Decoding stops after this table column
+    private final int lastColumn;
+
+    private static final int WHOLE_TABLE = -1;
+
+    private SequentialScan scan;
+    private ColumnBatch batch;
+
+    public ColumnarScan(TableHeap table, Schema tableSchema, int... columns) {
+        this(table, tableSchema, columns, ColumnBatch.DEFAULT_CAPACITY);
+    }
+
+    public ColumnarScan(TableHeap table, Schema tableSchema, int[] columns, int batchSize) {
+        this(table, tableSchema, columns, batchSize, WHOLE_TABLE, WHOLE_TABLE);
+    }
+
+    public ColumnarScan(TableHeap table, Schema tableSchema, int[] columns, int batchSize,
+                        int fromPageId, int toPageId) {
+        this.table = table;
+        this.tableSchema = tableSchema;
+        this.schema = tableSchema.project(columns);
+        this.batchSize = batchSize;
+        this.fromPageId = fromPageId;
+        this.toPageId = toPageId;
+
+        this.outputIndex = new int[tableSchema.getColumnCount()];
+        Arrays.fill(outputIndex, -1);
+        int last = -1;
+        for (int i = 0; i < columns.length; i++) {
+            outputIndex[columns[i]] = i;
+            last = Math.max(last, columns[i]);
+        }
+        this.lastColumn = last;
+    }
+
+    @Override
+    public void open() throws IOException {
+        scan = fromPageId == WHOLE_TABLE ? table.scan() : table.scan(fromPageId, toPageId);
+        batch = new ColumnBatch(schema, batchSize);
+    }
+
+    @Override
+    public ColumnBatch nextBatch() throws IOException {
+        batch.reset();
+
+        int row = 0;
+        byte[] record;
+        while (row < batchSize && (record = scan.next()) != null) {
+            decode(record, row++);
+        }
+
+        if (row == 0) {
+            return null;
+        }
+        batch.setSize(row);
+        return batch;
+    }
+
+    private void decode(byte[] record, int row) {
+        int pos = Tuple.bitmapSize(tableSchema.getColumnCount());
+
+        for (int c = 0; c <= lastColumn; c++) {
+            int target = outputIndex[c];
+
+            if ((record[c >> 3] & (1 << (c & 7))) != 0) {
+                if (target >= 0) {
+                    batch.getColumn(target).setNull(row);
+                }
+                continue;
+            }
+
+            ColumnType type = tableSchema.getType(c);
+            if (target >= 0) {
+                ColumnVector vector = batch.getColumn(target);
+                switch (type) {
+                    case INT -> vector.getInts()[row] = (int) INT_VIEW.get(record, pos);
+                    case LONG -> vector.getLongs()[row] = (long) LONG_VIEW.get(record, pos);
+                    case DOUBLE -> vector.getDoubles()[row] = (double) DOUBLE_VIEW.get(record, pos);
+                    case VARCHAR -> {
+                        int length = varcharLength(record, pos);
+                        vector.getStrings()[row] = new String(record, pos + 2, length, StandardCharsets.UTF_8);
+                    }
+                }
+            }
+
+            pos += type.isFixedSize() ? type.size : 2 + varcharLength(record, pos);
+        }
+    }
+
+    private static int varcharLength(byte[] record, int pos) {
+        return (record[pos] & 0xFF) | (record[pos + 1] & 0xFF) << 8;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scan != null) {
+            scan.close();
+            scan = null;
+        }
+        batch = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
@@ -0,0 +1,10 @@
+package sql.execution.vector;
+
+public enum CompareOp {
+    EQ,
+    NE,
+    LT,
+    LE,
+    GT,
+    GE
+}
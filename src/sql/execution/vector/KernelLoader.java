@@ -0,0 +1,24 @@
+package sql.execution.vector;
+
+final class KernelLoader {
+    static final Kernels KERNELS = load();
+
+    private KernelLoader() {
+    }
+
+    private static Kernels load() {
+        if (Boolean.getBoolean("sql.vector.disable")
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return ScalarKernels.INSTANCE;
+        }
+
+        // Only touch the SIMD class once we know its module is resolved
+        try {
+            return (Kernels) Class.forName("sql.execution.vector.SimdKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return ScalarKernels.INSTANCE;
+        }
+    }
+}
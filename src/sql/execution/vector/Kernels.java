@@ -0,0 +1,50 @@
+package sql.execution.vector;
+
+/**
+ * Primitive loops used by the vectorized operators.
+ * All methods work on the dense prefix [0, size) of the arrays; rows with
+ * nulls or an active selection go through the operators' own scalar loops.
+ */
+public interface Kernels {
+
+    /**
+     * Write the indexes of rows with lo <= value <= hi (or outside that range when
+     * negate is set) into selection, and return how many were written.
+     */
+    int selectIntRange(int[] values, int size, int lo, int hi, boolean negate, int[] selection);
+
+    int selectLongRange(long[] values, int size, long lo, long hi, boolean negate, int[] selection);
+
+    int selectDoubleRange(double[] values, int size, double lo, double hi, boolean negate, int[] selection);
+
+    long sumInt(int[] values, int size);
+
+    long sumLong(long[] values, int size);
+
+    double sumDouble(double[] values, int size);
+
+    // min / max require size > 0
+    int minInt(int[] values, int size);
+
+    int maxInt(int[] values, int size);
+
+    long minLong(long[] values, int size);
+
+    long maxLong(long[] values, int size);
+
+    double minDouble(double[] values, int size);
+
+    double maxDouble(double[] values, int size);
+
+    /**
+     * SIMD kernels when jdk.incubator.vector is available (--add-modules jdk.incubator.vector),
+     * scalar kernels otherwise or when -Dsql.vector.disable=true.
+     */
+    static Kernels get() {
+        return KernelLoader.KERNELS;
+    }
+
+    static Kernels scalar() {
+        return ScalarKernels.INSTANCE;
+    }
+}
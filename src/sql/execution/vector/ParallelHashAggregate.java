@@ -0,0 +1,130 @@
+package sql.execution.vector;
+
+import sql.execution.Aggregate;
+import sql.execution.GroupTable;
+import sql.execution.Operator;
+import sql.record.Column;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * GROUP BY over a table split into page ranges. Each thread scans its range into
+ * its own {@link GroupTable}, the partial tables are merged once all threads finish.
+ *
+ * Group and aggregate column indexes refer to the scanned columns, not the table schema.
+ * The table must not be written while the aggregate is open.
+ */
+public class ParallelHashAggregate implements Operator {
+    private final TableHeap table;
+    private final Schema tableSchema;
+    private final int[] columns;
+    private final int[] groupBy;
+    private final List<Aggregate> aggregates;
+    private final int threads;
+    private final Schema schema;
+
+    private GroupTable groups;
+    private int nextGroup;
+
+    public ParallelHashAggregate(TableHeap table, Schema tableSchema, int[] columns,
+                                 int[] groupBy, List<Aggregate> aggregates, int threads) {
+        Schema input = tableSchema.project(columns);
+        if (!GroupTable.supports(input, groupBy, aggregates)) {
+            throw new IllegalArgumentException("Parallel aggregate needs integer group keys and numeric aggregates");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+
+        this.table = table;
+        this.tableSchema = tableSchema;
+        this.columns = columns;
+        this.groupBy = groupBy;
+        this.aggregates = aggregates;
+        this.threads = threads;
+
+        List<Column> output = new ArrayList<>(input.project(groupBy).getColumns());
+        for (Aggregate aggregate : aggregates) {
+            output.add(aggregate.outputColumn(input));
+        }
+        this.schema = new Schema(output);
+    }
+
+    @Override
+    public void open() throws IOException {
+        int firstPageId = table.getFirstPageId();
+        int pageCount = table.getLastPageId() - firstPageId + 1;
+        int parts = Math.min(threads, pageCount);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parts);
+        try {
+            List<Future<GroupTable>> partials = new ArrayList<>(parts);
+            for (int i = 0; i < parts; i++) {
+                int from = firstPageId + (int) ((long) pageCount * i / parts);
+                int to = firstPageId + (int) ((long) pageCount * (i + 1) / parts) - 1;
+                partials.add(executor.submit(() -> aggregateRange(from, to)));
+            }
+
+            // Merge in range order so groups come out in table order, like HashAggregate
+            groups = partials.get(0).get();
+            for (int i = 1; i < parts; i++) {
+                groups.merge(partials.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while aggregating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        nextGroup = 0;
+    }
+
+    private GroupTable aggregateRange(int fromPageId, int toPageId) throws IOException {
+        ColumnarScan scan = new ColumnarScan(table, tableSchema, columns, ColumnBatch.DEFAULT_CAPACITY,
+                fromPageId, toPageId);
+        GroupTable partial = new GroupTable(scan.getSchema(), groupBy, aggregates);
+
+        scan.open();
+        try {
+            ColumnBatch batch;
+            while ((batch = scan.nextBatch()) != null) {
+                partial.add(batch);
+            }
+        } finally {
+            scan.close();
+        }
+        return partial;
+    }
+
+    @Override
+    public Tuple next() {
+        return nextGroup < groups.getGroupCount() ? groups.getGroup(nextGroup++, schema) : null;
+    }
+
+    @Override
+    public void close() {
+        groups = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+}
@@ -0,0 +1,125 @@
+package sql.execution.vector;
+
+/**
+ * Plain loops, written branch-free so the JIT can still unroll and auto-vectorize them.
+ */
+final class ScalarKernels implements Kernels {
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    private ScalarKernels() {
+    }
+
+    @Override
+    public int selectIntRange(int[] values, int size, int lo, int hi, boolean negate, int[] selection) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            boolean inRange = values[i] >= lo && values[i] <= hi;
+            selection[count] = i;
+            count += inRange != negate ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public int selectLongRange(long[] values, int size, long lo, long hi, boolean negate, int[] selection) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            boolean inRange = values[i] >= lo && values[i] <= hi;
+            selection[count] = i;
+            count += inRange != negate ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public int selectDoubleRange(double[] values, int size, double lo, double hi, boolean negate, int[] selection) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            boolean inRange = values[i] >= lo && values[i] <= hi;
+            selection[count] = i;
+            count += inRange != negate ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public long sumInt(int[] values, int size) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public long sumLong(long[] values, int size) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double sumDouble(double[] values, int size) {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int minInt(int[] values, int size) {
+        int min = values[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public int maxInt(int[] values, int size) {
+        int max = values[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public long minLong(long[] values, int size) {
+        long min = values[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public long maxLong(long[] values, int size) {
+        long max = values[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public double minDouble(double[] values, int size) {
+        double min = values[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public double maxDouble(double[] values, int size) {
+        double max = values[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,209 @@
+package sql.execution.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on the incubating Vector API. Loaded through KernelLoader only when
+ * jdk.incubator.vector is resolved, tails fall back to scalar loops.
+ */
+final class SimdKernels implements Kernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public int selectIntRange(int[] values, int size, int lo, int hi, boolean negate, int[] selection) {
+        int count = 0;
+        int i = 0;
+        for (int bound = INTS.loopBound(size); i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, values, i);
+            VectorMask<Integer> match = v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LE, hi));
+            count = appendMatches(negate ? match.not().toLong() : match.toLong(), i, selection, count);
+        }
+        for (; i < size; i++) {
+            boolean inRange = values[i] >= lo && values[i] <= hi;
+            selection[count] = i;
+            count += inRange != negate ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public int selectLongRange(long[] values, int size, long lo, long hi, boolean negate, int[] selection) {
+        int count = 0;
+        int i = 0;
+        for (int bound = LONGS.loopBound(size); i < bound; i += LONGS.length()) {
+            LongVector v = LongVector.fromArray(LONGS, values, i);
+            VectorMask<Long> match = v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LE, hi));
+            count = appendMatches(negate ? match.not().toLong() : match.toLong(), i, selection, count);
+        }
+        for (; i < size; i++) {
+            boolean inRange = values[i] >= lo && values[i] <= hi;
+            selection[count] = i;
+            count += inRange != negate ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public int selectDoubleRange(double[] values, int size, double lo, double hi, boolean negate, int[] selection) {
+        int count = 0;
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(size); i < bound; i += DOUBLES.length()) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+            VectorMask<Double> match = v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LE, hi));
+            count = appendMatches(negate ? match.not().toLong() : match.toLong(), i, selection, count);
+        }
+        for (; i < size; i++) {
+            boolean inRange = values[i] >= lo && values[i] <= hi;
+            selection[count] = i;
+            count += inRange != negate ? 1 : 0;
+        }
+        return count;
+    }
+
+    // Turn a lane mask into row indexes
+    private static int appendMatches(long lanes, int base, int[] selection, int count) {
+        while (lanes != 0) {
+            selection[count++] = base + Long.numberOfTrailingZeros(lanes);
+            lanes &= lanes - 1;
+        }
+        return count;
+    }
+
+    @Override
+    public long sumInt(int[] values, int size) {
+        // widen to longs before adding so large sums do not overflow
+        LongVector acc = LongVector.zero(LONGS);
+        int parts = INTS.length() / LONGS.length();
+        int i = 0;
+        for (int bound = INTS.loopBound(size); i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, values, i);
+            for (int part = 0; part < parts; part++) {
+                acc = acc.add((LongVector) v.convertShape(VectorOperators.I2L, LONGS, part));
+            }
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public long sumLong(long[] values, int size) {
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = LONGS.loopBound(size); i < bound; i += LONGS.length()) {
+            acc = acc.add(LongVector.fromArray(LONGS, values, i));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double sumDouble(double[] values, int size) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(size); i < bound; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public int minInt(int[] values, int size) {
+        IntVector acc = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(size); i < bound; i += INTS.length()) {
+            acc = acc.min(IntVector.fromArray(INTS, values, i));
+        }
+        int min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public int maxInt(int[] values, int size) {
+        IntVector acc = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(size); i < bound; i += INTS.length()) {
+            acc = acc.max(IntVector.fromArray(INTS, values, i));
+        }
+        int max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public long minLong(long[] values, int size) {
+        LongVector acc = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+        int i = 0;
+        for (int bound = LONGS.loopBound(size); i < bound; i += LONGS.length()) {
+            acc = acc.min(LongVector.fromArray(LONGS, values, i));
+        }
+        long min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public long maxLong(long[] values, int size) {
+        LongVector acc = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+        int i = 0;
+        for (int bound = LONGS.loopBound(size); i < bound; i += LONGS.length()) {
+            acc = acc.max(LongVector.fromArray(LONGS, values, i));
+        }
+        long max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public double minDouble(double[] values, int size) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(size); i < bound; i += DOUBLES.length()) {
+            acc = acc.min(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < size; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public double maxDouble(double[] values, int size) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(size); i < bound; i += DOUBLES.length()) {
+            acc = acc.max(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
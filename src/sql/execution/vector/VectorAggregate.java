@@ -0,0 +1,221 @@
+package sql.execution.vector;
+
+import sql.execution.Aggregate;
+import sql.execution.AggregateFunction;
+import sql.execution.Operator;
+import sql.record.Column;
+import sql.record.ColumnType;
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregates without GROUP BY over column batches.
+ * Produces a single tuple, so it can feed the row operators.
+ */
+public class VectorAggregate implements Operator {
+    private final VectorOperator child;
+    private final List<Aggregate> aggregates;
+    private final Kernels kernels;
+    private final Schema schema;
+
+    private Tuple result;
+
+    public VectorAggregate(VectorOperator child, List<Aggregate> aggregates) {
+        this(child, aggregates, Kernels.get());
+    }
+
+    public VectorAggregate(VectorOperator child, List<Aggregate> aggregates, Kernels kernels) {
+        this.child = child;
+        this.aggregates = aggregates;
+        this.kernels = kernels;
+
+        List<Column> columns = new ArrayList<>();
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.getColumn() != Aggregate.ALL_COLUMNS
+                    && !child.getSchema().getType(aggregate.getColumn()).isNumeric()
+                    && aggregate.getFunction() != AggregateFunction.COUNT) {
+                throw new IllegalArgumentException("Vectorized " + aggregate.getFunction() + " needs a numeric column");
+            }
+            columns.add(aggregate.outputColumn(child.getSchema()));
+        }
+        this.schema = new Schema(columns);
+    }
+
+    @Override
+    public void open() throws IOException {
+        Accumulator[] accumulators = new Accumulator[aggregates.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = new Accumulator(aggregates.get(i));
+        }
+
+        child.open();
+        ColumnBatch batch;
+        while ((batch = child.nextBatch()) != null) {
+            for (Accumulator accumulator : accumulators) {
+                accumulator.add(batch);
+            }
+        }
+        child.close();
+
+        Object[] values = new Object[accumulators.length];
+        for (int i = 0; i < accumulators.length; i++) {
+            values[i] = accumulators[i].result(schema.getType(i));
+        }
+        result = new Tuple(schema, values);
+    }
+
+    @Override
+    public Tuple next() {
+        Tuple tuple = result;
+        result = null;
+        return tuple;
+    }
+
+    @Override
+    public void close() {
+        result = null;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+
+    private class Accumulator {
+        private final AggregateFunction function;
+        private final int column;
+
+        private long count;
+        private long longValue;
+        private double doubleValue;
+
+        Accumulator(Aggregate aggregate) {
+            this.function = aggregate.getFunction();
+            this.column = aggregate.getColumn();
+
+            if (function == AggregateFunction.MIN) {
+                longValue = Long.MAX_VALUE;
+                doubleValue = Double.POSITIVE_INFINITY;
+            } else if (function == AggregateFunction.MAX) {
+                longValue = Long.MIN_VALUE;
+                doubleValue = Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        void add(ColumnBatch batch) {
+            if (column == Aggregate.ALL_COLUMNS) {
+                count += batch.getSelectedCount();
+                return;
+            }
+
+            ColumnVector vector = batch.getColumn(column);
+            if (!batch.isSelectionActive() && !vector.hasNulls()) {
+                addDense(vector, batch.getSize());
+            } else {
+                addSparse(vector, batch);
+            }
+        }
+
+        private void addDense(ColumnVector vector, int size) {
+            count += size;
+            if (function == AggregateFunction.COUNT) {
+                return;
+            }
+
+            switch (vector.getType()) {
+                case INT -> {
+                    int[] values = vector.getInts();
+                    switch (function) {
+                        case SUM, AVG -> longValue += kernels.sumInt(values, size);
+                        case MIN -> longValue = Math.min(longValue, kernels.minInt(values, size));
+                        default -> longValue = Math.max(longValue, kernels.maxInt(values, size));
+                    }
+                }
+                case LONG -> {
+                    long[] values = vector.getLongs();
+                    switch (function) {
+                        case SUM, AVG -> longValue += kernels.sumLong(values, size);
+                        case MIN -> longValue = Math.min(longValue, kernels.minLong(values, size));
+                        default -> longValue = Math.max(longValue, kernels.maxLong(values, size));
+                    }
+                }
+                default -> {
+                    double[] values = vector.getDoubles();
+                    switch (function) {
+                        case SUM, AVG -> doubleValue += kernels.sumDouble(values, size);
+                        case MIN -> doubleValue = Math.min(doubleValue, kernels.minDouble(values, size));
+                        default -> doubleValue = Math.max(doubleValue, kernels.maxDouble(values, size));
+                    }
+                }
+            }
+        }
+
+        private void addSparse(ColumnVector vector, ColumnBatch batch) {
+            int[] selection = batch.getSelection();
+            boolean selected = batch.isSelectionActive();
+            int live = batch.getSelectedCount();
+
+            for (int i = 0; i < live; i++) {
+                int row = selected ? selection[i] : i;
+                if (vector.isNull(row)) {
+                    continue;
+                }
+                count++;
+
+                switch (vector.getType()) {
+                    case INT -> addLong(vector.getInts()[row]);
+                    case LONG -> addLong(vector.getLongs()[row]);
+                    case DOUBLE -> addDouble(vector.getDoubles()[row]);
+                    default -> {
+                        // VARCHAR only reaches here for COUNT
+                    }
+                }
+            }
+        }
+
+        private void addLong(long value) {
+            switch (function) {
+                case SUM, AVG -> longValue += value;
+                case MIN -> longValue = Math.min(longValue, value);
+                case MAX -> longValue = Math.max(longValue, value);
+                default -> {
+                }
+            }
+        }
+
+        private void addDouble(double value) {
+            switch (function) {
+                case SUM, AVG -> doubleValue += value;
+                case MIN -> doubleValue = Math.min(doubleValue, value);
+                case MAX -> doubleValue = Math.max(doubleValue, value);
+                default -> {
+                }
+            }
+        }
+
+        Object result(ColumnType outputType) {
+            if (function == AggregateFunction.COUNT) {
+                return count;
+            }
+            if (count == 0) {
+                return null;
+            }
+            if (function == AggregateFunction.AVG) {
+                // longValue holds the sum for integer columns, doubleValue for DOUBLE
+                return (longValue + doubleValue) / count;
+            }
+            switch (outputType) {
+                case INT:
+                    return (int) longValue;
+                case LONG:
+                    return longValue;
+                default:
+                    return doubleValue;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package sql.execution.vector;
+
+import sql.record.ColumnType;
+import sql.record.Schema;
+
+import java.io.IOException;
+
+/**
+ * Keeps rows where a numeric column compares true against a constant.
+ * The comparison is turned into a range check so one kernel covers every operator.
+ * Null values never match.
+ */
+public class VectorFilter implements VectorOperator {
+    private final VectorOperator child;
+    private final int column;
+    private final ColumnType type;
+    private final Kernels kernels;
+
+    // Inclusive range, rows outside it match when negate is set
+    private final long longLo;
+    private final long longHi;
+    private final double doubleLo;
+    private final double doubleHi;
+    private final boolean negate;
+
+    public VectorFilter(VectorOperator child, int column, CompareOp op, Number constant) {
+        this(child, column, op, constant, Kernels.get());
+    }
+
+    public VectorFilter(VectorOperator child, int column, CompareOp op, Number constant, Kernels kernels) {
+        this.child = child;
+        this.column = column;
+        this.type = child.getSchema().getType(column);
+        this.kernels = kernels;
+        this.negate = op == CompareOp.NE;
+
+        if (!type.isNumeric()) {
+            throw new IllegalArgumentException("Vectorized filter needs a numeric column, got " + type);
+        }
+
+        if (type == ColumnType.DOUBLE) {
+            double c = constant.doubleValue();
+            this.doubleLo = switch (op) {
+                case EQ, NE, GE -> c;
+                case GT -> Math.nextUp(c);
+                case LT, LE -> Double.NEGATIVE_INFINITY;
+            };
+            this.doubleHi = switch (op) {
+                case EQ, NE, LE -> c;
+                case LT -> Math.nextDown(c);
+                case GT, GE -> Double.POSITIVE_INFINITY;
+            };
+            this.longLo = 0;
+            this.longHi = 0;
+        } else {
+            long typeMin = type == ColumnType.INT ? Integer.MIN_VALUE : Long.MIN_VALUE;
+            long typeMax = type == ColumnType.INT ? Integer.MAX_VALUE : Long.MAX_VALUE;
+
+            long lo;
+            long hi;
+            boolean empty;
+            double d = constant.doubleValue();
+            if (isIntegral(constant) || isWholeLong(d)) {
+                long c = isIntegral(constant) ? constant.longValue() : (long) d;
+                lo = switch (op) {
+                    case EQ, NE, GE -> c;
+                    case GT -> c == Long.MAX_VALUE ? Long.MAX_VALUE : c + 1;
+                    case LT, LE -> typeMin;
+                };
+                hi = switch (op) {
+                    case EQ, NE, LE -> c;
+                    case LT -> c == Long.MIN_VALUE ? Long.MIN_VALUE : c - 1;
+                    case GT, GE -> typeMax;
+                };
+                // GT MAX and LT MIN can never match
+                empty = (op == CompareOp.GT && c == Long.MAX_VALUE) || (op == CompareOp.LT && c == Long.MIN_VALUE);
+            } else {
+                // fractional, NaN or past the long range: no value equals it, so EQ matches
+                // nothing, NE everything, and the other bounds round inwards to whole values
+                lo = switch (op) {
+                    case GT, GE -> d < -0x1p63 ? typeMin : (long) Math.ceil(d);
+                    case EQ, NE, LT, LE -> typeMin;
+                };
+                hi = switch (op) {
+                    case LT, LE -> d >= 0x1p63 ? typeMax : (long) Math.floor(d);
+                    case EQ, NE, GT, GE -> typeMax;
+                };
+                empty = Double.isNaN(d) || op == CompareOp.EQ || op == CompareOp.NE
+                        || ((op == CompareOp.GT || op == CompareOp.GE) && d >= 0x1p63)
+                        || ((op == CompareOp.LT || op == CompareOp.LE) && d < -0x1p63);
+            }
+
+            // clamp to the column type, an empty range is lo > hi
+            this.longLo = empty ? 1 : Math.max(lo, typeMin);
+            this.longHi = empty ? 0 : Math.min(hi, typeMax);
+            this.doubleLo = 0;
+            this.doubleHi = 0;
+        }
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+    }
+
+    private static boolean isWholeLong(double d) {
+        return d == Math.rint(d) && d >= -0x1p63 && d < 0x1p63;
+    }
+
+    @Override
+    public void open() throws IOException {
+        child.open();
+    }
+
+    @Override
+    public ColumnBatch nextBatch() throws IOException {
+        ColumnBatch batch;
+        while ((batch = child.nextBatch()) != null) {
+            ColumnVector vector = batch.getColumn(column);
+
+            int count;
+            if (!batch.isSelectionActive() && !vector.hasNulls()) {
+                count = selectDense(vector, batch.getSize(), batch.getSelection());
+            } else {
+                count = selectSparse(vector, batch);
+            }
+
+            if (count > 0) {
+                batch.setSelection(count);
+                return batch;
+            }
+        }
+        return null;
+    }
+
+    private int selectDense(ColumnVector vector, int size, int[] selection) {
+        switch (type) {
+            case INT: {
+                // range was clamped to int bounds, except an empty one
+                if (longLo > longHi) {
+                    return negate ? kernels.selectIntRange(vector.getInts(), size, 1, 0, true, selection) : 0;
+                }
+                return kernels.selectIntRange(vector.getInts(), size, (int) longLo, (int) longHi, negate, selection);
+            }
+            case LONG:
+                return kernels.selectLongRange(vector.getLongs(), size, longLo, longHi, negate, selection);
+            default:
+                return kernels.selectDoubleRange(vector.getDoubles(), size, doubleLo, doubleHi, negate, selection);
+        }
+    }
+
+    // Rows already filtered or with nulls: walk the live rows one by one
+    private int selectSparse(ColumnVector vector, ColumnBatch batch) {
+        int[] selection = batch.getSelection();
+        boolean selected = batch.isSelectionActive();
+        int live = batch.getSelectedCount();
+
+        int count = 0;
+        for (int i = 0; i < live; i++) {
+            int row = selected ? selection[i] : i;
+            if (vector.isNull(row)) {
+                continue;
+            }
+
+            boolean inRange;
+            switch (type) {
+                case INT -> inRange = vector.getInts()[row] >= longLo && vector.getInts()[row] <= longHi;
+                case LONG -> inRange = vector.getLongs()[row] >= longLo && vector.getLongs()[row] <= longHi;
+                default -> inRange = vector.getDoubles()[row] >= doubleLo && vector.getDoubles()[row] <= doubleHi;
+            }
+
+            if (inRange != negate) {
+                selection[count++] = row;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        child.close();
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+}
@@ -0,0 +1,22 @@
+package sql.execution.vector;
+
+import sql.record.Schema;
+
+import java.io.IOException;
+
+/**
+ * Column-at-a-time counterpart of Operator.
+ * nextBatch() may return the same ColumnBatch object each call, refilled.
+ */
+public interface VectorOperator {
+    void open() throws IOException;
+
+    /**
+     * Returns the next batch, or null when exhausted.
+     */
+    ColumnBatch nextBatch() throws IOException;
+
+    void close() throws IOException;
+
+    Schema getSchema();
+}
@@ -0,0 +1,537 @@
+package sql.index;
+
+import sql.buffer.BufferPool;
+import sql.page.Page;
+import sql.page.PageType;
+import sql.record.RecordId;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Disk-resident extendible hash index from long keys to RecordIds, duplicates allowed.
+ *
+ * Like a TableHeap, the index owns a contiguous range of pages starting at its root page.
+ * All pages are INDEX pages: the root holds the global depth and the directory page ids,
+ * directory pages hold bucket page ids, bucket pages hold entries. The directory is also
+ * kept in memory, so a lookup reads one bucket page, plus the bucket's overflow chain
+ * when the key's hash is the one the chain holds.
+ *
+ * Entries sharing one hash cannot be separated by splitting, so when they fill most of
+ * a bucket they move to an overflow chain of their own. The bucket keeps taking other
+ * keys and splits as usual; a bucket has at most one chain.
+ *
+ * A full bucket splits on its own; doubling the directory only copies bucket page ids,
+ * so inserts never rehash the whole index. Emptied buckets are not merged.
+ */
+public class ExtendibleHashIndex {
+    public static final int MAX_GLOBAL_DEPTH = 19;
+
+    private static final int NO_PAGE = -1;
+
+    // Root page body
+    private static final int GLOBAL_DEPTH_OFFSET = Page.HEADER_SIZE;
+    private static final int NEXT_PAGE_ID_OFFSET = GLOBAL_DEPTH_OFFSET + 4;
+    private static final int DIRECTORY_PAGE_COUNT_OFFSET = NEXT_PAGE_ID_OFFSET + 4;
+    private static final int DIRECTORY_PAGE_IDS_OFFSET = DIRECTORY_PAGE_COUNT_OFFSET + 4;
+
+    // Directory page body: bucket page ids
+    static final int ENTRIES_PER_DIRECTORY_PAGE = (Page.PAGE_SIZE - Page.HEADER_SIZE) / 4;
+
+    // Bucket page body: local depth, entry count, overflow page, hash of every entry in the
+    // overflow chain, then key + pageId + slotId entries. Chain pages use the same layout.
+    private static final int LOCAL_DEPTH_OFFSET = Page.HEADER_SIZE;
+    private static final int COUNT_OFFSET = LOCAL_DEPTH_OFFSET + 4;
+    private static final int OVERFLOW_OFFSET = COUNT_OFFSET + 4;
+    private static final int CHAIN_HASH_OFFSET = OVERFLOW_OFFSET + 4;
+    private static final int ENTRIES_OFFSET = CHAIN_HASH_OFFSET + 4;
+    private static final int ENTRY_SIZE = 8 + 4 + 2;
+    static final int BUCKET_CAPACITY = (Page.PAGE_SIZE - ENTRIES_OFFSET) / ENTRY_SIZE;
+
+    private final BufferPool bufferPool;
+    private final int rootPageId;
+    private final ReadWriteLock latch = new ReentrantReadWriteLock();
+
+    private int globalDepth;
+    private volatile int nextPageId;
+    // Highest page the index may allocate, the page before whatever comes next on disk
+    private volatile int pageLimit = Integer.MAX_VALUE;
+    private int[] directoryPageIds;
+    // Bucket page id per hash suffix, mirrors the directory pages
+    private int[] directory;
+
+    /**
+     * Open the index rooted at rootPageId, creating an empty one if the page is not an index page yet.
+     */
+    public ExtendibleHashIndex(BufferPool bufferPool, int rootPageId) throws IOException {
+        this.bufferPool = bufferPool;
+        this.rootPageId = rootPageId;
+
+        Page root = bufferPool.fetchPage(rootPageId);
+        if (root.hasType(PageType.INDEX)) {
+            load(root);
+            bufferPool.unpinPage(rootPageId, false);
+        } else {
+            bufferPool.unpinPage(rootPageId, false);
+            create();
+        }
+    }
+
+    private void load(Page root) throws IOException {
+        ByteBuffer buffer = wrap(root);
+        globalDepth = buffer.getInt(GLOBAL_DEPTH_OFFSET);
+        nextPageId = buffer.getInt(NEXT_PAGE_ID_OFFSET);
+        directoryPageIds = new int[buffer.getInt(DIRECTORY_PAGE_COUNT_OFFSET)];
+        for (int i = 0; i < directoryPageIds.length; i++) {
+            directoryPageIds[i] = buffer.getInt(DIRECTORY_PAGE_IDS_OFFSET + i * 4);
+        }
+
+        directory = new int[1 << globalDepth];
+        for (int i = 0; i < directory.length; i += ENTRIES_PER_DIRECTORY_PAGE) {
+            int pageId = directoryPageIds[i / ENTRIES_PER_DIRECTORY_PAGE];
+            ByteBuffer entries = wrap(bufferPool.fetchPage(pageId));
+            int count = Math.min(ENTRIES_PER_DIRECTORY_PAGE, directory.length - i);
+            for (int j = 0; j < count; j++) {
+                directory[i + j] = entries.getInt(Page.HEADER_SIZE + j * 4);
+            }
+            bufferPool.unpinPage(pageId, false);
+        }
+    }
+
+    private void create() throws IOException {
+        globalDepth = 0;
+        nextPageId = rootPageId + 1;
+        directoryPageIds = new int[0];
+        directory = new int[]{newBucket(0)};
+
+        Page root = bufferPool.fetchPage(rootPageId);
+        root.initEmpty(rootPageId, PageType.INDEX);
+        bufferPool.unpinPage(rootPageId, true);
+
+        writeDirectory(0, 1, 1);
+        writeRoot();
+    }
+
+    public void insert(long key, RecordId rid) throws IOException {
+        insert(key, rid.toLong());
+    }
+
+    /**
+     * Insert with the RecordId in its packed form, see {@link RecordId#pack}.
+     */
+    public void insert(long key, long rid) throws IOException {
+        latch.writeLock().lock();
+        try {
+            int hash = hash(key);
+            while (true) {
+                int bucketId = directory[hash & mask()];
+                Page bucket = bufferPool.fetchPage(bucketId);
+                ByteBuffer buffer = wrap(bucket);
+
+                int count = buffer.getInt(COUNT_OFFSET);
+                if (count < BUCKET_CAPACITY) {
+                    putEntry(buffer, count, key, rid);
+                    buffer.putInt(COUNT_OFFSET, count + 1);
+                    bufferPool.unpinPage(bucketId, true);
+                    return;
+                }
+
+                int localDepth = buffer.getInt(LOCAL_DEPTH_OFFSET);
+                boolean hasChain = buffer.getInt(OVERFLOW_OFFSET) != NO_PAGE;
+                int chainHash = buffer.getInt(CHAIN_HASH_OFFSET);
+                int sameHash = countHash(buffer, count, hasChain ? chainHash : hash);
+                bufferPool.unpinPage(bucketId, false);
+
+                if (hasChain && chainHash == hash) {
+                    appendToChain(bucketId, hash, key, rid);
+                    return;
+                }
+                if (hasChain && sameHash > 0) {
+                    // entries for the chain's hash that arrived while the bucket had room make room now
+                    moveToChain(bucketId, chainHash);
+                    continue;
+                }
+                if (!hasChain && sameHash * 2 >= BUCKET_CAPACITY) {
+                    // a hot hash, splitting would never separate it from itself
+                    moveToChain(bucketId, hash);
+                    appendToChain(bucketId, hash, key, rid);
+                    return;
+                }
+
+                if (localDepth == globalDepth) {
+                    if (globalDepth == MAX_GLOBAL_DEPTH) {
+                        throw new IllegalStateException("Hash index directory is full at depth " + globalDepth);
+                    }
+                    doubleDirectory();
+                }
+                split(bucketId, hash);
+            }
+        } finally {
+            latch.writeLock().unlock();
+        }
+    }
+
+    // Remove one entry for key and rid, returns false if it was not indexed
+    public boolean delete(long key, RecordId rid) throws IOException {
+        return delete(key, rid.toLong());
+    }
+
+    public boolean delete(long key, long rid) throws IOException {
+        latch.writeLock().lock();
+        try {
+            int hash = hash(key);
+            int pageId = directory[hash & mask()];
+            boolean primary = true;
+            while (pageId != NO_PAGE) {
+                Page page = bufferPool.fetchPage(pageId);
+                ByteBuffer buffer = wrap(page);
+                int count = buffer.getInt(COUNT_OFFSET);
+
+                for (int i = 0; i < count; i++) {
+                    if (entryKey(buffer, i) == key && entryRecordId(buffer, i) == rid) {
+                        // move the last entry into the gap
+                        int last = count - 1;
+                        putEntry(buffer, i, entryKey(buffer, last), entryRecordId(buffer, last));
+                        buffer.putInt(COUNT_OFFSET, last);
+                        bufferPool.unpinPage(pageId, true);
+                        return true;
+                    }
+                }
+
+                int overflow = nextPage(buffer, primary, hash);
+                primary = false;
+                bufferPool.unpinPage(pageId, false);
+                pageId = overflow;
+            }
+            return false;
+        } finally {
+            latch.writeLock().unlock();
+        }
+    }
+
+    public List<RecordId> find(long key) throws IOException {
+        long[] packed = findPacked(key);
+        List<RecordId> result = new ArrayList<>(packed.length);
+        for (long rid : packed) {
+            result.add(RecordId.fromLong(rid));
+        }
+        return result;
+    }
+
+    /**
+     * Like find, but returns packed RecordIds without creating objects for them.
+     */
+    public long[] findPacked(long key) throws IOException {
+        latch.readLock().lock();
+        try {
+            long[] result = new long[1];
+            int found = 0;
+            int hash = hash(key);
+            int pageId = directory[hash & mask()];
+            boolean primary = true;
+            while (pageId != NO_PAGE) {
+                ByteBuffer buffer = wrap(bufferPool.fetchPage(pageId));
+                int count = buffer.getInt(COUNT_OFFSET);
+                for (int i = 0; i < count; i++) {
+                    if (entryKey(buffer, i) == key) {
+                        if (found == result.length) {
+                            result = Arrays.copyOf(result, found * 2);
+                        }
+                        result[found++] = entryRecordId(buffer, i);
+                    }
+                }
+
+                int overflow = nextPage(buffer, primary, hash);
+                primary = false;
+                bufferPool.unpinPage(pageId, false);
+                pageId = overflow;
+            }
+            return found == result.length ? result : Arrays.copyOf(result, found);
+        } finally {
+            latch.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lookup to feed an IndexScan, it runs each time the scan is opened.
+     */
+    public Iterable<RecordId> lookup(long key) {
+        return () -> {
+            try {
+                return find(key).iterator();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    public int getGlobalDepth() {
+        return globalDepth;
+    }
+
+    // Pages used so far, including root and directory pages
+    public int getPageCount() {
+        return nextPageId - rootPageId;
+    }
+
+    // Last page allocated so far
+    public int getLastPageId() {
+        return nextPageId - 1;
+    }
+
+    public int getPageLimit() {
+        return pageLimit;
+    }
+
+    public void setPageLimit(int pageLimit) {
+        if (pageLimit < getLastPageId()) {
+            throw new IllegalArgumentException("Page limit " + pageLimit + " is below the last page " + getLastPageId());
+        }
+        this.pageLimit = pageLimit;
+    }
+
+    private int mask() {
+        return (1 << globalDepth) - 1;
+    }
+
+    // Extendible hashing reads the low bits, so mix all key bits into them
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static int countHash(ByteBuffer buffer, int count, int hash) {
+        int matching = 0;
+        for (int i = 0; i < count; i++) {
+            if (hash(entryKey(buffer, i)) == hash) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    // Page to read after this one, the chain only holds keys with the chain's hash
+    private static int nextPage(ByteBuffer buffer, boolean primary, int hash) {
+        if (primary && buffer.getInt(CHAIN_HASH_OFFSET) != hash) {
+            return NO_PAGE;
+        }
+        return buffer.getInt(OVERFLOW_OFFSET);
+    }
+
+    private void doubleDirectory() throws IOException {
+        int size = directory.length;
+        directory = Arrays.copyOf(directory, size * 2);
+        System.arraycopy(directory, 0, directory, size, size);
+        globalDepth++;
+
+        writeDirectory(size, directory.length, 1);
+        writeRoot();
+    }
+
+    /**
+     * Split the bucket holding hash into itself and a new bucket one bit deeper.
+     * Every entry of the overflow chain shares one hash, so the chain moves as a whole.
+     */
+    private void split(int bucketId, int hash) throws IOException {
+        Page bucket = bufferPool.fetchPage(bucketId);
+        ByteBuffer buffer = wrap(bucket);
+        int localDepth = buffer.getInt(LOCAL_DEPTH_OFFSET);
+        int count = buffer.getInt(COUNT_OFFSET);
+        int highBit = 1 << localDepth;
+
+        int newBucketId = newBucket(localDepth + 1);
+        Page sibling = bufferPool.fetchPage(newBucketId);
+        ByteBuffer siblingBuffer = wrap(sibling);
+
+        int kept = 0;
+        int moved = 0;
+        for (int i = 0; i < count; i++) {
+            long key = entryKey(buffer, i);
+            long rid = entryRecordId(buffer, i);
+            if ((hash(key) & highBit) != 0) {
+                putEntry(siblingBuffer, moved++, key, rid);
+            } else {
+                putEntry(buffer, kept++, key, rid);
+            }
+        }
+
+        int overflow = buffer.getInt(OVERFLOW_OFFSET);
+        int chainHash = buffer.getInt(CHAIN_HASH_OFFSET);
+        if (overflow != NO_PAGE && (chainHash & highBit) != 0) {
+            siblingBuffer.putInt(OVERFLOW_OFFSET, overflow);
+            siblingBuffer.putInt(CHAIN_HASH_OFFSET, chainHash);
+            buffer.putInt(OVERFLOW_OFFSET, NO_PAGE);
+        }
+
+        buffer.putInt(LOCAL_DEPTH_OFFSET, localDepth + 1);
+        buffer.putInt(COUNT_OFFSET, kept);
+        siblingBuffer.putInt(COUNT_OFFSET, moved);
+        bufferPool.unpinPage(bucketId, true);
+        bufferPool.unpinPage(newBucketId, true);
+
+        // every directory slot with this bucket's suffix and the new bit set points to the sibling
+        int first = (hash & (highBit - 1)) | highBit;
+        for (int i = first; i < directory.length; i += highBit << 1) {
+            directory[i] = newBucketId;
+        }
+        writeDirectory(first, directory.length, highBit << 1);
+    }
+
+    // Move the bucket's entries with the given hash to its overflow chain, starting one if needed
+    private void moveToChain(int bucketId, int hash) throws IOException {
+        ByteBuffer buffer = wrap(bufferPool.fetchPage(bucketId));
+        int count = buffer.getInt(COUNT_OFFSET);
+
+        long[] moved = new long[count * 2];
+        int movedCount = 0;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            long key = entryKey(buffer, i);
+            long rid = entryRecordId(buffer, i);
+            if (hash(key) == hash) {
+                moved[movedCount * 2] = key;
+                moved[movedCount * 2 + 1] = rid;
+                movedCount++;
+            } else {
+                putEntry(buffer, kept++, key, rid);
+            }
+        }
+        buffer.putInt(COUNT_OFFSET, kept);
+        bufferPool.unpinPage(bucketId, true);
+
+        for (int i = 0; i < movedCount; i++) {
+            appendToChain(bucketId, hash, moved[i * 2], moved[i * 2 + 1]);
+        }
+    }
+
+    /**
+     * Add an entry to the bucket's overflow chain. Only the first chain page can have room,
+     * a new page goes in front of it, so adding never walks the chain.
+     */
+    private void appendToChain(int bucketId, int hash, long key, long rid) throws IOException {
+        ByteBuffer bucket = wrap(bufferPool.fetchPage(bucketId));
+        int head = bucket.getInt(OVERFLOW_OFFSET);
+        if (head != NO_PAGE) {
+            ByteBuffer buffer = wrap(bufferPool.fetchPage(head));
+            int count = buffer.getInt(COUNT_OFFSET);
+            if (count < BUCKET_CAPACITY) {
+                putEntry(buffer, count, key, rid);
+                buffer.putInt(COUNT_OFFSET, count + 1);
+                bufferPool.unpinPage(head, true);
+                bufferPool.unpinPage(bucketId, false);
+                return;
+            }
+            bufferPool.unpinPage(head, false);
+        }
+
+        int pageId = newBucket(bucket.getInt(LOCAL_DEPTH_OFFSET));
+        ByteBuffer buffer = wrap(bufferPool.fetchPage(pageId));
+        putEntry(buffer, 0, key, rid);
+        buffer.putInt(COUNT_OFFSET, 1);
+        buffer.putInt(OVERFLOW_OFFSET, head);
+        bufferPool.unpinPage(pageId, true);
+
+        bucket.putInt(OVERFLOW_OFFSET, pageId);
+        bucket.putInt(CHAIN_HASH_OFFSET, hash);
+        bufferPool.unpinPage(bucketId, true);
+    }
+
+    private int newBucket(int localDepth) throws IOException {
+        int pageId = allocatePage();
+        Page page = bufferPool.fetchPage(pageId);
+        page.initEmpty(pageId, PageType.INDEX);
+        ByteBuffer buffer = wrap(page);
+        buffer.putInt(LOCAL_DEPTH_OFFSET, localDepth);
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(OVERFLOW_OFFSET, NO_PAGE);
+        bufferPool.unpinPage(pageId, true);
+        return pageId;
+    }
+
+    // The root records every allocation, so a reopened index never hands out a used page again
+    private int allocatePage() throws IOException {
+        if (nextPageId > pageLimit) {
+            throw new IllegalStateException("Index pages " + rootPageId + ".." + pageLimit + " are full");
+        }
+        int pageId = nextPageId++;
+        writeRoot();
+        return pageId;
+    }
+
+    // Write directory[from, to) with the given stride to the directory pages, adding pages as needed
+    private void writeDirectory(int from, int to, int stride) throws IOException {
+        int needed = (directory.length + ENTRIES_PER_DIRECTORY_PAGE - 1) / ENTRIES_PER_DIRECTORY_PAGE;
+        if (needed > directoryPageIds.length) {
+            int old = directoryPageIds.length;
+            directoryPageIds = Arrays.copyOf(directoryPageIds, needed);
+            for (int i = old; i < needed; i++) {
+                int pageId = allocatePage();
+                Page page = bufferPool.fetchPage(pageId);
+                page.initEmpty(pageId, PageType.INDEX);
+                bufferPool.unpinPage(pageId, true);
+                directoryPageIds[i] = pageId;
+            }
+            writeRoot();
+        }
+
+        int currentPage = NO_PAGE;
+        ByteBuffer buffer = null;
+        for (int i = from; i < to; i += stride) {
+            int pageId = directoryPageIds[i / ENTRIES_PER_DIRECTORY_PAGE];
+            if (pageId != currentPage) {
+                if (currentPage != NO_PAGE) {
+                    bufferPool.unpinPage(currentPage, true);
+                }
+                buffer = wrap(bufferPool.fetchPage(pageId));
+                currentPage = pageId;
+            }
+            buffer.putInt(Page.HEADER_SIZE + (i % ENTRIES_PER_DIRECTORY_PAGE) * 4, directory[i]);
+        }
+        if (currentPage != NO_PAGE) {
+            bufferPool.unpinPage(currentPage, true);
+        }
+    }
+
+    private void writeRoot() throws IOException {
+        ByteBuffer buffer = wrap(bufferPool.fetchPage(rootPageId));
+        buffer.putInt(GLOBAL_DEPTH_OFFSET, globalDepth);
+        buffer.putInt(NEXT_PAGE_ID_OFFSET, nextPageId);
+        buffer.putInt(DIRECTORY_PAGE_COUNT_OFFSET, directoryPageIds.length);
+        for (int i = 0; i < directoryPageIds.length; i++) {
+            buffer.putInt(DIRECTORY_PAGE_IDS_OFFSET + i * 4, directoryPageIds[i]);
+        }
+        bufferPool.unpinPage(rootPageId, true);
+    }
+
+    private static ByteBuffer wrap(Page page) {
+        return ByteBuffer.wrap(page.getData()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long entryKey(ByteBuffer buffer, int index) {
+        return buffer.getLong(ENTRIES_OFFSET + index * ENTRY_SIZE);
+    }
+
+    // Entries hold the packed RecordId as its pageId and slotId, 6 bytes
+    private static long entryRecordId(ByteBuffer buffer, int index) {
+        int offset = ENTRIES_OFFSET + index * ENTRY_SIZE;
+        return RecordId.pack(buffer.getInt(offset + 8), buffer.getShort(offset + 12));
+    }
+
+    private static void putEntry(ByteBuffer buffer, int index, long key, long rid) {
+        int offset = ENTRIES_OFFSET + index * ENTRY_SIZE;
+        buffer.putLong(offset, key);
+        buffer.putInt(offset + 8, RecordId.pageIdOf(rid));
+        buffer.putShort(offset + 12, RecordId.slotIdOf(rid));
+    }
+}
@@ -0,0 +1,30 @@
+package sql.metrics;
+
+/**
+ * JMX view of a BufferPool, registered as sqleminh:type=BufferPool,name=...
+ */
+public interface BufferPoolMXBean {
+    int getCapacity();
+
+    int getResidentPages();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRatio();
+
+    long getCleanEvictions();
+
+    long getDirtyEvictions();
+
+    long getPinnedStalls();
+
+    long getMissLatencyP50Nanos();
+
+    long getMissLatencyP99Nanos();
+
+    long getMissLatencyMaxNanos();
+
+    void reset();
+}
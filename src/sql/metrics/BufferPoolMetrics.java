@@ -0,0 +1,145 @@
+package sql.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters for one BufferPool. Hits only bump a LongAdder; misses are also timed,
+ * from the lookup to the page being resident, including any eviction write-back.
+ */
+public class BufferPoolMetrics implements BufferPoolMXBean {
+    private final int capacity;
+    private final IntSupplier residentPages;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder cleanEvictions = new LongAdder();
+    private final LongAdder dirtyEvictions = new LongAdder();
+    // Pinned frames an eviction had to pass over before finding a victim
+    private final LongAdder pinnedStalls = new LongAdder();
+    private final LatencyHistogram missLatency = new LatencyHistogram();
+
+    public BufferPoolMetrics(int capacity, IntSupplier residentPages) {
+        this.capacity = capacity;
+        this.residentPages = residentPages;
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss(long nanos) {
+        misses.increment();
+        missLatency.record(nanos);
+    }
+
+    public void recordEviction(int pageId, boolean dirty) {
+        if (dirty) {
+            dirtyEvictions.increment();
+        } else {
+            cleanEvictions.increment();
+        }
+
+        PageEvictEvent event = new PageEvictEvent();
+        if (event.shouldCommit()) {
+            event.pageId = pageId;
+            event.dirty = dirty;
+            event.commit();
+        }
+    }
+
+    /**
+     * An eviction passed over skipped pinned frames; the event was begun when the victim search started.
+     */
+    public void recordPinnedStalls(PinnedStallEvent event, int skipped) {
+        if (skipped == 0) {
+            return;
+        }
+        pinnedStalls.add(skipped);
+
+        if (event.shouldCommit()) {
+            event.skipped = skipped;
+            event.residentPages = getResidentPages();
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getMissLatency() {
+        return missLatency;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getResidentPages() {
+        return residentPages.getAsInt();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public long getCleanEvictions() {
+        return cleanEvictions.sum();
+    }
+
+    @Override
+    public long getDirtyEvictions() {
+        return dirtyEvictions.sum();
+    }
+
+    @Override
+    public long getPinnedStalls() {
+        return pinnedStalls.sum();
+    }
+
+    @Override
+    public long getMissLatencyP50Nanos() {
+        return missLatency.getPercentileNanos(50);
+    }
+
+    @Override
+    public long getMissLatencyP99Nanos() {
+        return missLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getMissLatencyMaxNanos() {
+        return missLatency.getMaxNanos();
+    }
+
+    @Override
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        cleanEvictions.reset();
+        dirtyEvictions.reset();
+        pinnedStalls.reset();
+        missLatency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRatio=%.3f evictions(clean=%d dirty=%d) pinnedStalls=%d"
+                        + " missLatency(p50=%dns p99=%dns max=%dns)",
+                getHits(), getMisses(), getHitRatio(), getCleanEvictions(), getDirtyEvictions(),
+                getPinnedStalls(), getMissLatencyP50Nanos(), getMissLatencyP99Nanos(), getMissLatencyMaxNanos());
+    }
+}
@@ -0,0 +1,34 @@
+package sql.metrics;
+
+/**
+ * JMX view of a DiskManager, registered as sqleminh:type=DiskManager,name=...
+ */
+public interface DiskManagerMXBean {
+    long getPageReads();
+
+    long getPageWrites();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getFsyncs();
+
+    long getReadLatencyP50Nanos();
+
+    long getReadLatencyP99Nanos();
+
+    long getReadLatencyMaxNanos();
+
+    long getWriteLatencyP50Nanos();
+
+    long getWriteLatencyP99Nanos();
+
+    long getWriteLatencyMaxNanos();
+
+    long getFsyncLatencyP99Nanos();
+
+    long getFsyncLatencyMaxNanos();
+
+    void reset();
+}
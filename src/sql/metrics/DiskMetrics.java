@@ -0,0 +1,133 @@
+package sql.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies for one DiskManager. Bytes are what moved to or from the file,
+ * so with compression they show the I/O actually saved.
+ */
+public class DiskMetrics implements DiskManagerMXBean {
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LatencyHistogram readLatency = new LatencyHistogram();
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+    private final LatencyHistogram fsyncLatency = new LatencyHistogram();
+
+    public void recordRead(int bytes, long nanos) {
+        reads.increment();
+        bytesRead.add(bytes);
+        readLatency.record(nanos);
+    }
+
+    public void recordWrite(int bytes, long nanos) {
+        writes.increment();
+        bytesWritten.add(bytes);
+        writeLatency.record(nanos);
+    }
+
+    public void recordFsync(long nanos) {
+        fsyncs.increment();
+        fsyncLatency.record(nanos);
+    }
+
+    public LatencyHistogram getReadLatency() {
+        return readLatency;
+    }
+
+    public LatencyHistogram getWriteLatency() {
+        return writeLatency;
+    }
+
+    public LatencyHistogram getFsyncLatency() {
+        return fsyncLatency;
+    }
+
+    @Override
+    public long getPageReads() {
+        return reads.sum();
+    }
+
+    @Override
+    public long getPageWrites() {
+        return writes.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getFsyncs() {
+        return fsyncs.sum();
+    }
+
+    @Override
+    public long getReadLatencyP50Nanos() {
+        return readLatency.getPercentileNanos(50);
+    }
+
+    @Override
+    public long getReadLatencyP99Nanos() {
+        return readLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getReadLatencyMaxNanos() {
+        return readLatency.getMaxNanos();
+    }
+
+    @Override
+    public long getWriteLatencyP50Nanos() {
+        return writeLatency.getPercentileNanos(50);
+    }
+
+    @Override
+    public long getWriteLatencyP99Nanos() {
+        return writeLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getWriteLatencyMaxNanos() {
+        return writeLatency.getMaxNanos();
+    }
+
+    @Override
+    public long getFsyncLatencyP99Nanos() {
+        return fsyncLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getFsyncLatencyMaxNanos() {
+        return fsyncLatency.getMaxNanos();
+    }
+
+    @Override
+    public void reset() {
+        reads.reset();
+        writes.reset();
+        bytesRead.reset();
+        bytesWritten.reset();
+        fsyncs.reset();
+        readLatency.reset();
+        writeLatency.reset();
+        fsyncLatency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("reads=%d (%d bytes, p50=%dns p99=%dns max=%dns) writes=%d (%d bytes, p50=%dns p99=%dns"
+                        + " max=%dns) fsyncs=%d (p99=%dns)",
+                getPageReads(), getBytesRead(), getReadLatencyP50Nanos(), getReadLatencyP99Nanos(),
+                getReadLatencyMaxNanos(), getPageWrites(), getBytesWritten(), getWriteLatencyP50Nanos(),
+                getWriteLatencyP99Nanos(), getWriteLatencyMaxNanos(), getFsyncs(), getFsyncLatencyP99Nanos());
+    }
+}
@@ -0,0 +1,39 @@
+package sql.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers metrics with the platform MBean server under the sqleminh domain.
+ */
+public final class Jmx {
+    private Jmx() {
+    }
+
+    public static ObjectName register(String type, String name, Object mbean) {
+        try {
+            ObjectName objectName = ObjectName.getInstance("sqleminh:type=" + type + ",name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + type + " " + name + " with JMX", e);
+        }
+    }
+
+    public static void unregister(ObjectName objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister " + objectName, e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package sql.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("sqleminh.PageEvict")
+@Label("Page Eviction")
+@Category({"sqleminh", "Buffer Pool"})
+@Description("A buffer pool frame was freed; dirty victims were written back first")
+public class PageEvictEvent extends jdk.jfr.Event {
+    @Label("Page Id")
+    public int pageId;
+
+    @Label("Dirty")
+    public boolean dirty;
+}
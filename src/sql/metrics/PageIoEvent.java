@@ -0,0 +1,27 @@
+package sql.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("sqleminh.PageIo")
+@Label("Page I/O")
+@Category({"sqleminh", "Disk"})
+@Description("A page read, page write or fsync in a DiskManager")
+public class PageIoEvent extends jdk.jfr.Event {
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+    public static final String FSYNC = "fsync";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Page Id")
+    public int pageId;
+
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+}
@@ -0,0 +1,18 @@
+package sql.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("sqleminh.PinnedStall")
+@Label("Pinned Frame Stall")
+@Category({"sqleminh", "Buffer Pool"})
+@Description("Eviction had to pass over pinned frames; the duration covers the whole victim search")
+public class PinnedStallEvent extends jdk.jfr.Event {
+    @Label("Pinned Frames Skipped")
+    public int skipped;
+
+    @Label("Resident Pages")
+    public int residentPages;
+}
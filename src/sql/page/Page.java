@@ -8,6 +8,12 @@ public class Page {
     public static final int PAGE_SIZE = 4096;
     public static final int HEADER_SIZE = 16;
     public static final int SLOT_SIZE = 4;
+    // Forwarding stub: target pageId (int) + slotId (short)
+    public static final int FORWARD_SIZE = 6;
+    // Every record reserves room for a stub so it can always be forwarded
+    public static final int MIN_RECORD_SIZE = FORWARD_SIZE;
+    // An empty page's free space already excludes slot 0, and hasSpaceFor adds the new slot again
+    public static final int MAX_RECORD_SIZE = PAGE_SIZE - HEADER_SIZE - 2 * SLOT_SIZE;
 
     // Header byte offsets
     private static final int PAGE_ID_OFFSET = 0;
@@ -76,6 +82,11 @@ public class Page {
         return PageType.from(buffer.get(PAGE_TYPE_OFFSET));
     }
 
+    // Unlike getPageType, also works on pages that were never initialized
+    public boolean hasType(PageType type) {
+        return buffer.get(PAGE_TYPE_OFFSET) == type.code;
+    }
+
     private void setPageType(PageType pageType) {
         buffer.put(PAGE_TYPE_OFFSET, pageType.code);
     }
@@ -128,14 +139,19 @@ public class Page {
     public Slot getSlot(int slotIndex) {
         int pos = slotPosition(slotIndex);
         short offset = buffer.getShort(pos);
-        short length = buffer.getShort(pos + 2);
-        return new Slot(offset, length);
+        short rawLength = buffer.getShort(pos + 2);
+        return new Slot(offset, (short) (rawLength & Slot.LENGTH_MASK), (short) (rawLength & ~Slot.LENGTH_MASK));
     }
 
     private void setSlot(int slotIndex, short offset, short length) {
+        setSlot(slotIndex, offset, length, (short) 0);
+    }
+
+    // Flags share the length field, lengths never exceed LENGTH_MASK
+    private void setSlot(int slotIndex, short offset, short length, short flags) {
         int pos = slotPosition(slotIndex);
         buffer.putShort(pos, offset);
-        buffer.putShort(pos + 2, length);
+        buffer.putShort(pos + 2, (short) (length | flags));
     }
 
     // Get "deleted" slot
@@ -151,7 +167,12 @@ public class Page {
     }
 
     public boolean hasSpaceFor(int recordSize) {
-        return getFreeSpaceLeft() >= recordSize + SLOT_SIZE;
+        return getFreeSpaceLeft() >= allocationSize(recordSize) + SLOT_SIZE;
+    }
+
+    // Bytes a record occupies on the page
+    private static int allocationSize(int recordSize) {
+        return Math.max(recordSize, MIN_RECORD_SIZE);
     }
 
     /**
@@ -173,8 +194,8 @@ public class Page {
 
         // init record data with known length
         byte[] record = new byte[length];
-        // Pipe bytes to record variable
-        buffer.position(offset).get(record);
+        // Absolute copy, so concurrent readers of the page do not share the buffer position
+        buffer.get(offset, record);
 
         return record;
     }
@@ -183,6 +204,13 @@ public class Page {
      * Insert a raw record into the page.
      */
     public int insertRecord(byte[] recordBytes) {
+        return insertRecord(recordBytes, false);
+    }
+
+    /**
+     * Insert a record, optionally flagged as relocated from another page.
+     */
+    public int insertRecord(byte[] recordBytes, boolean relocated) {
         int recordSize = recordBytes.length;
 
         if (!hasSpaceFor(recordSize)) {
@@ -203,9 +231,9 @@ public class Page {
         buffer.position(recordOffset).put(recordBytes);
 
         // Write slot data (grows from bottom)
-        setSlot(slotIndex, recordOffset, (short) recordSize);
+        setSlot(slotIndex, recordOffset, (short) recordSize, relocated ? Slot.FLAG_RELOCATED : 0);
         // Update free space index for the next record bytes to start
-        setFreeSpaceOffset((short) (recordOffset + recordSize));
+        setFreeSpaceOffset((short) (recordOffset + allocationSize(recordSize)));
 
         return slotIndex;
     }
@@ -217,6 +245,10 @@ public class Page {
             throw new IllegalStateException("Cannot write to deleted slot");
         }
 
+        if (slot.isForwarded()) {
+            throw new IllegalStateException("Cannot write to forwarded slot");
+        }
+
         if (recordBytes.length > slot.getLength()) {
             throw new IllegalArgumentException("Record too large for slot");
         }
@@ -224,7 +256,126 @@ public class Page {
         buffer.position(slot.getOffset()).put(recordBytes);
 
         // In case recordBytes length is shorter than the original
-        setSlot(slotIndex, slot.getOffset(), (short) recordBytes.length);
+        setSlot(slotIndex, slot.getOffset(), (short) recordBytes.length, slot.getFlags());
+    }
+
+    /**
+     * Replace a record keeping its slot index.
+     * Overwrites in place when it fits, otherwise moves the bytes to free space
+     * on this page (compacting if needed). Returns false if the page has no room.
+     */
+    public boolean updateRecord(int slotIndex, byte[] recordBytes) {
+        Slot slot = getSlot(slotIndex);
+
+        if (slot.isDeleted()) {
+            throw new IllegalStateException("Cannot update deleted slot");
+        }
+
+        // The slot holds data again, so a forwarding flag is dropped
+        short flags = (short) (slot.getFlags() & Slot.FLAG_RELOCATED);
+        return rewriteRecord(slotIndex, slot, recordBytes, flags);
+    }
+
+    /**
+     * Turn a slot into a stub pointing at the record's new location.
+     */
+    public void forwardRecord(int slotIndex, int targetPageId, short targetSlotId) {
+        Slot slot = getSlot(slotIndex);
+
+        if (slot.isDeleted()) {
+            throw new IllegalStateException("Cannot forward deleted slot");
+        }
+
+        byte[] stub = new byte[FORWARD_SIZE];
+        ByteBuffer.wrap(stub).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(targetPageId)
+                .putShort(targetSlotId);
+
+        // Every record reserves MIN_RECORD_SIZE bytes, so a stub always fits
+        if (!rewriteRecord(slotIndex, slot, stub, Slot.FLAG_FORWARDED)) {
+            throw new IllegalStateException("No room for forwarding stub in slot " + slotIndex);
+        }
+    }
+
+    public int getForwardPageId(int slotIndex) {
+        Slot slot = forwardedSlot(slotIndex);
+        return buffer.getInt(slot.getOffset());
+    }
+
+    public short getForwardSlotId(int slotIndex) {
+        Slot slot = forwardedSlot(slotIndex);
+        return buffer.getShort(slot.getOffset() + 4);
+    }
+
+    private Slot forwardedSlot(int slotIndex) {
+        Slot slot = getSlot(slotIndex);
+        if (!slot.isForwarded()) {
+            throw new IllegalStateException("Slot " + slotIndex + " is not forwarded");
+        }
+        return slot;
+    }
+
+    private boolean rewriteRecord(int slotIndex, Slot slot, byte[] recordBytes, short flags) {
+        int recordSize = recordBytes.length;
+
+        // Fits in the bytes the slot already owns
+        if (recordSize <= allocationSize(slot.getLength())) {
+            buffer.position(slot.getOffset()).put(recordBytes);
+            setSlot(slotIndex, slot.getOffset(), (short) recordSize, flags);
+            return true;
+        }
+
+        int required = allocationSize(recordSize);
+        if (getFreeSpaceLeft() < required) {
+            // Dead space left by deletes and moved records, plus this slot's own bytes
+            if (compactedFreeSpace(slotIndex) < required) {
+                return false;
+            }
+            compact(slotIndex);
+        }
+
+        short recordOffset = getFreeSpaceOffset();
+        buffer.position(recordOffset).put(recordBytes);
+        setSlot(slotIndex, recordOffset, (short) recordSize, flags);
+        setFreeSpaceOffset((short) (recordOffset + required));
+        return true;
+    }
+
+    // Free space after compaction if the given slot's bytes were dropped
+    private int compactedFreeSpace(int excludedSlot) {
+        int used = 0;
+        int slotCount = getSlotCount();
+        for (int i = 0; i < slotCount; i++) {
+            Slot slot = getSlot(i);
+            if (i != excludedSlot && !slot.isDeleted()) {
+                used += allocationSize(slot.getLength());
+            }
+        }
+        return slotPosition(slotCount) - HEADER_SIZE - used;
+    }
+
+    /**
+     * Move live records to the top of the page so free space is contiguous.
+     * Slot indexes do not change. The excluded slot's bytes are dropped,
+     * the caller rewrites it right after.
+     */
+    private void compact(int excludedSlot) {
+        int slotCount = getSlotCount();
+        byte[] copy = data.clone();
+        short nextOffset = HEADER_SIZE;
+
+        for (int i = 0; i < slotCount; i++) {
+            Slot slot = getSlot(i);
+            if (i == excludedSlot || slot.isDeleted()) {
+                continue;
+            }
+
+            System.arraycopy(copy, slot.getOffset(), data, nextOffset, slot.getLength());
+            setSlot(i, nextOffset, slot.getLength(), slot.getFlags());
+            nextOffset += allocationSize(slot.getLength());
+        }
+
+        setFreeSpaceOffset(nextOffset);
     }
 
     /**
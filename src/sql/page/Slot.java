@@ -3,14 +3,26 @@ package sql.page;
 public class Slot {
     public static final int Size = 4;
 
+    // Flag bits kept in the high bits of the on-page length field
+    public static final short FLAG_FORWARDED = (short) 0x8000;
+    public static final short FLAG_RELOCATED = 0x4000;
+    public static final short LENGTH_MASK = 0x3FFF;
+
     // Where the record starts in the page
     private final short offset;
     // How many bytes the record uses
     private final short length;
+    // Forwarding / relocation flags
+    private final short flags;
 
     public Slot(short offset, short length) {
+        this(offset, length, (short) 0);
+    }
+
+    public Slot(short offset, short length, short flags) {
         this.offset = offset;
         this.length = length;
+        this.flags = flags;
     }
 
     public short getOffset() {
@@ -21,12 +33,26 @@ public class Slot {
         return length;
     }
 
+    public short getFlags() {
+        return flags;
+    }
+
     public boolean isDeleted() {
         return offset < 0;
     }
 
+    // Slot holds a stub pointing at the record's current location
+    public boolean isForwarded() {
+        return (flags & FLAG_FORWARDED) != 0;
+    }
+
+    // Record was moved here from its home slot, reached only through a stub
+    public boolean isRelocated() {
+        return (flags & FLAG_RELOCATED) != 0;
+    }
+
     @Override
     public String toString() {
-        return "Slot[offset=" + offset + ", length=" + length + "]";
+        return "Slot[offset=" + offset + ", length=" + length + ", flags=" + flags + "]";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package sql.query;
+
+/**
+ * Comparison operators of WHERE clauses. NULL compares as neither equal nor unequal
+ * to anything, so only the IS [NOT] NULL tests match it.
+ */
+enum Comparison {
+    EQ, NE, LT, LE, GT, GE, IS_NULL, IS_NOT_NULL;
+
+    static Comparison fromSymbol(String symbol) {
+        return switch (symbol) {
+            case "=" -> EQ;
+            case "<>", "!=" -> NE;
+            case "<" -> LT;
+            case "<=" -> LE;
+            case ">" -> GT;
+            case ">=" -> GE;
+            default -> null;
+        };
+    }
+
+    // Whether the result of compareTo(column value, operand) satisfies this comparison
+    boolean test(int cmp) {
+        return switch (this) {
+            case EQ -> cmp == 0;
+            case NE -> cmp != 0;
+            case LT -> cmp < 0;
+            case LE -> cmp <= 0;
+            case GT -> cmp > 0;
+            case GE -> cmp >= 0;
+            case IS_NULL, IS_NOT_NULL -> throw new IllegalStateException(this + " takes no operand");
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package sql.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits SQL text into tokens. Keywords are case-insensitive and come out upper case,
+ * identifiers keep their case. "--" starts a comment running to the end of the line.
+ */
+final class Lexer {
+    enum Type {
+        KEYWORD, IDENTIFIER, INTEGER, DECIMAL, STRING, PARAMETER, SYMBOL, END
+    }
+
+    record Token(Type type, String text, int position) {
+        boolean is(Type type, String text) {
+            return this.type == type && this.text.equals(text);
+        }
+    }
+
+    private static final Set<String> KEYWORDS = Set.of(
+            "SELECT", "FROM", "WHERE", "AND", "ORDER", "BY", "ASC", "DESC", "LIMIT",
+            "INSERT", "INTO", "VALUES", "UPDATE", "SET", "DELETE", "IS", "NOT", "NULL");
+
+    private static final Set<String> SYMBOLS = Set.of(
+            "=", "<>", "!=", "<", "<=", ">", ">=", ",", "(", ")", "*", ";", "-");
+
+    private Lexer() {
+    }
+
+    static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = sql.charAt(i);
+            int start = i;
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+                String word = sql.substring(start, i);
+                String upper = word.toUpperCase();
+                tokens.add(KEYWORDS.contains(upper)
+                        ? new Token(Type.KEYWORD, upper, start)
+                        : new Token(Type.IDENTIFIER, word, start));
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                boolean decimal = false;
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    if (sql.charAt(i) == '.') {
+                        if (decimal) {
+                            throw error("Malformed number", start);
+                        }
+                        decimal = true;
+                    }
+                    i++;
+                }
+                tokens.add(new Token(decimal ? Type.DECIMAL : Type.INTEGER, sql.substring(start, i), start));
+            } else if (c == '\'') {
+                // '' inside a string is a quote
+                StringBuilder string = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw error("Unterminated string", start);
+                    }
+                    char s = sql.charAt(i++);
+                    if (s == '\'') {
+                        if (i < length && sql.charAt(i) == '\'') {
+                            string.append('\'');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        string.append(s);
+                    }
+                }
+                tokens.add(new Token(Type.STRING, string.toString(), start));
+            } else if (c == '?') {
+                tokens.add(new Token(Type.PARAMETER, "?", start));
+                i++;
+            } else if (i + 1 < length && SYMBOLS.contains(sql.substring(i, i + 2))) {
+                tokens.add(new Token(Type.SYMBOL, sql.substring(i, i + 2), start));
+                i += 2;
+            } else if (SYMBOLS.contains(String.valueOf(c))) {
+                tokens.add(new Token(Type.SYMBOL, String.valueOf(c), start));
+                i++;
+            } else {
+                throw error("Unexpected character '" + c + "'", start);
+            }
+        }
+
+        tokens.add(new Token(Type.END, "", length));
+        return tokens;
+    }
+
+    /**
+     * Canonical text of a statement: one space between tokens, keywords upper case and
+     * "!=" spelled "<>". Statements differing only in layout or keyword case normalize
+     * to the same text, so they share a cached plan.
+     */
+    static String normalize(List<Token> tokens) {
+        StringBuilder text = new StringBuilder();
+        for (Token token : tokens) {
+            if (token.type() == Type.END || token.is(Type.SYMBOL, ";")) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            switch (token.type()) {
+                case STRING -> text.append('\'').append(token.text().replace("'", "''")).append('\'');
+                case SYMBOL -> text.append(token.text().equals("!=") ? "<>" : token.text());
+                default -> text.append(token.text());
+            }
+        }
+        return text.toString();
+    }
+
+    static IllegalArgumentException error(String message, int position) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
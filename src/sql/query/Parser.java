@@ -0,0 +1,246 @@
+package sql.query;
+
+import sql.query.Lexer.Token;
+import sql.query.Lexer.Type;
+import sql.query.Statement.Assignment;
+import sql.query.Statement.Condition;
+import sql.query.Statement.Literal;
+import sql.query.Statement.Operand;
+import sql.query.Statement.Order;
+import sql.query.Statement.Parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser for the supported subset of SQL:
+ * <pre>
+ * SELECT * | column, ... FROM table [WHERE condition AND ...]
+ *        [ORDER BY column [ASC | DESC], ...] [LIMIT value]
+ * INSERT INTO table [(column, ...)] VALUES (value, ...), ...
+ * UPDATE table SET column = value, ... [WHERE condition AND ...]
+ * DELETE FROM table [WHERE condition AND ...]
+ *
+ * condition: column (= | <> | != | < | <= | > | >=) value | column IS [NOT] NULL
+ * value:     [-]number | 'string' | NULL | ?
+ * </pre>
+ */
+final class Parser {
+    private final List<Token> tokens;
+    private int position;
+    private int parameterCount;
+
+    Parser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    Statement parse() {
+        Statement statement;
+        if (acceptKeyword("SELECT")) {
+            statement = select();
+        } else if (acceptKeyword("INSERT")) {
+            statement = insert();
+        } else if (acceptKeyword("UPDATE")) {
+            statement = update();
+        } else if (acceptKeyword("DELETE")) {
+            statement = delete();
+        } else {
+            throw unexpected("SELECT, INSERT, UPDATE or DELETE");
+        }
+
+        acceptSymbol(";");
+        if (peek().type() != Type.END) {
+            throw unexpected("end of statement");
+        }
+        return statement;
+    }
+
+    // Number of ? in the statement, valid after parse()
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+    private Statement select() {
+        List<String> columns = null;
+        if (!acceptSymbol("*")) {
+            columns = new ArrayList<>();
+            do {
+                columns.add(identifier());
+            } while (acceptSymbol(","));
+        }
+
+        expectKeyword("FROM");
+        String table = identifier();
+        List<Condition> where = where();
+
+        List<Order> orderBy = new ArrayList<>();
+        if (acceptKeyword("ORDER")) {
+            expectKeyword("BY");
+            do {
+                String column = identifier();
+                boolean ascending = !acceptKeyword("DESC");
+                if (ascending) {
+                    acceptKeyword("ASC");
+                }
+                orderBy.add(new Order(column, ascending));
+            } while (acceptSymbol(","));
+        }
+
+        Operand limit = acceptKeyword("LIMIT") ? value() : null;
+        return new Statement.Select(table, columns, where, orderBy, limit);
+    }
+
+    private Statement insert() {
+        expectKeyword("INTO");
+        String table = identifier();
+
+        List<String> columns = null;
+        if (acceptSymbol("(")) {
+            columns = new ArrayList<>();
+            do {
+                columns.add(identifier());
+            } while (acceptSymbol(","));
+            expectSymbol(")");
+        }
+
+        expectKeyword("VALUES");
+        List<List<Operand>> rows = new ArrayList<>();
+        do {
+            expectSymbol("(");
+            List<Operand> row = new ArrayList<>();
+            do {
+                row.add(value());
+            } while (acceptSymbol(","));
+            expectSymbol(")");
+            rows.add(row);
+        } while (acceptSymbol(","));
+
+        return new Statement.Insert(table, columns, rows);
+    }
+
+    private Statement update() {
+        String table = identifier();
+        expectKeyword("SET");
+
+        List<Assignment> assignments = new ArrayList<>();
+        do {
+            String column = identifier();
+            expectSymbol("=");
+            assignments.add(new Assignment(column, value()));
+        } while (acceptSymbol(","));
+
+        return new Statement.Update(table, assignments, where());
+    }
+
+    private Statement delete() {
+        expectKeyword("FROM");
+        String table = identifier();
+        return new Statement.Delete(table, where());
+    }
+
+    private List<Condition> where() {
+        List<Condition> conditions = new ArrayList<>();
+        if (!acceptKeyword("WHERE")) {
+            return conditions;
+        }
+
+        do {
+            String column = identifier();
+            if (acceptKeyword("IS")) {
+                Comparison op = acceptKeyword("NOT") ? Comparison.IS_NOT_NULL : Comparison.IS_NULL;
+                expectKeyword("NULL");
+                conditions.add(new Condition(column, op, null));
+                continue;
+            }
+
+            Token token = peek();
+            Comparison op = token.type() == Type.SYMBOL ? Comparison.fromSymbol(token.text()) : null;
+            if (op == null) {
+                throw unexpected("comparison operator");
+            }
+            position++;
+            conditions.add(new Condition(column, op, value()));
+        } while (acceptKeyword("AND"));
+
+        return conditions;
+    }
+
+    private Operand value() {
+        Token token = peek();
+        boolean negative = false;
+        if (token.is(Type.SYMBOL, "-")) {
+            negative = true;
+            position++;
+            token = peek();
+        }
+
+        Operand value = switch (token.type()) {
+            case INTEGER -> new Literal(parseInteger(token, negative));
+            case DECIMAL -> new Literal(Double.parseDouble((negative ? "-" : "") + token.text()));
+            case STRING -> negative ? null : new Literal(token.text());
+            case PARAMETER -> negative ? null : new Parameter(parameterCount++);
+            case KEYWORD -> !negative && token.text().equals("NULL") ? new Literal(null) : null;
+            default -> null;
+        };
+        if (value == null) {
+            throw unexpected(negative ? "number" : "value");
+        }
+        position++;
+        return value;
+    }
+
+    private static Long parseInteger(Token token, boolean negative) {
+        try {
+            return Long.parseLong((negative ? "-" : "") + token.text());
+        } catch (NumberFormatException e) {
+            throw Lexer.error("Integer out of range", token.position());
+        }
+    }
+
+    private String identifier() {
+        Token token = peek();
+        if (token.type() != Type.IDENTIFIER) {
+            throw unexpected("name");
+        }
+        position++;
+        return token.text();
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (peek().is(Type.KEYWORD, keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptSymbol(String symbol) {
+        if (peek().is(Type.SYMBOL, symbol)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw unexpected(keyword);
+        }
+    }
+
+    private void expectSymbol(String symbol) {
+        if (!acceptSymbol(symbol)) {
+            throw unexpected("'" + symbol + "'");
+        }
+    }
+
+    private IllegalArgumentException unexpected(String expected) {
+        Token token = peek();
+        String found = token.type() == Type.END ? "end of statement" : "'" + token.text() + "'";
+        return Lexer.error("Expected " + expected + " but found " + found, token.position());
+    }
+}
@@ -0,0 +1,389 @@
+package sql.query;
+
+import sql.catalog.Catalog;
+import sql.catalog.TableInfo;
+import sql.execution.ExternalSort;
+import sql.execution.Filter;
+import sql.execution.IndexScan;
+import sql.execution.Limit;
+import sql.execution.Operator;
+import sql.execution.Project;
+import sql.execution.SortKey;
+import sql.execution.TableScan;
+import sql.index.ExtendibleHashIndex;
+import sql.query.PreparedStatement.Kind;
+import sql.query.PreparedStatement.QueryPlan;
+import sql.query.Statement.Condition;
+import sql.query.Statement.Literal;
+import sql.query.Statement.Operand;
+import sql.query.Statement.Parameter;
+import sql.record.ColumnType;
+import sql.record.RecordId;
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.statistics.CostEstimator;
+import sql.statistics.TableStatistics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Binds a parsed statement to the catalog and plans it. Names are resolved to column
+ * positions, literals are converted to the column types and every ? gets the type of
+ * what it is compared with or assigned to. An equality on an indexed column is read
+ * through the index unless the table statistics say a full scan is cheaper.
+ * <p>
+ * UPDATE and DELETE hold the heap's write latch from finding their rows to changing
+ * them, so no other writer can delete a matched row or reuse its slot in between.
+ */
+final class Planner {
+    private final Catalog catalog;
+    private final ColumnType[] parameterTypes;
+
+    Planner(Catalog catalog, int parameterCount) {
+        this.catalog = catalog;
+        this.parameterTypes = new ColumnType[parameterCount];
+    }
+
+    // A literal or parameter, resolved against the bound parameters at execution
+    private interface Value {
+        Object get(Object[] params);
+    }
+
+    private record BoundCondition(int column, Comparison op, Value value) {
+        @SuppressWarnings("unchecked")
+        boolean matches(Tuple tuple, Object[] params) {
+            Object actual = tuple.getValue(column);
+            if (op == Comparison.IS_NULL) {
+                return actual == null;
+            }
+            if (op == Comparison.IS_NOT_NULL) {
+                return actual != null;
+            }
+
+            Object expected = value.get(params);
+            if (actual == null || expected == null) {
+                return false;
+            }
+            // both sides were converted to the column type, so they are the same class
+            return op.test(((Comparable<Object>) actual).compareTo(expected));
+        }
+    }
+
+    private record Access(QueryPlan plan, String description) {
+    }
+
+    PreparedStatement plan(String sql, Statement statement) {
+        if (statement instanceof Statement.Select select) {
+            return planSelect(sql, select);
+        } else if (statement instanceof Statement.Insert insert) {
+            return planInsert(sql, insert);
+        } else if (statement instanceof Statement.Update update) {
+            return planUpdate(sql, update);
+        } else {
+            return planDelete(sql, (Statement.Delete) statement);
+        }
+    }
+
+    private PreparedStatement planSelect(String sql, Statement.Select select) {
+        TableInfo table = catalog.getTable(select.table());
+        Schema schema = table.getSchema();
+        Access access = access(table, select.where());
+        StringBuilder description = new StringBuilder(access.description());
+
+        List<SortKey> keys = new ArrayList<>();
+        for (Statement.Order order : select.orderBy()) {
+            int column = schema.indexOf(order.column());
+            keys.add(order.ascending() ? SortKey.asc(column) : SortKey.desc(column));
+        }
+        Value limit = select.limit() == null ? null : bind(ColumnType.LONG, select.limit(), "LIMIT");
+        if (!keys.isEmpty()) {
+            description.append(" -> Sort");
+        }
+        if (limit != null) {
+            description.append(" -> Limit");
+        }
+
+        int[] projection = null;
+        Schema output = schema;
+        if (select.columns() != null) {
+            projection = new int[select.columns().size()];
+            for (int i = 0; i < projection.length; i++) {
+                projection[i] = schema.indexOf(select.columns().get(i));
+            }
+            output = schema.project(projection);
+            description.append(" -> Project");
+        }
+
+        int[] columns = projection;
+        QueryPlan plan = params -> {
+            Operator operator = access.plan().build(params);
+            long rows = limit == null ? ExternalSort.NO_LIMIT : limitValue(limit, params);
+            if (!keys.isEmpty()) {
+                // the sort applies the limit itself, keeping only the top rows when it can
+                operator = new ExternalSort(operator, keys, ExternalSort.DEFAULT_MEMORY_BUDGET, rows);
+            } else if (limit != null) {
+                operator = new Limit(operator, rows);
+            }
+            return columns == null ? operator : new Project(operator, columns);
+        };
+        return new PreparedStatement(sql, Kind.SELECT, parameterTypes, output, description.toString(), plan, null);
+    }
+
+    private static long limitValue(Value limit, Object[] params) {
+        Object value = limit.get(params);
+        if (value == null || (Long) value < 0) {
+            throw new IllegalArgumentException("LIMIT must be a non-negative integer: " + value);
+        }
+        return (Long) value;
+    }
+
+    private PreparedStatement planInsert(String sql, Statement.Insert insert) {
+        TableInfo table = catalog.getTable(insert.table());
+        Schema schema = table.getSchema();
+
+        int[] targets;
+        if (insert.columns() == null) {
+            targets = new int[schema.getColumnCount()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = i;
+            }
+        } else {
+            targets = columnIndexes(schema, insert.columns());
+        }
+
+        List<Value[]> rows = new ArrayList<>();
+        for (List<Operand> row : insert.rows()) {
+            if (row.size() != targets.length) {
+                throw new IllegalArgumentException("Expected " + targets.length + " values, got " + row.size());
+            }
+            Value[] values = new Value[targets.length];
+            for (int i = 0; i < targets.length; i++) {
+                values[i] = bind(schema.getType(targets[i]), row.get(i), schema.getColumn(targets[i]).getName());
+            }
+            rows.add(values);
+        }
+
+        PreparedStatement.UpdatePlan plan = params -> {
+            for (Value[] row : rows) {
+                // columns not listed are null
+                Object[] tuple = new Object[schema.getColumnCount()];
+                for (int i = 0; i < targets.length; i++) {
+                    tuple[targets[i]] = row[i].get(params);
+                }
+                table.insert(new Tuple(schema, tuple));
+            }
+            return rows.size();
+        };
+        return new PreparedStatement(sql, Kind.INSERT, parameterTypes, null, "Insert(" + table.getName() + ")",
+                null, plan);
+    }
+
+    private PreparedStatement planUpdate(String sql, Statement.Update update) {
+        TableInfo table = catalog.getTable(update.table());
+        Schema schema = table.getSchema();
+
+        List<String> names = new ArrayList<>();
+        for (Statement.Assignment assignment : update.assignments()) {
+            names.add(assignment.column());
+        }
+        int[] targets = columnIndexes(schema, names);
+        Value[] values = new Value[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            values[i] = bind(schema.getType(targets[i]), update.assignments().get(i).value(), names.get(i));
+        }
+        Access access = access(table, update.where());
+
+        PreparedStatement.UpdatePlan plan = params -> {
+            ReadWriteLock latch = table.getHeap().getLatch();
+            latch.writeLock().lock();
+            try {
+                // find every row first, so the scan never sees rows this statement changed
+                List<Tuple> matches = collect(access.plan().build(params));
+                for (Tuple old : matches) {
+                    Object[] tuple = old.getValues();
+                    for (int i = 0; i < targets.length; i++) {
+                        tuple[targets[i]] = values[i].get(params);
+                    }
+                    table.update(old.getRecordId(), old, new Tuple(schema, tuple));
+                }
+                return matches.size();
+            } finally {
+                latch.writeLock().unlock();
+            }
+        };
+        return new PreparedStatement(sql, Kind.UPDATE, parameterTypes, null,
+                access.description() + " -> Update", null, plan);
+    }
+
+    private PreparedStatement planDelete(String sql, Statement.Delete delete) {
+        TableInfo table = catalog.getTable(delete.table());
+        Access access = access(table, delete.where());
+
+        PreparedStatement.UpdatePlan plan = params -> {
+            ReadWriteLock latch = table.getHeap().getLatch();
+            latch.writeLock().lock();
+            try {
+                List<Tuple> matches = collect(access.plan().build(params));
+                for (Tuple tuple : matches) {
+                    table.delete(tuple.getRecordId(), tuple);
+                }
+                return matches.size();
+            } finally {
+                latch.writeLock().unlock();
+            }
+        };
+        return new PreparedStatement(sql, Kind.DELETE, parameterTypes, null,
+                access.description() + " -> Delete", null, plan);
+    }
+
+    // How to find the rows matching a WHERE clause: a table or index scan plus a filter
+    private Access access(TableInfo table, List<Condition> where) {
+        Schema schema = table.getSchema();
+        List<BoundCondition> conditions = new ArrayList<>();
+        for (Condition condition : where) {
+            int column = schema.indexOf(condition.column());
+            Value value = condition.value() == null
+                    ? null
+                    : bind(schema.getType(column), condition.value(), condition.column());
+            conditions.add(new BoundCondition(column, condition.op(), value));
+        }
+
+        BoundCondition lookup = null;
+        for (BoundCondition condition : conditions) {
+            if (condition.op() == Comparison.EQ && table.getIndex(condition.column()) != null
+                    && indexIsCheaper(table.getStatistics(), condition.column())) {
+                lookup = condition;
+                break;
+            }
+        }
+
+        ExtendibleHashIndex index = lookup == null ? null : table.getIndex(lookup.column());
+        Value key = lookup == null ? null : lookup.value();
+        String description = index == null
+                ? "TableScan(" + table.getName() + ")"
+                : "IndexScan(" + table.getName() + "." + schema.getColumn(lookup.column()).getName() + ")";
+        if (!conditions.isEmpty()) {
+            description += " -> Filter";
+        }
+
+        QueryPlan plan = params -> {
+            Operator scan = index == null
+                    ? new TableScan(table.getHeap(), schema)
+                    : new IndexScan(table.getHeap(), schema, () -> lookup(index, key.get(params)));
+            // the filter rechecks the index condition too, which is cheap on the few rows left
+            return conditions.isEmpty()
+                    ? scan
+                    : new Filter(scan, tuple -> matchesAll(conditions, tuple, params));
+        };
+        return new Access(plan, description);
+    }
+
+    // Without statistics an index lookup is assumed to beat a full scan
+    private static boolean indexIsCheaper(TableStatistics statistics, int column) {
+        if (statistics == null) {
+            return true;
+        }
+        double selectivity = CostEstimator.equalsSelectivity(statistics, column);
+        return CostEstimator.chooseScan(statistics, selectivity, true).path() == CostEstimator.AccessPath.INDEX_SCAN;
+    }
+
+    private static Iterator<RecordId> lookup(ExtendibleHashIndex index, Object key) {
+        // = NULL matches nothing
+        if (key == null) {
+            return Collections.emptyIterator();
+        }
+        return index.lookup(((Number) key).longValue()).iterator();
+    }
+
+    private static boolean matchesAll(List<BoundCondition> conditions, Tuple tuple, Object[] params) {
+        for (BoundCondition condition : conditions) {
+            if (!condition.matches(tuple, params)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Tuple> collect(Operator operator) throws IOException {
+        List<Tuple> tuples = new ArrayList<>();
+        operator.open();
+        try {
+            Tuple tuple;
+            while ((tuple = operator.next()) != null) {
+                tuples.add(tuple);
+            }
+        } finally {
+            operator.close();
+        }
+        return tuples;
+    }
+
+    private static int[] columnIndexes(Schema schema, List<String> names) {
+        int[] indexes = new int[names.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = schema.indexOf(names.get(i));
+            for (int j = 0; j < i; j++) {
+                if (indexes[j] == indexes[i]) {
+                    throw new IllegalArgumentException("Column listed twice: " + names.get(i));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    // Literals are converted now, parameters are typed and converted when bound
+    private Value bind(ColumnType type, Operand operand, String target) {
+        if (operand instanceof Parameter parameter) {
+            parameterTypes[parameter.index()] = type;
+            int index = parameter.index();
+            return params -> params[index];
+        }
+        Object constant = coerce(type, ((Literal) operand).value(), target);
+        return params -> constant;
+    }
+
+    /**
+     * Convert a value to the Java type a column of the given type holds. Integers fit
+     * any numeric column, as long as they are in range; decimals only DOUBLE columns.
+     */
+    static Object coerce(ColumnType type, Object value, String target) {
+        if (value == null) {
+            return null;
+        }
+
+        boolean integral = value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte;
+        switch (type) {
+            case INT -> {
+                if (integral) {
+                    long number = ((Number) value).longValue();
+                    if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                        return (int) number;
+                    }
+                }
+            }
+            case LONG -> {
+                if (integral) {
+                    return ((Number) value).longValue();
+                }
+            }
+            case DOUBLE -> {
+                if (value instanceof Number number) {
+                    return number.doubleValue();
+                }
+            }
+            case VARCHAR -> {
+                if (value instanceof String) {
+                    return value;
+                }
+            }
+        }
+        String shown = value instanceof String ? "'" + value + "'" : String.valueOf(value);
+        throw new IllegalArgumentException("Cannot use " + shown + " as " + type + " for " + target);
+    }
+}
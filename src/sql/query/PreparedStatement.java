@@ -0,0 +1,128 @@
+package sql.query;
+
+import sql.execution.Operator;
+import sql.record.ColumnType;
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parsed, bound and planned statement. Executing it only checks the parameters and
+ * builds the operators of the chosen plan, so it is safe to share between threads and
+ * to run many times.
+ * <p>
+ * Parameters are given in the order their ? appear in the text. Integers are accepted
+ * for every numeric column and null for every column.
+ */
+public final class PreparedStatement {
+    public enum Kind {
+        SELECT, INSERT, UPDATE, DELETE
+    }
+
+    // Operator tree of a SELECT for one set of bound parameters
+    interface QueryPlan {
+        Operator build(Object[] params);
+    }
+
+    // Runs an INSERT, UPDATE or DELETE, returns the number of rows it changed
+    interface UpdatePlan {
+        int run(Object[] params) throws IOException;
+    }
+
+    private final String sql;
+    private final Kind kind;
+    private final ColumnType[] parameterTypes;
+    private final Schema schema;
+    private final String plan;
+    private final QueryPlan queryPlan;
+    private final UpdatePlan updatePlan;
+
+    PreparedStatement(String sql, Kind kind, ColumnType[] parameterTypes, Schema schema, String plan,
+                      QueryPlan queryPlan, UpdatePlan updatePlan) {
+        this.sql = sql;
+        this.kind = kind;
+        this.parameterTypes = parameterTypes;
+        this.schema = schema;
+        this.plan = plan;
+        this.queryPlan = queryPlan;
+        this.updatePlan = updatePlan;
+    }
+
+    // Normalized text of the statement
+    public String getSql() {
+        return sql;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    // Schema of the rows a SELECT returns, null for other statements
+    public Schema getSchema() {
+        return schema;
+    }
+
+    // Chosen plan, e.g. "IndexScan(users.id) -> Filter -> Project"
+    public String explain() {
+        return plan;
+    }
+
+    /**
+     * Operator returning the rows of a SELECT. The caller opens and closes it.
+     */
+    public Operator query(Object... params) {
+        if (kind != Kind.SELECT) {
+            throw new IllegalStateException("Not a query: " + sql);
+        }
+        return queryPlan.build(bind(params));
+    }
+
+    public List<Tuple> queryAll(Object... params) throws IOException {
+        Operator operator = query(params);
+        List<Tuple> rows = new ArrayList<>();
+        operator.open();
+        try {
+            Tuple tuple;
+            while ((tuple = operator.next()) != null) {
+                rows.add(tuple);
+            }
+        } finally {
+            operator.close();
+        }
+        return rows;
+    }
+
+    /**
+     * Run an INSERT, UPDATE or DELETE and return the number of rows it changed.
+     */
+    public int update(Object... params) throws IOException {
+        if (kind == Kind.SELECT) {
+            throw new IllegalStateException("Not an update: " + sql);
+        }
+        return updatePlan.run(bind(params));
+    }
+
+    private Object[] bind(Object[] params) {
+        if (params.length != parameterTypes.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + parameterTypes.length + " parameters, got " + params.length);
+        }
+        Object[] bound = new Object[params.length];
+        for (int i = 0; i < params.length; i++) {
+            bound[i] = Planner.coerce(parameterTypes[i], params[i], "parameter " + (i + 1));
+        }
+        return bound;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " [" + plan + "]";
+    }
+}
@@ -0,0 +1,63 @@
+package sql.query;
+
+import sql.catalog.Catalog;
+import sql.query.Lexer.Token;
+import sql.record.Tuple;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * SQL front end over the tables of a catalog. Statements are parsed, bound and
+ * planned once, then served from a StatementCache, so running a statement again,
+ * with new parameters, skips straight to execution.
+ */
+public class QueryEngine {
+    public static final int DEFAULT_CACHE_CAPACITY = 256;
+
+    private final Catalog catalog;
+    private final StatementCache cache;
+
+    public QueryEngine(Catalog catalog) {
+        this(catalog, DEFAULT_CACHE_CAPACITY);
+    }
+
+    // A capacity of 0 disables caching, every statement is planned from scratch
+    public QueryEngine(Catalog catalog, int cacheCapacity) {
+        this.catalog = catalog;
+        this.cache = new StatementCache(cacheCapacity);
+    }
+
+    public PreparedStatement prepare(String sql) {
+        PreparedStatement statement = cache.get(sql);
+        if (statement != null) {
+            return statement;
+        }
+
+        List<Token> tokens = Lexer.tokenize(sql);
+        String normalized = Lexer.normalize(tokens);
+        statement = cache.get(sql, normalized);
+        if (statement != null) {
+            return statement;
+        }
+
+        Parser parser = new Parser(tokens);
+        Statement parsed = parser.parse();
+        statement = new Planner(catalog, parser.getParameterCount()).plan(normalized, parsed);
+        cache.put(sql, statement);
+        return statement;
+    }
+
+    public List<Tuple> query(String sql, Object... params) throws IOException {
+        return prepare(sql).queryAll(params);
+    }
+
+    // Rows changed by an INSERT, UPDATE or DELETE
+    public int update(String sql, Object... params) throws IOException {
+        return prepare(sql).update(params);
+    }
+
+    public StatementCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,44 @@
+package sql.query;
+
+import java.util.List;
+
+/**
+ * Parsed statement, before its names are checked against the catalog.
+ */
+sealed interface Statement {
+    // columns is null for SELECT *, limit is null without LIMIT
+    record Select(String table, List<String> columns, List<Condition> where, List<Order> orderBy,
+                  Operand limit) implements Statement {
+    }
+
+    // columns is null when the values are given for every column in table order
+    record Insert(String table, List<String> columns, List<List<Operand>> rows) implements Statement {
+    }
+
+    record Update(String table, List<Assignment> assignments, List<Condition> where) implements Statement {
+    }
+
+    record Delete(String table, List<Condition> where) implements Statement {
+    }
+
+    // column op value, value is null for IS [NOT] NULL
+    record Condition(String column, Comparison op, Operand value) {
+    }
+
+    record Order(String column, boolean ascending) {
+    }
+
+    record Assignment(String column, Operand value) {
+    }
+
+    sealed interface Operand {
+    }
+
+    // Integer literals are Long, decimals Double, strings String and NULL null
+    record Literal(Object value) implements Operand {
+    }
+
+    // The index-th ? of the statement, counting from 0
+    record Parameter(int index) implements Operand {
+    }
+}
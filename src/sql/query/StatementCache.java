@@ -0,0 +1,86 @@
+package sql.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of prepared statements. A statement is found by its exact
+ * text, which costs one hash lookup, or else by its normalized text, so copies that
+ * only differ in layout or keyword case share one plan without being parsed again.
+ * <p>
+ * Plans are not invalidated by later catalog changes. clear() after creating an index
+ * or analyzing a table lets statements be planned again with them.
+ */
+public class StatementCache {
+    private final int capacity;
+    private final Map<String, PreparedStatement> byText;
+    private final Map<String, PreparedStatement> byNormalizedText;
+
+    private long hits;
+    private long misses;
+
+    public StatementCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.byText = lru(capacity);
+        this.byNormalizedText = lru(capacity);
+    }
+
+    private static Map<String, PreparedStatement> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // The hot path: a statement sent with the same text as before
+    synchronized PreparedStatement get(String sql) {
+        PreparedStatement statement = byText.get(sql);
+        if (statement != null) {
+            hits++;
+        }
+        return statement;
+    }
+
+    // Found by normalized text, remembered under the new spelling too
+    synchronized PreparedStatement get(String sql, String normalized) {
+        PreparedStatement statement = byNormalizedText.get(normalized);
+        if (statement != null) {
+            hits++;
+            byText.put(sql, statement);
+        }
+        return statement;
+    }
+
+    synchronized void put(String sql, PreparedStatement statement) {
+        misses++;
+        byText.put(sql, statement);
+        byNormalizedText.put(statement.getSql(), statement);
+    }
+
+    public synchronized void clear() {
+        byText.clear();
+        byNormalizedText.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Distinct statements cached
+    public synchronized int size() {
+        return byNormalizedText.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,24 @@
+package sql.record;
+
+public class Column {
+    private final String name;
+    private final ColumnType type;
+
+    public Column(String name, ColumnType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + type;
+    }
+}
@@ -0,0 +1,35 @@
+package sql.record;
+
+public enum ColumnType {
+    INT((byte) 1, 4),
+    LONG((byte) 2, 8),
+    DOUBLE((byte) 3, 8),
+    // Variable length, stored as a 2 byte length followed by UTF-8 bytes
+    VARCHAR((byte) 4, -1);
+
+    public final byte code;
+    // Encoded size in bytes, -1 for variable length
+    public final int size;
+
+    ColumnType(byte code, int size) {
+        this.code = code;
+        this.size = size;
+    }
+
+    public boolean isFixedSize() {
+        return size > 0;
+    }
+
+    public boolean isNumeric() {
+        return this != VARCHAR;
+    }
+
+    public static ColumnType from(byte code) {
+        for (ColumnType t : values()) {
+            if (t.code == code) {
+                return t;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column type: " + code);
+    }
+}
@@ -1,7 +1,10 @@
 package sql.record;
 
-import java.util.Objects;
-
+/**
+ * A record's page and slot. Hot paths can use the packed long form instead, pageId in
+ * the upper 32 of 48 bits and slotId in the lower 16, which needs no object and fits
+ * primitive collections and on-page index entries.
+ */
 public class RecordId {
     private final int pageId;
     private final short slotId;
@@ -19,6 +22,26 @@ public class RecordId {
         return slotId;
     }
 
+    public static long pack(int pageId, short slotId) {
+        return (pageId & 0xFFFFFFFFL) << 16 | (slotId & 0xFFFF);
+    }
+
+    public static int pageIdOf(long packed) {
+        return (int) (packed >>> 16);
+    }
+
+    public static short slotIdOf(long packed) {
+        return (short) packed;
+    }
+
+    public static RecordId fromLong(long packed) {
+        return new RecordId(pageIdOf(packed), slotIdOf(packed));
+    }
+
+    public long toLong() {
+        return pack(pageId, slotId);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -28,7 +51,7 @@ public class RecordId {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pageId, slotId);
+        return 31 * pageId + slotId;
     }
 
     @Override
@@ -0,0 +1,64 @@
+package sql.record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class Schema {
+    private final List<Column> columns;
+
+    public Schema(Column... columns) {
+        this(Arrays.asList(columns));
+    }
+
+    public Schema(List<Column> columns) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public Column getColumn(int index) {
+        return columns.get(index);
+    }
+
+    public ColumnType getType(int index) {
+        return columns.get(index).getType();
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public int indexOf(String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column: " + name);
+    }
+
+    // Schema made of the given columns, in the given order
+    public Schema project(int[] indexes) {
+        List<Column> projected = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            projected.add(columns.get(index));
+        }
+        return new Schema(projected);
+    }
+
+    // Left columns followed by right columns, used for join output
+    public static Schema concat(Schema left, Schema right) {
+        List<Column> joined = new ArrayList<>(left.columns);
+        joined.addAll(right.columns);
+        return new Schema(joined);
+    }
+
+    @Override
+    public String toString() {
+        return "Schema" + columns;
+    }
+}
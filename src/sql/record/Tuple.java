@@ -0,0 +1,170 @@
+package sql.record;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A row of typed values.
+ * On a page a tuple is a null bitmap followed by the non-null values in column order.
+ */
+public class Tuple {
+    private final Schema schema;
+    private final Object[] values;
+
+    // Where the tuple came from, null if it was not read from a table
+    private RecordId recordId;
+
+    public Tuple(Schema schema, Object... values) {
+        if (values.length != schema.getColumnCount()) {
+            throw new IllegalArgumentException(
+                    "Expected " + schema.getColumnCount() + " values, got " + values.length);
+        }
+        this.schema = schema;
+        this.values = values;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    public boolean isNull(int index) {
+        return values[index] == null;
+    }
+
+    public int getInt(int index) {
+        return (Integer) values[index];
+    }
+
+    public long getLong(int index) {
+        return ((Number) values[index]).longValue();
+    }
+
+    public double getDouble(int index) {
+        return ((Number) values[index]).doubleValue();
+    }
+
+    public String getString(int index) {
+        return (String) values[index];
+    }
+
+    public RecordId getRecordId() {
+        return recordId;
+    }
+
+    public void setRecordId(RecordId recordId) {
+        this.recordId = recordId;
+    }
+
+    // Copy of the values, for operators building new tuples
+    public Object[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Serialize into the record format stored in a TableHeap.
+     */
+    public byte[] toBytes() {
+        int columnCount = schema.getColumnCount();
+        int bitmapSize = bitmapSize(columnCount);
+
+        int size = bitmapSize;
+        byte[][] strings = new byte[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            ColumnType type = schema.getType(i);
+            if (type.isFixedSize()) {
+                size += type.size;
+            } else {
+                strings[i] = ((String) values[i]).getBytes(StandardCharsets.UTF_8);
+                size += 2 + strings[i].length;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] bytes = buffer.array();
+        buffer.position(bitmapSize);
+
+        for (int i = 0; i < columnCount; i++) {
+            if (values[i] == null) {
+                bytes[i >> 3] |= (byte) (1 << (i & 7));
+                continue;
+            }
+            switch (schema.getType(i)) {
+                case INT -> buffer.putInt((Integer) values[i]);
+                case LONG -> buffer.putLong(((Number) values[i]).longValue());
+                case DOUBLE -> buffer.putDouble(((Number) values[i]).doubleValue());
+                case VARCHAR -> buffer.putShort((short) strings[i].length).put(strings[i]);
+            }
+        }
+
+        return bytes;
+    }
+
+    public static Tuple fromBytes(Schema schema, byte[] bytes) {
+        int columnCount = schema.getColumnCount();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(bitmapSize(columnCount));
+
+        Object[] values = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            if ((bytes[i >> 3] & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            values[i] = switch (schema.getType(i)) {
+                case INT -> buffer.getInt();
+                case LONG -> buffer.getLong();
+                case DOUBLE -> buffer.getDouble();
+                case VARCHAR -> {
+                    byte[] string = new byte[buffer.getShort() & 0xFFFF];
+                    buffer.get(string);
+                    yield new String(string, StandardCharsets.UTF_8);
+                }
+            };
+        }
+
+        return new Tuple(schema, values);
+    }
+
+    /**
+     * Rough heap footprint of this tuple, for operators that work within a memory budget.
+     */
+    public int estimateSize() {
+        // object headers, the values array and one boxed value per column
+        int size = 48 + 24 * values.length;
+        for (Object value : values) {
+            if (value instanceof String string) {
+                size += 24 + string.length();
+            }
+        }
+        return size;
+    }
+
+    public static int bitmapSize(int columnCount) {
+        return (columnCount + 7) / 8;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Tuple thatTuple)) return false;
+        return Arrays.equals(values, thatTuple.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "Tuple" + Arrays.toString(values);
+    }
+}
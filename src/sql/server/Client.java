@@ -0,0 +1,195 @@
+package sql.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client for the binary {@link Protocol}. Not thread-safe, use one per thread.
+ * <p>
+ * The plain methods send one request and wait for its answer. For pipelining, queue
+ * requests with the send methods, flush(), then call receive() once per request sent,
+ * in the same order.
+ */
+public class Client implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public Client(int port) throws IOException {
+        this(InetAddress.getLoopbackAddress().getHostAddress(), port);
+    }
+
+    public Client(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+    }
+
+    /**
+     * An answer from the server. The payload is only read by the accessor matching the request.
+     */
+    public static final class Response {
+        private final byte status;
+        private final byte[] payload;
+
+        Response(byte status, byte[] payload) {
+            this.status = status;
+            this.payload = payload;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+
+        public boolean isFound() {
+            return status != Protocol.NOT_FOUND;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public int getInt() throws IOException {
+            return data().readInt();
+        }
+
+        public long getLong() throws IOException {
+            return data().readLong();
+        }
+
+        private DataInputStream data() {
+            return new DataInputStream(new ByteArrayInputStream(payload));
+        }
+
+        // Turn an ERROR answer into an exception carrying the server's message
+        Response check() throws IOException {
+            if (status == Protocol.ERROR) {
+                throw new IOException("Server error: " + data().readUTF());
+            }
+            return this;
+        }
+    }
+
+    public void sendPing() throws IOException {
+        out.writeInt(1);
+        out.writeByte(Protocol.PING);
+    }
+
+    public void sendOpen(String table) throws IOException {
+        ByteArrayOutputStream name = new ByteArrayOutputStream();
+        new DataOutputStream(name).writeUTF(table);
+        out.writeInt(1 + name.size());
+        out.writeByte(Protocol.OPEN);
+        name.writeTo(out);
+    }
+
+    public void sendInsert(int tableId, byte[] record) throws IOException {
+        out.writeInt(1 + 4 + record.length);
+        out.writeByte(Protocol.INSERT);
+        out.writeInt(tableId);
+        out.write(record);
+    }
+
+    public void sendRead(int tableId, long rid) throws IOException {
+        sendRecordOp(Protocol.READ, tableId, rid);
+    }
+
+    public void sendDelete(int tableId, long rid) throws IOException {
+        sendRecordOp(Protocol.DELETE, tableId, rid);
+    }
+
+    public void sendScan(int tableId, int limit) throws IOException {
+        out.writeInt(1 + 4 + 4);
+        out.writeByte(Protocol.SCAN);
+        out.writeInt(tableId);
+        out.writeInt(limit);
+    }
+
+    private void sendRecordOp(byte opcode, int tableId, long rid) throws IOException {
+        out.writeInt(1 + 4 + 8);
+        out.writeByte(opcode);
+        out.writeInt(tableId);
+        out.writeLong(rid);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Read the next answer. ERROR answers are returned, not thrown, so a pipeline can go on.
+     */
+    public Response receive() throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > Protocol.MAX_FRAME_SIZE) {
+            throw new IOException("Bad frame length " + length);
+        }
+        byte status = in.readByte();
+        byte[] payload = new byte[length - 1];
+        in.readFully(payload);
+        return new Response(status, payload);
+    }
+
+    private Response call() throws IOException {
+        flush();
+        return receive().check();
+    }
+
+    public void ping() throws IOException {
+        sendPing();
+        call();
+    }
+
+    public int open(String table) throws IOException {
+        sendOpen(table);
+        return call().getInt();
+    }
+
+    public long insert(int tableId, byte[] record) throws IOException {
+        sendInsert(tableId, record);
+        return call().getLong();
+    }
+
+    // Null if the record was deleted
+    public byte[] read(int tableId, long rid) throws IOException {
+        sendRead(tableId, rid);
+        Response response = call();
+        return response.isFound() ? response.getPayload() : null;
+    }
+
+    public boolean delete(int tableId, long rid) throws IOException {
+        sendDelete(tableId, rid);
+        return call().isFound();
+    }
+
+    public List<byte[]> scan(int tableId, int limit) throws IOException {
+        sendScan(tableId, limit);
+        DataInputStream rows = call().data();
+
+        int count = rows.readInt();
+        List<byte[]> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] record = new byte[rows.readInt()];
+            rows.readFully(record);
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,155 @@
+package sql.server;
+
+import sql.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Drives a Server from several connections at once and measures throughput and latency.
+ * Every connection sends batches of pipelineDepth requests, a mix of inserts and reads of
+ * records it inserted earlier, and waits for the whole batch before sending the next.
+ * A request's latency runs from the flush of its batch to the arrival of its answer.
+ */
+public class LoadGenerator {
+    private final int port;
+    private final String table;
+    private final LongFunction<byte[]> records;
+
+    /**
+     * records builds the n-th record a connection inserts; it must be thread-safe.
+     */
+    public LoadGenerator(int port, String table, LongFunction<byte[]> records) {
+        this.port = port;
+        this.table = table;
+        this.records = records;
+    }
+
+    public static final class Result {
+        private final long requests;
+        private final long inserts;
+        private final long nanos;
+        private final LatencyHistogram latency;
+
+        Result(long requests, long inserts, long nanos, LatencyHistogram latency) {
+            this.requests = requests;
+            this.inserts = inserts;
+            this.nanos = nanos;
+            this.latency = latency;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getInserts() {
+            return inserts;
+        }
+
+        public double getRequestsPerSecond() {
+            return requests * 1e9 / nanos;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,.0f req/s, p50 %,d us, p99 %,d us, max %,d us",
+                    getRequestsPerSecond(),
+                    latency.getPercentileNanos(50) / 1000,
+                    latency.getPercentileNanos(99) / 1000,
+                    latency.getMaxNanos() / 1000);
+        }
+    }
+
+    /**
+     * Run requestsPerConnection requests on each connection, a fraction insertRatio of
+     * them inserts. The first batch of every connection is all inserts, so reads
+     * have something to find.
+     */
+    public Result run(int connections, int pipelineDepth, int requestsPerConnection, double insertRatio)
+            throws IOException {
+        if (connections < 1 || pipelineDepth < 1 || requestsPerConnection < 1) {
+            throw new IllegalArgumentException("Connections, depth and requests must be positive");
+        }
+        if (insertRatio < 0 || insertRatio > 1) {
+            throw new IllegalArgumentException("Insert ratio must be between 0 and 1: " + insertRatio);
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        ExecutorService threads = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<Long>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                long seed = i;
+                workers.add(threads.submit(() ->
+                        drive(seed, pipelineDepth, requestsPerConnection, insertRatio, latency)));
+            }
+
+            long inserts = 0;
+            for (Future<Long> worker : workers) {
+                inserts += worker.get();
+            }
+            long nanos = System.nanoTime() - start;
+            return new Result((long) connections * requestsPerConnection, inserts, nanos, latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Load connection failed", e.getCause());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // One connection's run, returns the number of inserts it made
+    private long drive(long seed, int depth, int requests, double insertRatio, LatencyHistogram latency)
+            throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] inserted = new long[requests];
+        int insertCount = 0;
+        boolean[] isInsert = new boolean[depth];
+
+        try (Client client = new Client(port)) {
+            int tableId = client.open(table);
+
+            int sent = 0;
+            while (sent < requests) {
+                int batch = Math.min(depth, requests - sent);
+                for (int i = 0; i < batch; i++) {
+                    // reads only pick from inserts already acknowledged
+                    isInsert[i] = insertCount == 0 || random.nextDouble() < insertRatio;
+                    if (isInsert[i]) {
+                        client.sendInsert(tableId, records.apply(((seed << 32) | (sent + i))));
+                    } else {
+                        client.sendRead(tableId, inserted[random.nextInt(insertCount)]);
+                    }
+                }
+
+                long flushed = System.nanoTime();
+                client.flush();
+                for (int i = 0; i < batch; i++) {
+                    Client.Response response = client.receive().check();
+                    latency.record(System.nanoTime() - flushed);
+                    if (isInsert[i]) {
+                        inserted[insertCount++] = response.getLong();
+                    } else if (!response.isFound()) {
+                        throw new IllegalStateException("Inserted record not found");
+                    }
+                }
+                sent += batch;
+            }
+        }
+        return insertCount;
+    }
+}
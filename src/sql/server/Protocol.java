@@ -0,0 +1,36 @@
+package sql.server;
+
+/**
+ * Wire format shared by Server and Client. Every message in either direction is a frame:
+ * a big-endian int length, then that many bytes, starting with an opcode (requests) or a
+ * status (responses). Clients may send many requests before reading; responses come
+ * back in request order.
+ * <pre>
+ * PING    -                              -> OK
+ * OPEN    table name (UTF)               -> OK table id (int)
+ * INSERT  table id, record bytes         -> OK packed RecordId (long)
+ * READ    table id, packed RecordId      -> OK record bytes | NOT_FOUND
+ * DELETE  table id, packed RecordId      -> OK | NOT_FOUND
+ * SCAN    table id, row limit (int)      -> OK row count, then length-prefixed records
+ * </pre>
+ * Failures answer ERROR with a UTF message; the connection stays usable unless the
+ * framing itself was broken.
+ */
+public final class Protocol {
+    public static final byte PING = 0;
+    public static final byte OPEN = 1;
+    public static final byte INSERT = 2;
+    public static final byte READ = 3;
+    public static final byte DELETE = 4;
+    public static final byte SCAN = 5;
+
+    public static final byte OK = 0;
+    public static final byte NOT_FOUND = 1;
+    public static final byte ERROR = 2;
+
+    // Longest frame accepted, so a corrupt length cannot make us allocate gigabytes
+    public static final int MAX_FRAME_SIZE = 16 << 20;
+
+    private Protocol() {
+    }
+}
@@ -0,0 +1,130 @@
+package sql.server;
+
+import sql.catalog.Catalog;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP server for the binary {@link Protocol}, serving the tables of one Catalog and so
+ * sharing its buffer pool between all clients. Listens on localhost only.
+ * <p>
+ * Each connection gets its own thread running blocking I/O: a virtual thread when the
+ * JDK has them (21+), otherwise a platform thread from a cached pool.
+ */
+public class Server implements AutoCloseable {
+    private final Catalog catalog;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final boolean virtualThreads;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Bind to the port on localhost, 0 picks a free one. Call start() to accept connections.
+     */
+    public Server(Catalog catalog, int port) throws IOException {
+        this.catalog = catalog;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.sessions = virtual != null ? virtual : Executors.newCachedThreadPool(daemonThreads("session"));
+        this.acceptor = daemonThreads("acceptor").newThread(this::acceptLoop);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() exists from JDK 21, so look it up reflectively
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger next = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + next.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public Server start() {
+        acceptor.start();
+        return this;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+
+            connections.add(socket);
+            sessions.execute(() -> {
+                try {
+                    new Session(catalog, socket).run();
+                } finally {
+                    connections.remove(socket);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop accepting, close every connection and wait for the sessions to end.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (SocketException ignored) {
+                // already closing
+            }
+        }
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package sql.server;
+
+import sql.catalog.Catalog;
+import sql.catalog.TableInfo;
+import sql.record.RecordId;
+import sql.record.Tuple;
+import sql.table.SequentialScan;
+import sql.table.TableHeap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One client connection. Requests are handled in order as they arrive, and responses
+ * are only flushed once no further request is already buffered, so a pipelined burst
+ * of requests is answered with one write instead of one per request.
+ */
+class Session implements Runnable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Catalog catalog;
+    private final Socket socket;
+    // Tables opened by this connection, the index is the table id
+    private final List<TableInfo> tables = new ArrayList<>();
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final DataOutputStream bodyOut = new DataOutputStream(body);
+
+    Session(Catalog catalog, Socket socket) {
+        this.catalog = catalog;
+        this.socket = socket;
+    }
+
+    @Override
+    public void run() {
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (length < 1 || length > Protocol.MAX_FRAME_SIZE) {
+                    // framing is lost, nothing after this can be trusted
+                    respondError(out, "Bad frame length " + length);
+                    out.flush();
+                    return;
+                }
+
+                byte opcode = in.readByte();
+                byte[] payload = new byte[length - 1];
+                in.readFully(payload);
+                handle(opcode, new DataInputStream(new ByteArrayInputStream(payload)), out);
+
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // connection dropped or closed by the server
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    private void handle(byte opcode, DataInputStream request, DataOutputStream out) throws IOException {
+        body.reset();
+        byte status;
+        try {
+            status = switch (opcode) {
+                case Protocol.PING -> Protocol.OK;
+                case Protocol.OPEN -> open(request.readUTF());
+                case Protocol.INSERT -> insert(table(request.readInt()), request.readAllBytes());
+                case Protocol.READ -> read(table(request.readInt()), request.readLong());
+                case Protocol.DELETE -> delete(table(request.readInt()), request.readLong());
+                case Protocol.SCAN -> scan(table(request.readInt()), request.readInt());
+                default -> throw new IllegalArgumentException("Unknown opcode " + opcode);
+            };
+        } catch (RuntimeException | EOFException e) {
+            // a bad request fails alone; the engine throws unchecked exceptions for bad input
+            body.reset();
+            bodyOut.writeUTF(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            status = Protocol.ERROR;
+        }
+
+        out.writeInt(1 + body.size());
+        out.writeByte(status);
+        body.writeTo(out);
+    }
+
+    private void respondError(DataOutputStream out, String message) throws IOException {
+        body.reset();
+        bodyOut.writeUTF(message);
+        out.writeInt(1 + body.size());
+        out.writeByte(Protocol.ERROR);
+        body.writeTo(out);
+    }
+
+    private TableInfo table(int tableId) {
+        if (tableId < 0 || tableId >= tables.size()) {
+            throw new IllegalArgumentException("Table id " + tableId + " was not opened");
+        }
+        return tables.get(tableId);
+    }
+
+    private byte open(String name) throws IOException {
+        TableInfo table = catalog.getTable(name);
+        int tableId = tables.indexOf(table);
+        if (tableId < 0) {
+            tableId = tables.size();
+            tables.add(table);
+        }
+        bodyOut.writeInt(tableId);
+        return Protocol.OK;
+    }
+
+    private byte insert(TableInfo table, byte[] record) throws IOException {
+        // parsed so the table's indexes can be maintained, which also rejects malformed records
+        RecordId rid = table.insert(Tuple.fromBytes(table.getSchema(), record));
+        bodyOut.writeLong(rid.toLong());
+        return Protocol.OK;
+    }
+
+    private byte read(TableInfo table, long packed) throws IOException {
+        TableHeap heap = table.getHeap();
+        heap.getLatch().readLock().lock();
+        try {
+            byte[] record = heap.read(checkedRecordId(heap, packed));
+            if (record == null) {
+                return Protocol.NOT_FOUND;
+            }
+            bodyOut.write(record);
+            return Protocol.OK;
+        } finally {
+            heap.getLatch().readLock().unlock();
+        }
+    }
+
+    private byte delete(TableInfo table, long packed) throws IOException {
+        TableHeap heap = table.getHeap();
+        // held from the read to the delete, so a concurrent delete and an insert reusing
+        // the slot cannot slip in between and make us delete someone else's row
+        heap.getLatch().writeLock().lock();
+        try {
+            RecordId rid = checkedRecordId(heap, packed);
+            byte[] record = heap.read(rid);
+            if (record == null) {
+                return Protocol.NOT_FOUND;
+            }
+            table.delete(rid, Tuple.fromBytes(table.getSchema(), record));
+            return Protocol.OK;
+        } finally {
+            heap.getLatch().writeLock().unlock();
+        }
+    }
+
+    private byte scan(TableInfo table, int limit) throws IOException {
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        DataOutputStream rowsOut = new DataOutputStream(rows);
+        int count = 0;
+
+        SequentialScan scan = table.getHeap().scan();
+        try {
+            byte[] record;
+            while (count < limit && (record = scan.next()) != null) {
+                rowsOut.writeInt(record.length);
+                rowsOut.write(record);
+                count++;
+            }
+        } finally {
+            scan.close();
+        }
+
+        bodyOut.writeInt(count);
+        rows.writeTo(bodyOut);
+        return Protocol.OK;
+    }
+
+    // RecordIds come off the wire, so keep them to slots of the table a client may address
+    private static RecordId checkedRecordId(TableHeap heap, long packed) throws IOException {
+        RecordId rid = RecordId.fromLong(packed);
+        if (!heap.isAddressable(rid)) {
+            throw new IllegalArgumentException("No record " + rid + " in this table");
+        }
+        return rid;
+    }
+}
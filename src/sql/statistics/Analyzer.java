@@ -0,0 +1,129 @@
+package sql.statistics;
+
+import sql.record.Schema;
+import sql.record.Tuple;
+import sql.table.SequentialScan;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * ANALYZE: reads a random sample of the table's pages through the buffer pool
+ * and derives row counts and per-column statistics from the rows found there.
+ */
+public class Analyzer {
+    public static final int DEFAULT_SAMPLE_PAGES = 300;
+
+    // A column looking this unique in the sample is assumed to stay unique in the table
+    private static final double UNIQUE_RATIO = 0.9;
+
+    private final int samplePages;
+    private final int histogramBuckets;
+    private final Random random;
+
+    public Analyzer() {
+        this(DEFAULT_SAMPLE_PAGES, Histogram.DEFAULT_BUCKETS, new Random());
+    }
+
+    public Analyzer(int samplePages, int histogramBuckets, Random random) {
+        if (samplePages < 1) {
+            throw new IllegalArgumentException("samplePages must be positive: " + samplePages);
+        }
+        this.samplePages = samplePages;
+        this.histogramBuckets = histogramBuckets;
+        this.random = random;
+    }
+
+    public TableStatistics analyze(TableHeap table, Schema schema) throws IOException {
+        int firstPageId = table.getFirstPageId();
+        int pageCount = table.getLastPageId() - firstPageId + 1;
+        int columnCount = schema.getColumnCount();
+
+        HyperLogLog[] sketches = new HyperLogLog[columnCount];
+        long[] nulls = new long[columnCount];
+        double[][] values = new double[columnCount][];
+        for (int c = 0; c < columnCount; c++) {
+            sketches[c] = new HyperLogLog();
+            if (schema.getType(c).isNumeric()) {
+                values[c] = new double[1024];
+            }
+        }
+
+        long rows = 0;
+        long bytes = 0;
+        for (int pageId : samplePages(firstPageId, pageCount)) {
+            SequentialScan scan = table.scan(pageId, pageId);
+            byte[] record;
+            while ((record = scan.next()) != null) {
+                Tuple tuple = Tuple.fromBytes(schema, record);
+                for (int c = 0; c < columnCount; c++) {
+                    if (tuple.isNull(c)) {
+                        nulls[c]++;
+                        continue;
+                    }
+                    if (values[c] != null) {
+                        double value = tuple.getDouble(c);
+                        int seen = (int) (rows - nulls[c]);
+                        if (seen == values[c].length) {
+                            values[c] = Arrays.copyOf(values[c], seen * 2);
+                        }
+                        values[c][seen] = value;
+                        sketches[c].addDouble(value);
+                    } else {
+                        sketches[c].addString(tuple.getString(c));
+                    }
+                }
+                rows++;
+                bytes += record.length;
+            }
+            scan.close();
+        }
+
+        int sampled = Math.min(samplePages, pageCount);
+        long estimatedRows = Math.round((double) rows * pageCount / sampled);
+
+        ColumnStatistics[] columns = new ColumnStatistics[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            long nonNull = rows - nulls[c];
+            double nullFraction = rows == 0 ? 0 : (double) nulls[c] / rows;
+
+            long distinct = Math.min(sketches[c].estimate(), nonNull);
+            if (sampled < pageCount && distinct >= UNIQUE_RATIO * nonNull) {
+                // otherwise the sample is assumed to have met most distinct values already
+                distinct = Math.min(Math.round(distinct * (double) pageCount / sampled), estimatedRows);
+            }
+
+            Histogram histogram = null;
+            if (values[c] != null) {
+                double[] sorted = Arrays.copyOf(values[c], (int) nonNull);
+                Arrays.sort(sorted);
+                histogram = Histogram.build(sorted, histogramBuckets);
+            }
+            columns[c] = new ColumnStatistics(nullFraction, distinct, sketches[c], histogram);
+        }
+
+        double averageRowSize = rows == 0 ? 0 : (double) bytes / rows;
+        return new TableStatistics(estimatedRows, pageCount, averageRowSize, columns);
+    }
+
+    // Distinct random pages in ascending order, so the reads stay mostly sequential
+    private Iterable<Integer> samplePages(int firstPageId, int pageCount) {
+        TreeSet<Integer> pages = new TreeSet<>();
+        if (pageCount <= samplePages) {
+            for (int i = 0; i < pageCount; i++) {
+                pages.add(firstPageId + i);
+            }
+            return pages;
+        }
+
+        // Floyd's algorithm: samplePages distinct picks without shuffling every page
+        for (int i = pageCount - samplePages; i < pageCount; i++) {
+            int pick = random.nextInt(i + 1);
+            pages.add(firstPageId + (pages.contains(firstPageId + pick) ? i : pick));
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,63 @@
+package sql.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * What ANALYZE learned about one column. Min, max and histogram are only kept for numeric columns.
+ */
+public class ColumnStatistics {
+    private final double nullFraction;
+    private final long distinctCount;
+    private final HyperLogLog sketch;
+    // null for VARCHAR columns and columns without non-null values
+    private final Histogram histogram;
+
+    public ColumnStatistics(double nullFraction, long distinctCount, HyperLogLog sketch, Histogram histogram) {
+        this.nullFraction = nullFraction;
+        this.distinctCount = distinctCount;
+        this.sketch = sketch;
+        this.histogram = histogram;
+    }
+
+    public double getNullFraction() {
+        return nullFraction;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public HyperLogLog getSketch() {
+        return sketch;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeDouble(nullFraction);
+        out.writeLong(distinctCount);
+        sketch.write(out);
+        out.writeBoolean(histogram != null);
+        if (histogram != null) {
+            histogram.write(out);
+        }
+    }
+
+    public static ColumnStatistics read(DataInput in) throws IOException {
+        double nullFraction = in.readDouble();
+        long distinctCount = in.readLong();
+        HyperLogLog sketch = HyperLogLog.read(in);
+        Histogram histogram = in.readBoolean() ? Histogram.read(in) : null;
+        return new ColumnStatistics(nullFraction, distinctCount, sketch, histogram);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStatistics{nullFraction=" + nullFraction + ", distinct=" + distinctCount
+                + (histogram == null ? "" : ", min=" + histogram.getMin() + ", max=" + histogram.getMax()) + '}';
+    }
+}
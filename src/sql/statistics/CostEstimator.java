@@ -0,0 +1,205 @@
+package sql.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cardinality and cost estimates from table statistics. Costs are in units of one
+ * sequential page read; without statistics fixed default selectivities are used.
+ */
+public final class CostEstimator {
+    public static final double SEQUENTIAL_PAGE_COST = 1.0;
+    public static final double RANDOM_PAGE_COST = 4.0;
+    public static final double CPU_TUPLE_COST = 0.01;
+
+    public static final double DEFAULT_EQUALS_SELECTIVITY = 0.005;
+    public static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3;
+
+    // Exhaustive join ordering is exponential, larger joins are ordered greedily
+    private static final int MAX_EXHAUSTIVE_JOIN_INPUTS = 12;
+
+    public enum AccessPath {
+        SEQUENTIAL_SCAN, INDEX_SCAN
+    }
+
+    public record ScanPlan(AccessPath path, double rows, double cost) {
+    }
+
+    // One join input: its statistics and the selectivity of its own filters
+    public record JoinInput(String name, TableStatistics statistics, double selectivity) {
+    }
+
+    // Equi-join between columns of two inputs, by position in the input list
+    public record JoinCondition(int left, int leftColumn, int right, int rightColumn) {
+    }
+
+    public record JoinOrder(List<Integer> order, double rows, double cost) {
+    }
+
+    private CostEstimator() {
+    }
+
+    // column = constant
+    public static double equalsSelectivity(TableStatistics statistics, int column) {
+        if (statistics == null) {
+            return DEFAULT_EQUALS_SELECTIVITY;
+        }
+        ColumnStatistics stats = statistics.getColumn(column);
+        return (1 - stats.getNullFraction()) / Math.max(1, stats.getDistinctCount());
+    }
+
+    // lo <= column <= hi
+    public static double rangeSelectivity(TableStatistics statistics, int column, double lo, double hi) {
+        if (statistics == null || statistics.getColumn(column).getHistogram() == null) {
+            return DEFAULT_RANGE_SELECTIVITY;
+        }
+        ColumnStatistics stats = statistics.getColumn(column);
+        return (1 - stats.getNullFraction()) * stats.getHistogram().fractionBetween(lo, hi);
+    }
+
+    public static double sequentialScanCost(TableStatistics statistics) {
+        return statistics.getPageCount() * SEQUENTIAL_PAGE_COST + statistics.getRowCount() * CPU_TUPLE_COST;
+    }
+
+    // A hash index lookup reads one bucket page, then every match is a random heap read
+    public static double indexScanCost(double rows) {
+        return RANDOM_PAGE_COST + rows * (RANDOM_PAGE_COST + CPU_TUPLE_COST);
+    }
+
+    public static ScanPlan chooseScan(TableStatistics statistics, double selectivity, boolean indexAvailable) {
+        double rows = statistics.getRowCount() * selectivity;
+        double sequential = sequentialScanCost(statistics);
+        if (indexAvailable) {
+            double index = indexScanCost(rows);
+            if (index < sequential) {
+                return new ScanPlan(AccessPath.INDEX_SCAN, rows, index);
+            }
+        }
+        return new ScanPlan(AccessPath.SEQUENTIAL_SCAN, rows, sequential);
+    }
+
+    // Fraction of the cross product an equi-join keeps: 1 / max(distinct values of both sides)
+    public static double joinSelectivity(TableStatistics left, int leftColumn, TableStatistics right, int rightColumn) {
+        if (left == null || right == null) {
+            return DEFAULT_EQUALS_SELECTIVITY;
+        }
+        long distinct = Math.max(left.getColumn(leftColumn).getDistinctCount(),
+                right.getColumn(rightColumn).getDistinctCount());
+        return 1.0 / Math.max(1, distinct);
+    }
+
+    /**
+     * Left-deep join order with the smallest sum of intermediate result sizes.
+     * Exhaustive over subsets for small joins, greedy beyond that.
+     */
+    public static JoinOrder chooseJoinOrder(List<JoinInput> inputs, List<JoinCondition> conditions) {
+        int n = inputs.size();
+        if (n == 0) {
+            return new JoinOrder(List.of(), 0, 0);
+        }
+
+        double[] cardinality = new double[n];
+        for (int i = 0; i < n; i++) {
+            JoinInput input = inputs.get(i);
+            cardinality[i] = Math.max(1, input.statistics().getRowCount() * input.selectivity());
+        }
+        double[] selectivity = new double[conditions.size()];
+        for (int i = 0; i < selectivity.length; i++) {
+            JoinCondition c = conditions.get(i);
+            selectivity[i] = joinSelectivity(inputs.get(c.left()).statistics(), c.leftColumn(),
+                    inputs.get(c.right()).statistics(), c.rightColumn());
+        }
+
+        return n <= MAX_EXHAUSTIVE_JOIN_INPUTS
+                ? exhaustiveOrder(cardinality, conditions, selectivity)
+                : greedyOrder(cardinality, conditions, selectivity);
+    }
+
+    private static JoinOrder exhaustiveOrder(double[] cardinality, List<JoinCondition> conditions, double[] selectivity) {
+        int n = cardinality.length;
+        int subsets = 1 << n;
+        double[] rows = new double[subsets];
+        double[] cost = new double[subsets];
+        int[] last = new int[subsets];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+
+        for (int set = 1; set < subsets; set++) {
+            rows[set] = rows(set, cardinality, conditions, selectivity);
+            if (Integer.bitCount(set) == 1) {
+                cost[set] = 0;
+                last[set] = Integer.numberOfTrailingZeros(set);
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                int rest = set & ~(1 << i);
+                if (rest == set) {
+                    continue;
+                }
+                double candidate = cost[rest] + rows[set];
+                if (candidate < cost[set]) {
+                    cost[set] = candidate;
+                    last[set] = i;
+                }
+            }
+        }
+
+        List<Integer> order = new ArrayList<>(n);
+        for (int set = subsets - 1; set != 0; set &= ~(1 << last[set])) {
+            order.add(last[set]);
+        }
+        Collections.reverse(order);
+        return new JoinOrder(order, rows[subsets - 1], cost[subsets - 1]);
+    }
+
+    private static JoinOrder greedyOrder(double[] cardinality, List<JoinCondition> conditions, double[] selectivity) {
+        int n = cardinality.length;
+        int first = 0;
+        for (int i = 1; i < n; i++) {
+            if (cardinality[i] < cardinality[first]) {
+                first = i;
+            }
+        }
+
+        List<Integer> order = new ArrayList<>(List.of(first));
+        long set = 1L << first;
+        double cost = 0;
+        double rows = cardinality[first];
+        while (order.size() < n) {
+            int best = -1;
+            double bestRows = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if ((set & (1L << i)) == 0) {
+                    double joined = rows(set | (1L << i), cardinality, conditions, selectivity);
+                    if (joined < bestRows) {
+                        best = i;
+                        bestRows = joined;
+                    }
+                }
+            }
+            order.add(best);
+            set |= 1L << best;
+            rows = bestRows;
+            cost += rows;
+        }
+        return new JoinOrder(order, rows, cost);
+    }
+
+    // Estimated rows of joining a set of inputs: product of sizes times selectivity of the conditions inside
+    private static double rows(long set, double[] cardinality, List<JoinCondition> conditions, double[] selectivity) {
+        double rows = 1;
+        for (int i = 0; i < cardinality.length; i++) {
+            if ((set & (1L << i)) != 0) {
+                rows *= cardinality[i];
+            }
+        }
+        for (int i = 0; i < selectivity.length; i++) {
+            JoinCondition c = conditions.get(i);
+            if ((set & (1L << c.left())) != 0 && (set & (1L << c.right())) != 0) {
+                rows *= selectivity[i];
+            }
+        }
+        return Math.max(1, rows);
+    }
+}
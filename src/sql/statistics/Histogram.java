@@ -0,0 +1,104 @@
+package sql.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Equi-depth histogram over numeric values: every bucket holds the same share of rows,
+ * so frequent values get narrow buckets. Values inside a bucket are assumed uniform.
+ */
+public class Histogram {
+    public static final int DEFAULT_BUCKETS = 32;
+
+    // bucket i covers [bounds[i], bounds[i + 1]]
+    private final double[] bounds;
+
+    private Histogram(double[] bounds) {
+        this.bounds = bounds;
+    }
+
+    /**
+     * Build from sorted non-null values, null if there are none.
+     */
+    public static Histogram build(double[] sorted, int bucketCount) {
+        if (sorted.length == 0) {
+            return null;
+        }
+        int buckets = Math.min(bucketCount, sorted.length);
+        double[] bounds = new double[buckets + 1];
+        for (int i = 0; i < buckets; i++) {
+            bounds[i] = sorted[(int) ((long) sorted.length * i / buckets)];
+        }
+        bounds[buckets] = sorted[sorted.length - 1];
+        return new Histogram(bounds);
+    }
+
+    public int getBucketCount() {
+        return bounds.length - 1;
+    }
+
+    public double getMin() {
+        return bounds[0];
+    }
+
+    public double getMax() {
+        return bounds[bounds.length - 1];
+    }
+
+    // Share of non-null values v with lo <= v <= hi
+    public double fractionBetween(double lo, double hi) {
+        if (lo > hi) {
+            return 0;
+        }
+        return Math.max(0, fractionAtMost(hi) - fractionBelow(lo));
+    }
+
+    // Share of values <= x
+    public double fractionAtMost(double x) {
+        return fraction(x, true);
+    }
+
+    // Share of values < x
+    public double fractionBelow(double x) {
+        return fraction(x, false);
+    }
+
+    private double fraction(double x, boolean inclusive) {
+        int buckets = getBucketCount();
+        double covered = 0;
+        for (int i = 0; i < buckets; i++) {
+            double lo = bounds[i];
+            double hi = bounds[i + 1];
+            if (x > hi || (inclusive && x == hi)) {
+                covered += 1;
+            } else if (x > lo) {
+                covered += (x - lo) / (hi - lo);
+            } else {
+                break;
+            }
+        }
+        return covered / buckets;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(bounds.length);
+        for (double bound : bounds) {
+            out.writeDouble(bound);
+        }
+    }
+
+    public static Histogram read(DataInput in) throws IOException {
+        double[] bounds = new double[in.readInt()];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = in.readDouble();
+        }
+        return new Histogram(bounds);
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram" + Arrays.toString(bounds);
+    }
+}
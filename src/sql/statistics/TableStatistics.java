@@ -0,0 +1,70 @@
+package sql.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Row and page counts of a table plus per-column statistics, as of the last ANALYZE.
+ */
+public class TableStatistics {
+    private final long rowCount;
+    private final int pageCount;
+    private final double averageRowSize;
+    private final ColumnStatistics[] columns;
+
+    public TableStatistics(long rowCount, int pageCount, double averageRowSize, ColumnStatistics[] columns) {
+        this.rowCount = rowCount;
+        this.pageCount = pageCount;
+        this.averageRowSize = averageRowSize;
+        this.columns = columns;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public double getAverageRowSize() {
+        return averageRowSize;
+    }
+
+    public ColumnStatistics getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(rowCount);
+        out.writeInt(pageCount);
+        out.writeDouble(averageRowSize);
+        out.writeInt(columns.length);
+        for (ColumnStatistics column : columns) {
+            column.write(out);
+        }
+    }
+
+    public static TableStatistics read(DataInput in) throws IOException {
+        long rowCount = in.readLong();
+        int pageCount = in.readInt();
+        double averageRowSize = in.readDouble();
+        ColumnStatistics[] columns = new ColumnStatistics[in.readInt()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = ColumnStatistics.read(in);
+        }
+        return new TableStatistics(rowCount, pageCount, averageRowSize, columns);
+    }
+
+    @Override
+    public String toString() {
+        return "TableStatistics{rows=" + rowCount + ", pages=" + pageCount
+                + ", columns=" + Arrays.toString(columns) + '}';
+    }
+}
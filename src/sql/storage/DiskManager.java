@@ -1,18 +1,80 @@
 package sql.storage;
 
+import sql.metrics.DiskMetrics;
+import sql.metrics.PageIoEvent;
 import sql.page.Page;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Reads and writes fixed-size pages in one file, page N at offset N * pageSize.
+ * <p>
+ * Given a {@link PageCodec}, pages are compressed instead and stored in variable-size
+ * slots of whole 64-byte granules anywhere in the file. A sidecar file (path + ".map")
+ * records each page's slot, so the layout survives a reopen. Pages that do not shrink
+ * are stored raw. Callers only ever see whole, decompressed pages.
+ * <p>
+ * Every read, write and fsync is counted and timed in {@link DiskMetrics}, and emitted
+ * as a {@link PageIoEvent} when a JFR recording has that event enabled.
+ */
 public class DiskManager {
+    private static final int GRANULE = 64;
+    private static final int MAP_ENTRY_SIZE = 16;
+    private static final byte RAW = 0;
+
     private final RandomAccessFile file;
     private final int pageSize;
+    private final DiskMetrics metrics = new DiskMetrics();
+
+    // Compressed mode only; codec is null for the plain layout
+    private final PageCodec codec;
+    private final PageCodec[] decoders = new PageCodec[3];
+    private RandomAccessFile mapFile;
+    private final byte[] compressed;
+    private final byte[] mapEntry = new byte[MAP_ENTRY_SIZE];
+    // Per page: slot offset, (codec << 24 | stored length), slot capacity. Length 0 = never written
+    private long[] slotOffsets = new long[0];
+    private int[] slotInfo = new int[0];
+    private int[] slotCapacities = new int[0];
+    // Free slots by capacity, from rewrites that outgrew their slot
+    private final TreeMap<Integer, ArrayDeque<Long>> freeSlots = new TreeMap<>();
+    private long fileEnd;
 
     public DiskManager(String filePath, int pageSize) throws IOException {
+        this(filePath, pageSize, null);
+    }
+
+    public DiskManager(String filePath, int pageSize, PageCodec codec) throws IOException {
         this.file = new RandomAccessFile(filePath, "rw");
         this.pageSize = pageSize;
+        this.codec = codec;
+        this.compressed = codec == null ? null : new byte[pageSize];
+
+        if (codec != null) {
+            decoders[codec.id()] = codec;
+            mapFile = new RandomAccessFile(filePath + ".map", "rw");
+            loadMap();
+        }
+    }
+
+    public boolean isCompressed() {
+        return codec != null;
+    }
+
+    /**
+     * Bytes the data file takes on disk.
+     */
+    public long getStoredBytes() throws IOException {
+        return file.length();
+    }
+
+    public DiskMetrics getMetrics() {
+        return metrics;
     }
 
     public void writePage(int pageId, byte[] data) throws IOException {
@@ -20,6 +82,15 @@ public class DiskManager {
             throw new IllegalArgumentException("Invalid page size");
         }
 
+        PageIoEvent event = new PageIoEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int written = codec != null ? writeCompressed(pageId, data) : writePlain(pageId, data);
+        metrics.recordWrite(written, System.nanoTime() - start);
+        commit(event, PageIoEvent.WRITE, pageId, written);
+    }
+
+    private int writePlain(int pageId, byte[] data) throws IOException {
         long offset = (long) pageId * pageSize;
         long requiredSize = offset + pageSize;
 
@@ -29,6 +100,7 @@ public class DiskManager {
 
         file.seek(offset);
         file.write(data);
+        return data.length;
     }
 
     public Page getPage(int pageId) throws IOException {
@@ -46,25 +118,229 @@ public class DiskManager {
             throw new IllegalArgumentException("Invalid page size");
         }
 
+        PageIoEvent event = new PageIoEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int read = codec != null ? readCompressed(pageId, data) : readPlain(pageId, data);
+        metrics.recordRead(read, System.nanoTime() - start);
+        commit(event, PageIoEvent.READ, pageId, read);
+    }
+
+    private int readPlain(int pageId, byte[] data) throws IOException {
         long offset = (long) pageId * pageSize;
 
         // Page does not exist yet → return empty page
         if (offset >= file.length()) {
             Arrays.fill(data, (byte) 0);
-            return;
+            return 0;
         }
 
         file.seek(offset);
         // pipe file content starts from the above offset into data variable
         file.readFully(data);
+        return data.length;
+    }
+
+    /**
+     * Force written pages (and the slot map, when compressed) to the storage device.
+     */
+    public void sync() throws IOException {
+        PageIoEvent event = new PageIoEvent();
+        event.begin();
+        long start = System.nanoTime();
+        file.getChannel().force(false);
+        if (mapFile != null) {
+            mapFile.getChannel().force(false);
+        }
+        metrics.recordFsync(System.nanoTime() - start);
+        commit(event, PageIoEvent.FSYNC, -1, 0);
+    }
+
+    private static void commit(PageIoEvent event, String operation, int pageId, int bytes) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.pageId = pageId;
+            event.bytes = bytes;
+            event.commit();
+        }
     }
 
     public void close() throws IOException {
         file.close();
+        if (mapFile != null) {
+            mapFile.close();
+        }
     }
 
     public boolean pageExists(int pageId) throws IOException {
+        if (codec != null) {
+            synchronized (this) {
+                return pageId < slotInfo.length && slotInfo[pageId] != 0;
+            }
+        }
+
         long offset = (long) pageId * pageSize;
         return file.length() >= offset + pageSize;
     }
+
+    private synchronized int writeCompressed(int pageId, byte[] data) throws IOException {
+        if (data.length < pageSize) {
+            data = Arrays.copyOf(data, pageSize);
+        }
+
+        // Anything that does not save at least a granule is not worth decompressing
+        byte id = codec.id();
+        byte[] stored = compressed;
+        int length = codec.compress(data, compressed);
+        if (length < 0 || roundUp(length) >= pageSize) {
+            id = RAW;
+            stored = data;
+            length = pageSize;
+        }
+
+        ensureMapCapacity(pageId);
+        int needed = roundUp(length);
+        long offset = slotOffsets[pageId];
+        int capacity = slotCapacities[pageId];
+        if (slotInfo[pageId] == 0 || capacity < needed) {
+            if (slotInfo[pageId] != 0) {
+                freeSlots.computeIfAbsent(capacity, c -> new ArrayDeque<>()).push(offset);
+            }
+            Map.Entry<Integer, ArrayDeque<Long>> free = freeSlots.ceilingEntry(needed);
+            if (free != null) {
+                capacity = free.getKey();
+                offset = free.getValue().pop();
+                if (free.getValue().isEmpty()) {
+                    freeSlots.remove(capacity);
+                }
+            } else {
+                capacity = needed;
+                offset = fileEnd;
+                fileEnd += capacity;
+            }
+        }
+
+        file.seek(offset);
+        file.write(stored, 0, length);
+
+        slotOffsets[pageId] = offset;
+        slotInfo[pageId] = (id & 0xFF) << 24 | length;
+        slotCapacities[pageId] = capacity;
+        writeMapEntry(pageId);
+        return length + MAP_ENTRY_SIZE;
+    }
+
+    private synchronized int readCompressed(int pageId, byte[] data) throws IOException {
+        if (pageId >= slotInfo.length || slotInfo[pageId] == 0) {
+            Arrays.fill(data, (byte) 0);
+            return 0;
+        }
+
+        int id = slotInfo[pageId] >>> 24;
+        int length = slotInfo[pageId] & 0xFFFFFF;
+        file.seek(slotOffsets[pageId]);
+        if (id == RAW) {
+            file.readFully(data);
+            return length;
+        }
+
+        file.readFully(compressed, 0, length);
+        decoder(id).decompress(compressed, length, data);
+        return length;
+    }
+
+    private PageCodec decoder(int id) throws IOException {
+        if (id >= decoders.length) {
+            throw new IOException("Unknown page codec " + id);
+        }
+        if (decoders[id] == null) {
+            decoders[id] = switch (id) {
+                case Lz4Codec.ID -> new Lz4Codec();
+                case DeflateCodec.ID -> new DeflateCodec();
+                default -> throw new IOException("Unknown page codec " + id);
+            };
+        }
+        return decoders[id];
+    }
+
+    private void loadMap() throws IOException {
+        int pages = (int) (mapFile.length() / MAP_ENTRY_SIZE);
+        slotOffsets = new long[pages];
+        slotInfo = new int[pages];
+        slotCapacities = new int[pages];
+
+        byte[] entries = new byte[pages * MAP_ENTRY_SIZE];
+        mapFile.seek(0);
+        mapFile.readFully(entries);
+        for (int pageId = 0; pageId < pages; pageId++) {
+            int at = pageId * MAP_ENTRY_SIZE;
+            slotOffsets[pageId] = readLong(entries, at);
+            slotInfo[pageId] = readInt(entries, at + 8);
+            slotCapacities[pageId] = readInt(entries, at + 12);
+        }
+
+        // Gaps between live slots are slots given up before the last close
+        Integer[] live = new Integer[pages];
+        int count = 0;
+        for (int pageId = 0; pageId < pages; pageId++) {
+            if (slotInfo[pageId] != 0) {
+                live[count++] = pageId;
+            }
+        }
+        Arrays.sort(live, 0, count, (a, b) -> Long.compare(slotOffsets[a], slotOffsets[b]));
+
+        long end = 0;
+        for (int i = 0; i < count; i++) {
+            int pageId = live[i];
+            if (slotOffsets[pageId] > end) {
+                int gap = (int) (slotOffsets[pageId] - end);
+                long gapStart = end;
+                freeSlots.computeIfAbsent(gap, c -> new ArrayDeque<>()).push(gapStart);
+            }
+            end = Math.max(end, slotOffsets[pageId] + slotCapacities[pageId]);
+        }
+        fileEnd = end;
+    }
+
+    private void writeMapEntry(int pageId) throws IOException {
+        writeLong(mapEntry, 0, slotOffsets[pageId]);
+        writeInt(mapEntry, 8, slotInfo[pageId]);
+        writeInt(mapEntry, 12, slotCapacities[pageId]);
+        mapFile.seek((long) pageId * MAP_ENTRY_SIZE);
+        mapFile.write(mapEntry);
+    }
+
+    private void ensureMapCapacity(int pageId) {
+        if (pageId < slotInfo.length) {
+            return;
+        }
+        int size = Math.max(pageId + 1, slotInfo.length * 2);
+        slotOffsets = Arrays.copyOf(slotOffsets, size);
+        slotInfo = Arrays.copyOf(slotInfo, size);
+        slotCapacities = Arrays.copyOf(slotCapacities, size);
+    }
+
+    private static int roundUp(int length) {
+        return (length + GRANULE - 1) / GRANULE * GRANULE;
+    }
+
+    private static long readLong(byte[] b, int at) {
+        return (readInt(b, at) & 0xFFFFFFFFL) | (long) readInt(b, at + 4) << 32;
+    }
+
+    private static int readInt(byte[] b, int at) {
+        return (b[at] & 0xFF) | (b[at + 1] & 0xFF) << 8 | (b[at + 2] & 0xFF) << 16 | (b[at + 3] & 0xFF) << 24;
+    }
+
+    private static void writeLong(byte[] b, int at, long value) {
+        writeInt(b, at, (int) value);
+        writeInt(b, at + 4, (int) (value >>> 32));
+    }
+
+    private static void writeInt(byte[] b, int at, int value) {
+        b[at] = (byte) value;
+        b[at + 1] = (byte) (value >>> 8);
+        b[at + 2] = (byte) (value >>> 16);
+        b[at + 3] = (byte) (value >>> 24);
+    }
 }
@@ -0,0 +1,186 @@
+package sql.storage;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * LZ4 block format: greedy matching through a small hash table of 4-byte sequences.
+ * Much faster than Deflater at a lower ratio, which suits pages read on every miss.
+ */
+public class Lz4Codec implements PageCodec {
+    public static final byte ID = 1;
+
+    private static final int MIN_MATCH = 4;
+    // The format wants the last 5 bytes as literals and no match starting in the last 12
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_BITS = 12;
+    // Skip ahead faster the longer nothing matches, so incompressible pages cost little
+    private static final int SKIP_TRIGGER = 6;
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int[] table = new int[1 << HASH_BITS];
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public int compress(byte[] src, byte[] dst) {
+        Arrays.fill(table, -1);
+        int length = src.length;
+        int anchor = 0;
+        int ip = 0;
+        int op = 0;
+        int misses = 0;
+
+        while (ip < length - MATCH_FIND_LIMIT) {
+            int sequence = (int) INT.get(src, ip);
+            int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+            int ref = table[hash];
+            table[hash] = ip;
+
+            if (ref < 0 || ip - ref > MAX_OFFSET || (int) INT.get(src, ref) != sequence) {
+                ip += 1 + (misses++ >>> SKIP_TRIGGER);
+                continue;
+            }
+            misses = 0;
+
+            int matchLength = MIN_MATCH + commonLength(src, ref + MIN_MATCH, ip + MIN_MATCH, length - LAST_LITERALS);
+
+            op = writeSequence(src, anchor, ip - anchor, dst, op, ip - ref, matchLength);
+            if (op < 0) {
+                return -1;
+            }
+            ip += matchLength;
+            anchor = ip;
+        }
+
+        return writeLastLiterals(src, anchor, length - anchor, dst, op);
+    }
+
+    // Bytes equal at a and b, compared eight at a time, without b reaching limit
+    private static int commonLength(byte[] src, int a, int b, int limit) {
+        int start = b;
+        while (b + 8 <= limit) {
+            long diff = (long) LONG.get(src, a) ^ (long) LONG.get(src, b);
+            if (diff != 0) {
+                return b - start + (Long.numberOfTrailingZeros(diff) >>> 3);
+            }
+            a += 8;
+            b += 8;
+        }
+        while (b < limit && src[a] == src[b]) {
+            a++;
+            b++;
+        }
+        return b - start;
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literals, byte[] dst, int op,
+                                     int offset, int matchLength) {
+        int extra = matchLength - MIN_MATCH;
+        // token, length bytes, literals, offset
+        if (op + 1 + literals / 255 + 1 + literals + 2 + extra / 255 + 1 > dst.length) {
+            return -1;
+        }
+
+        dst[op++] = (byte) ((Math.min(literals, 15) << 4) | Math.min(extra, 15));
+        op = writeLength(dst, op, literals);
+        System.arraycopy(src, literalStart, dst, op, literals);
+        op += literals;
+
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        return writeLength(dst, op, extra);
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalStart, int literals, byte[] dst, int op) {
+        if (op + 1 + literals / 255 + 1 + literals > dst.length) {
+            return -1;
+        }
+        dst[op++] = (byte) (Math.min(literals, 15) << 4);
+        op = writeLength(dst, op, literals);
+        System.arraycopy(src, literalStart, dst, op, literals);
+        return op + literals;
+    }
+
+    // Lengths from 15 on continue in extra bytes of up to 255 each
+    private static int writeLength(byte[] dst, int op, int length) {
+        if (length < 15) {
+            return op;
+        }
+        int rest = length - 15;
+        while (rest >= 255) {
+            dst[op++] = (byte) 255;
+            rest -= 255;
+        }
+        dst[op++] = (byte) rest;
+        return op;
+    }
+
+    @Override
+    public void decompress(byte[] src, int length, byte[] dst) throws IOException {
+        int ip = 0;
+        int op = 0;
+        try {
+            while (true) {
+                int token = src[ip++] & 0xFF;
+
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+                System.arraycopy(src, ip, dst, op, literals);
+                ip += literals;
+                op += literals;
+
+                if (ip >= length) {
+                    break;
+                }
+
+                int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+                ip += 2;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+
+                if (offset == 0 || offset > op) {
+                    throw new IOException("Corrupt LZ4 page: bad match offset " + offset);
+                }
+                // A match may overlap what it produces; the bytes from ref repeat with period
+                // offset, so copy in chunks that double as the copied run grows
+                int ref = op - offset;
+                while (matchLength > 0) {
+                    int chunk = Math.min(matchLength, op - ref);
+                    System.arraycopy(dst, ref, dst, op, chunk);
+                    op += chunk;
+                    matchLength -= chunk;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt LZ4 page", e);
+        }
+
+        if (op != dst.length) {
+            throw new IOException("Corrupt LZ4 page: decoded " + op + " of " + dst.length + " bytes");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package sql.storage;
+
+import java.io.IOException;
+
+/**
+ * Compresses whole pages for a compressed DiskManager. Codecs keep scratch state,
+ * so one instance must not be used by two threads at once.
+ */
+public interface PageCodec {
+    /**
+     * Id stored with every compressed page, so pages can be read back with the right codec.
+     */
+    byte id();
+
+    /**
+     * Compress src into dst. Returns the compressed length, or -1 if it does not fit in dst.
+     */
+    int compress(byte[] src, byte[] dst);
+
+    /**
+     * Decompress length bytes of src, filling dst completely.
+     */
+    void decompress(byte[] src, int length, byte[] dst) throws IOException;
+}
@@ -0,0 +1,105 @@
+package sql.storage;
+
+import sql.page.Page;
+import sql.page.PageType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Temporary file of records for operators that run out of memory.
+ * Records are packed into slotted pages and written through a DiskManager
+ * one page at a time, then read back in the order they were appended.
+ * The file is deleted on close().
+ */
+public class SpillFile implements Closeable {
+    private final Path path;
+    private final DiskManager diskManager;
+
+    private Page writePage;
+    private int pageCount;
+    private long recordCount;
+    private boolean finished;
+
+    public SpillFile(String prefix) throws IOException {
+        this.path = Files.createTempFile(prefix, ".spill");
+        this.diskManager = new DiskManager(path.toString(), Page.PAGE_SIZE);
+        this.writePage = new Page(0, PageType.DATA);
+    }
+
+    public void append(byte[] record) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Spill file already finished");
+        }
+
+        if (!writePage.hasSpaceFor(record.length)) {
+            flushWritePage();
+        }
+        writePage.insertRecord(record);
+        recordCount++;
+    }
+
+    // Write the last partial page, no appends after this
+    public void finish() throws IOException {
+        if (!finished) {
+            if (writePage.getSlotCount() > 0) {
+                flushWritePage();
+            }
+            writePage = null;
+            finished = true;
+        }
+    }
+
+    private void flushWritePage() throws IOException {
+        diskManager.writePage(pageCount, writePage.getData());
+        pageCount++;
+        writePage = new Page(pageCount, PageType.DATA);
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Reads the records back in append order. Finishes the file first.
+     */
+    public Reader reader() throws IOException {
+        finish();
+        return new Reader();
+    }
+
+    @Override
+    public void close() throws IOException {
+        diskManager.close();
+        Files.deleteIfExists(path);
+    }
+
+    public class Reader {
+        private final byte[] pageBytes = new byte[Page.PAGE_SIZE];
+        private Page page;
+        private int pageId = -1;
+        private int slotId;
+
+        /**
+         * Returns the next record, or null at the end of the file.
+         */
+        public byte[] next() throws IOException {
+            while (page == null || slotId >= page.getSlotCount()) {
+                if (pageId + 1 >= pageCount) {
+                    return null;
+                }
+                pageId++;
+                diskManager.readPage(pageId, pageBytes);
+                page = new Page(pageBytes);
+                slotId = 0;
+            }
+            return page.readRecord(slotId++);
+        }
+    }
+}
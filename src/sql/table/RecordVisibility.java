@@ -0,0 +1,16 @@
+package sql.table;
+
+import sql.record.RecordId;
+
+import java.io.IOException;
+
+/**
+ * Decides which version of a stored record a reader gets, e.g. by snapshot.
+ * Called with the table latch held, so the stored bytes cannot change meanwhile.
+ */
+public interface RecordVisibility {
+    /**
+     * Returns the bytes the reader should see for the record stored at rid, or null to skip it.
+     */
+    byte[] resolve(RecordId rid, byte[] stored) throws IOException;
+}
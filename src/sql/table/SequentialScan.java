@@ -3,8 +3,11 @@ package sql.table;
 import sql.buffer.BufferPool;
 import sql.page.Page;
 import sql.page.Slot;
+import sql.record.RecordId;
 
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntPredicate;
 
 public class SequentialScan {
 
@@ -12,27 +15,84 @@ public class SequentialScan {
     private final int firstPageId;
     private final int lastPageId;
 
+    // Table read latch held during each next(), null when the caller coordinates access
+    private final Lock latch;
+    // Picks the version of each record to return, null returns stored bytes as is
+    private final RecordVisibility visibility;
+    // Pages failing it are skipped without being fetched, null reads every page
+    private final IntPredicate pageFilter;
+    private int pagesSkipped;
+
     private int currentPageId;
     private int currentSlotId;
 
     private Page currentPage;
     private boolean finished = false;
 
+    // Home RecordId of the last record returned
+    private RecordId lastRecordId;
+
     public SequentialScan(BufferPool bufferPool, int firstPageId, int lastPageId) throws IOException {
+        this(bufferPool, firstPageId, lastPageId, null, null, null);
+    }
+
+    SequentialScan(BufferPool bufferPool, int firstPageId, int lastPageId, Lock latch,
+                   RecordVisibility visibility, IntPredicate pageFilter) throws IOException {
         this.bufferPool = bufferPool;
         this.firstPageId = firstPageId;
         this.lastPageId = lastPageId;
+        this.latch = latch;
+        this.visibility = visibility;
+        this.pageFilter = pageFilter;
 
-        this.currentPageId = firstPageId;
+        this.currentPageId = skipPages(firstPageId);
         this.currentSlotId = 0;
 
-        this.currentPage = bufferPool.fetchPage(currentPageId);
+        if (currentPageId > lastPageId) {
+            finished = true;
+        } else {
+            this.currentPage = bufferPool.fetchPage(currentPageId);
+        }
+    }
+
+    // First page from pageId on that the filter lets through, lastPageId + 1 if none
+    private int skipPages(int pageId) {
+        if (pageFilter != null) {
+            while (pageId <= lastPageId && !pageFilter.test(pageId)) {
+                pagesSkipped++;
+                pageId++;
+            }
+        }
+        return pageId;
     }
 
     /**
      * Returns the next record, or null if scan is finished.
      */
     public byte[] next() throws IOException {
+        if (latch != null) {
+            latch.lock();
+        }
+        try {
+            while (true) {
+                byte[] stored = nextStored();
+                if (stored == null || visibility == null) {
+                    return stored;
+                }
+
+                byte[] visible = visibility.resolve(lastRecordId, stored);
+                if (visible != null) {
+                    return visible;
+                }
+            }
+        } finally {
+            if (latch != null) {
+                latch.unlock();
+            }
+        }
+    }
+
+    private byte[] nextStored() throws IOException {
         if (finished) {
             return null;
         }
@@ -44,16 +104,28 @@ public class SequentialScan {
                 int slotId = currentSlotId;
                 currentSlotId++;
 
-                if (slot.isDeleted()) {
+                // moved records are returned once, through their home slot
+                if (slot.isDeleted() || slot.isRelocated()) {
                     continue;
                 }
 
+                lastRecordId = new RecordId(currentPageId, (short) slotId);
+
+                if (slot.isForwarded()) {
+                    // a stub whose target is gone is skipped, a null here would end the scan
+                    byte[] record = readForwarded(slotId);
+                    if (record == null) {
+                        continue;
+                    }
+                    return record;
+                }
+
                 return currentPage.readRecord(slotId);
             }
 
             bufferPool.unpinPage(currentPageId, false);
 
-            currentPageId++;
+            currentPageId = skipPages(currentPageId + 1);
             currentSlotId = 0;
 
             if (currentPageId > lastPageId) {
@@ -66,6 +138,25 @@ public class SequentialScan {
         }
     }
 
+    public RecordId getLastRecordId() {
+        return lastRecordId;
+    }
+
+    public int getPagesSkipped() {
+        return pagesSkipped;
+    }
+
+    private byte[] readForwarded(int slotId) throws IOException {
+        int targetPageId = currentPage.getForwardPageId(slotId);
+        short targetSlotId = currentPage.getForwardSlotId(slotId);
+
+        Page targetPage = bufferPool.fetchPage(targetPageId);
+        byte[] record = targetPage.readRecord(targetSlotId);
+        bufferPool.unpinPage(targetPageId, false);
+
+        return record;
+    }
+
     /**
      * Must be called by user when scan is done.
      */
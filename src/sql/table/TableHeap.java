@@ -6,14 +6,39 @@ import sql.page.PageType;
 import sql.page.Slot;
 import sql.record.RecordId;
 
+import sql.record.Schema;
+
 import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
 
+/**
+ * Records on a contiguous range of pages.
+ *
+ * A read/write latch guards the pages: writers take it for one call, scans take the
+ * read side for each next(), so readers and writers on different threads interleave
+ * per record rather than per scan.
+ */
 public class TableHeap {
 
     private final BufferPool bufferPool;
+    private final ReadWriteLock latch = new ReentrantReadWriteLock();
+    // Per-page min/max kept up to date by insert and update, null when not enabled
+    private ZoneMap zoneMap;
 
     private int firstPageId;
-    private int lastPageId;
+    private volatile int lastPageId;
+    // Highest page the table may grow into, the page before whatever comes next on disk
+    private volatile int pageLimit = Integer.MAX_VALUE;
+    private volatile GrowthListener growthListener;
+
+    /**
+     * Told about every page the table adds, e.g. so the catalog can record the new range.
+     */
+    public interface GrowthListener {
+        void pageAdded(TableHeap heap) throws IOException;
+    }
 
     public int getFirstPageId() {
         return firstPageId;
@@ -32,7 +57,54 @@ public class TableHeap {
         bufferPool.unpinPage(firstPageId, false);
     }
 
+    // Reopen a table whose page range is known, e.g. from the catalog
+    public TableHeap(BufferPool bufferPool, int firstPageId, int lastPageId) {
+        if (lastPageId < firstPageId) {
+            throw new IllegalArgumentException("Invalid page range " + firstPageId + ".." + lastPageId);
+        }
+        this.bufferPool = bufferPool;
+        this.firstPageId = firstPageId;
+        this.lastPageId = lastPageId;
+    }
+
+    public int getPageLimit() {
+        return pageLimit;
+    }
+
+    public void setPageLimit(int pageLimit) {
+        if (pageLimit < lastPageId) {
+            throw new IllegalArgumentException("Page limit " + pageLimit + " is below the last page " + lastPageId);
+        }
+        this.pageLimit = pageLimit;
+    }
+
+    public void setGrowthListener(GrowthListener growthListener) {
+        this.growthListener = growthListener;
+    }
+
+    // Held across several calls by callers that check and then write, like MVCC
+    public ReadWriteLock getLatch() {
+        return latch;
+    }
+
     public RecordId insert(byte[] recordBytes) throws IOException {
+        latch.writeLock().lock();
+        try {
+            RecordId rid = insert(recordBytes, false);
+            if (zoneMap != null) {
+                zoneMap.add(rid.getPageId(), recordBytes);
+            }
+            return rid;
+        } finally {
+            latch.writeLock().unlock();
+        }
+    }
+
+    // Relocated records are only reachable through their home slot's forwarding stub
+    private RecordId insert(byte[] recordBytes, boolean relocated) throws IOException {
+        if (recordBytes.length > Page.MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Record too large for a page: " + recordBytes.length + " bytes");
+        }
 
         int pageId = firstPageId;
 
@@ -40,7 +112,7 @@ public class TableHeap {
             Page page = bufferPool.fetchPage(pageId);
 
             if (page.hasSpaceFor(recordBytes.length)) {
-                short slotId = (short) page.insertRecord(recordBytes);
+                short slotId = (short) page.insertRecord(recordBytes, relocated);
                 bufferPool.unpinPage(pageId, true);
                 return new RecordId(pageId, slotId);
             }
@@ -49,6 +121,9 @@ public class TableHeap {
 
             // Move to next page or create one
             if (pageId == lastPageId) {
+                if (lastPageId == pageLimit) {
+                    throw new IllegalStateException("Table pages " + firstPageId + ".." + pageLimit + " are full");
+                }
                 int newPageId = lastPageId + 1;
                 Page newPage = bufferPool.fetchPage(newPageId);
                 newPage.initEmpty(newPageId, PageType.DATA);
@@ -56,6 +131,10 @@ public class TableHeap {
                 bufferPool.unpinPage(newPageId, true);
 
                 lastPageId = newPageId;
+                GrowthListener listener = growthListener;
+                if (listener != null) {
+                    listener.pageAdded(this);
+                }
             }
 
             pageId++;
@@ -63,43 +142,254 @@ public class TableHeap {
     }
 
     public byte[] read(RecordId rid) throws IOException {
+        latch.readLock().lock();
+        try {
+            return readLatched(rid);
+        } finally {
+            latch.readLock().unlock();
+        }
+    }
+
+    // Read the version of a record the given visibility allows, null if none
+    public byte[] read(RecordId rid, RecordVisibility visibility) throws IOException {
+        latch.readLock().lock();
+        try {
+            byte[] stored = readLatched(rid);
+            return stored == null ? null : visibility.resolve(rid, stored);
+        } finally {
+            latch.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether rid names a slot on this table's pages that callers may address. The new
+     * location of a moved record is not one: it is only reachable through its home slot.
+     */
+    public boolean isAddressable(RecordId rid) throws IOException {
+        latch.readLock().lock();
+        try {
+            int pageId = rid.getPageId();
+            if (pageId < firstPageId || pageId > lastPageId) {
+                return false;
+            }
+
+            Page page = bufferPool.fetchPage(pageId);
+            short slotId = rid.getSlotId();
+            boolean addressable = slotId >= 0 && slotId < page.getSlotCount()
+                    && !page.getSlot(slotId).isRelocated();
+            bufferPool.unpinPage(pageId, false);
+            return addressable;
+        } finally {
+            latch.readLock().unlock();
+        }
+    }
+
+    private byte[] readLatched(RecordId rid) throws IOException {
         int pageId = rid.getPageId();
+        short slotId = rid.getSlotId();
 
         Page page = bufferPool.fetchPage(pageId);
-        byte[] data = page.readRecord(rid.getSlotId());
-        bufferPool.unpinPage(pageId, false);
 
-        return data;
+        // a bad slot id throws, and must not leave the page pinned
+        RecordId target;
+        try {
+            if (slotId < 0 || slotId >= page.getSlotCount()) {
+                throw new IllegalArgumentException("No slot " + slotId + " on page " + pageId);
+            }
+            if (!page.getSlot(slotId).isForwarded()) {
+                return page.readRecord(slotId);
+            }
+            target = forwardTarget(page, slotId);
+        } finally {
+            bufferPool.unpinPage(pageId, false);
+        }
+
+        // follow the stub to where the record lives now
+        return readAt(target);
     }
 
+    /**
+     * Update a record. The RecordId stays valid: the record grows in place when its
+     * page has room, otherwise it moves and the home slot keeps a forwarding stub.
+     * Stubs always point directly at the data, so reads take at most one extra hop.
+     */
     public RecordId update(RecordId rid, byte[] newData) throws IOException {
+        latch.writeLock().lock();
+        try {
+            updateLatched(rid, newData);
+            if (zoneMap != null) {
+                zoneMap.add(rid.getPageId(), newData);
+            }
+            return rid;
+        } finally {
+            latch.writeLock().unlock();
+        }
+    }
+
+    private RecordId updateLatched(RecordId rid, byte[] newData) throws IOException {
+        if (newData.length > Page.MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Record too large for a page: " + newData.length + " bytes");
+        }
+
         int pageId = rid.getPageId();
         short slotId = rid.getSlotId();
 
         Page page = bufferPool.fetchPage(pageId);
-        Slot slot = page.getSlot(slotId);
+        boolean dirty = false;
+        try {
+            Slot slot = page.getSlot(slotId);
+            if (slot.isDeleted()) {
+                throw new IllegalArgumentException("Cannot update deleted record " + rid);
+            }
 
-        // overwrite in-place if it fits
-        if (!slot.isDeleted() && newData.length <= slot.getLength()) {
-            page.writeRecord(slotId, newData);
-            bufferPool.unpinPage(pageId, true);
+            RecordId oldTarget = slot.isForwarded() ? forwardTarget(page, slotId) : null;
+
+            // overwrite or grow on the home page, this also pulls a moved record back home
+            if (page.updateRecord(slotId, newData)) {
+                dirty = true;
+                if (oldTarget != null) {
+                    deleteAt(oldTarget);
+                }
+                return rid;
+            }
+
+            // already moved: try to grow where it lives now
+            if (oldTarget != null && updateAt(oldTarget, newData)) {
+                return rid;
+            }
+
+            // move the record and leave a stub in the home slot. The old copy goes only once
+            // the stub points at the new one, so a full table leaves the record as it was
+            RecordId newTarget = insert(newData, true);
+            page.forwardRecord(slotId, newTarget.getPageId(), newTarget.getSlotId());
+            dirty = true;
+            if (oldTarget != null) {
+                deleteAt(oldTarget);
+            }
             return rid;
+        } finally {
+            bufferPool.unpinPage(pageId, dirty);
+        }
+    }
+
+    public SequentialScan scan() throws IOException {
+        return scan(null, null);
+    }
+
+    // Scan returning only the record versions the visibility allows
+    public SequentialScan scan(RecordVisibility visibility) throws IOException {
+        return scan(visibility, null);
+    }
+
+    /**
+     * Scan skipping the pages the filter rejects without fetching them, e.g. a zone map range.
+     * Either argument may be null.
+     */
+    public SequentialScan scan(RecordVisibility visibility, IntPredicate pageFilter) throws IOException {
+        latch.readLock().lock();
+        try {
+            return new SequentialScan(bufferPool, firstPageId, lastPageId, latch.readLock(), visibility, pageFilter);
+        } finally {
+            latch.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scan only the pages whose zone for column overlaps [lo, hi]. Rows on those pages
+     * are returned whether they match or not, the caller still filters.
+     */
+    public SequentialScan scanRange(int column, double lo, double hi) throws IOException {
+        latch.readLock().lock();
+        try {
+            if (zoneMap == null) {
+                throw new IllegalStateException("No zone map on this table");
+            }
+            return scan(null, zoneMap.pagesMatching(column, lo, hi));
+        } finally {
+            latch.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keep per-page min/max for the given numeric columns, built now from the existing rows.
+     * Records must be tuples of the schema.
+     */
+    public ZoneMap enableZoneMap(Schema schema, int... columns) throws IOException {
+        latch.writeLock().lock();
+        try {
+            ZoneMap map = new ZoneMap(schema, firstPageId, columns);
+            SequentialScan scan = new SequentialScan(bufferPool, firstPageId, lastPageId, null, null, null);
+            byte[] record;
+            while ((record = scan.next()) != null) {
+                map.add(scan.getLastRecordId().getPageId(), record);
+            }
+            scan.close();
+            zoneMap = map;
+            return map;
+        } finally {
+            latch.writeLock().unlock();
+        }
+    }
+
+    // Null if not enabled
+    public ZoneMap getZoneMap() {
+        return zoneMap;
+    }
+
+    // Scan part of the table, e.g. one range of a parallel scan
+    public SequentialScan scan(int fromPageId, int toPageId) throws IOException {
+        latch.readLock().lock();
+        try {
+            if (fromPageId < firstPageId || toPageId > lastPageId || fromPageId > toPageId) {
+                throw new IllegalArgumentException("Page range " + fromPageId + ".." + toPageId
+                        + " is outside table pages " + firstPageId + ".." + lastPageId);
+            }
+            return new SequentialScan(bufferPool, fromPageId, toPageId, latch.readLock(), null, null);
+        } finally {
+            latch.readLock().unlock();
         }
-        // delete old data and replace
-        else {
-            System.out.println("Delete old data and replace");
+    }
+
+    public void delete(RecordId rid) throws IOException {
+        latch.writeLock().lock();
+        try {
+            int pageId = rid.getPageId();
+            short slotId = rid.getSlotId();
+
+            Page page = bufferPool.fetchPage(pageId);
+            RecordId target = page.getSlot(slotId).isForwarded() ? forwardTarget(page, slotId) : null;
             page.deleteRecord(slotId);
             bufferPool.unpinPage(pageId, true);
 
-            return insert(newData);
+            if (target != null) {
+                deleteAt(target);
+            }
+        } finally {
+            latch.writeLock().unlock();
         }
     }
 
-    public void delete(RecordId rid) throws IOException {
-        int pageId = rid.getPageId();
+    private static RecordId forwardTarget(Page page, short slotId) {
+        return new RecordId(page.getForwardPageId(slotId), page.getForwardSlotId(slotId));
+    }
 
-        Page page = bufferPool.fetchPage(pageId);
+    private byte[] readAt(RecordId rid) throws IOException {
+        Page page = bufferPool.fetchPage(rid.getPageId());
+        byte[] data = page.readRecord(rid.getSlotId());
+        bufferPool.unpinPage(rid.getPageId(), false);
+        return data;
+    }
+
+    private boolean updateAt(RecordId rid, byte[] newData) throws IOException {
+        Page page = bufferPool.fetchPage(rid.getPageId());
+        boolean updated = page.updateRecord(rid.getSlotId(), newData);
+        bufferPool.unpinPage(rid.getPageId(), updated);
+        return updated;
+    }
+
+    private void deleteAt(RecordId rid) throws IOException {
+        Page page = bufferPool.fetchPage(rid.getPageId());
         page.deleteRecord(rid.getSlotId());
-        bufferPool.unpinPage(pageId, true);
+        bufferPool.unpinPage(rid.getPageId(), true);
     }
 }
@@ -0,0 +1,145 @@
+package sql.table;
+
+import sql.record.ColumnType;
+import sql.record.Schema;
+import sql.record.Tuple;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Min/max of chosen numeric columns for every page of a table, kept beside the pages.
+ *
+ * Each record counts for its home page, the one its RecordId names, since that is
+ * where scans return it. Inserts and updates only widen a page's range; deletes do
+ * not shrink it, so a zone may be wider than the page's data but never narrower.
+ * Pages without non-null values of a column have an empty range for it.
+ */
+public class ZoneMap {
+    private static final int INITIAL_PAGES = 64;
+
+    private final Schema schema;
+    private final int[] columns;
+    private final int firstPageId;
+
+    // [tracked column][page - firstPageId]
+    private double[][] min;
+    private double[][] max;
+
+    ZoneMap(Schema schema, int firstPageId, int... columns) {
+        for (int column : columns) {
+            if (!schema.getType(column).isNumeric()) {
+                throw new IllegalArgumentException("Zone maps need numeric columns, got " + schema.getColumn(column));
+            }
+        }
+        this.schema = schema;
+        this.columns = columns.clone();
+        this.firstPageId = firstPageId;
+        this.min = new double[columns.length][];
+        this.max = new double[columns.length][];
+        clear();
+    }
+
+    void clear() {
+        for (int i = 0; i < columns.length; i++) {
+            min[i] = new double[INITIAL_PAGES];
+            max[i] = new double[INITIAL_PAGES];
+            Arrays.fill(min[i], Double.POSITIVE_INFINITY);
+            Arrays.fill(max[i], Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    // Widen the zone of the record's home page to cover its values
+    void add(int pageId, byte[] record) {
+        int page = pageId - firstPageId;
+        if (page >= min[0].length) {
+            grow(Math.max(page + 1, min[0].length * 2));
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+        int pos = Tuple.bitmapSize(schema.getColumnCount());
+        int tracked = 0;
+        for (int c = 0; c < schema.getColumnCount() && tracked < columns.length; c++) {
+            boolean isNull = (record[c >> 3] & (1 << (c & 7))) != 0;
+            if (isNull) {
+                continue;
+            }
+
+            ColumnType type = schema.getType(c);
+            int index = indexOf(c);
+            if (index >= 0) {
+                tracked++;
+                switch (type) {
+                    case INT -> widen(index, page, buffer.getInt(pos), buffer.getInt(pos));
+                    case DOUBLE -> widen(index, page, buffer.getDouble(pos), buffer.getDouble(pos));
+                    default -> {
+                        // large longs are not exact as doubles, round outwards
+                        long value = buffer.getLong(pos);
+                        double approx = value;
+                        widen(index, page, (long) approx > value ? Math.nextDown(approx) : approx,
+                                (long) approx < value ? Math.nextUp(approx) : approx);
+                    }
+                }
+            }
+            pos += type.isFixedSize() ? type.size : 2 + ((record[pos] & 0xFF) | (record[pos + 1] & 0xFF) << 8);
+        }
+    }
+
+    private int indexOf(int column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == column) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void widen(int index, int page, double low, double high) {
+        if (low < min[index][page]) {
+            min[index][page] = low;
+        }
+        if (high > max[index][page]) {
+            max[index][page] = high;
+        }
+    }
+
+    private void grow(int pages) {
+        for (int i = 0; i < columns.length; i++) {
+            int old = min[i].length;
+            min[i] = Arrays.copyOf(min[i], pages);
+            max[i] = Arrays.copyOf(max[i], pages);
+            Arrays.fill(min[i], old, pages, Double.POSITIVE_INFINITY);
+            Arrays.fill(max[i], old, pages, Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    public boolean isTracked(int column) {
+        return indexOf(column) >= 0;
+    }
+
+    /**
+     * False only if no row on the page can have lo <= column <= hi.
+     */
+    public boolean mayContain(int pageId, int column, double lo, double hi) {
+        int index = indexOf(column);
+        if (index < 0) {
+            return true;
+        }
+        int page = pageId - firstPageId;
+        if (page < 0 || page >= min[index].length) {
+            return false;
+        }
+        return min[index][page] <= hi && max[index][page] >= lo;
+    }
+
+    // Page filter for SequentialScan
+    public IntPredicate pagesMatching(int column, double lo, double hi) {
+        int index = indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Column " + column + " has no zone map");
+        }
+        return pageId -> mayContain(pageId, column, lo, hi);
+    }
+}
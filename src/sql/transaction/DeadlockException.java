@@ -0,0 +1,13 @@
+package sql.transaction;
+
+/**
+ * The transaction was chosen as victim to break a deadlock while waiting for a lock.
+ * The transaction should be aborted, which releases its locks, and retried.
+ */
+public class DeadlockException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,336 @@
+package sql.transaction;
+
+import sql.record.RecordId;
+import sql.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table, page and row locks held until the transaction ends (strict two-phase locking).
+ *
+ * Locking a row first takes intention locks on its table and page. Resources are spread
+ * over independently synchronized stripes, so unrelated lock calls rarely contend.
+ * Requests are granted in arrival order, except that upgrades go first.
+ *
+ * A background thread looks for cycles in the wait-for graph and wakes the youngest
+ * waiting transaction of each cycle with a {@link DeadlockException}.
+ */
+public class LockManager implements AutoCloseable {
+    public static final int DEFAULT_STRIPES = 64;
+    public static final long DEFAULT_DETECTION_INTERVAL_MILLIS = 50;
+
+    // Resource keys: the top two bits tell the level apart
+    private static final long TABLE = 1L << 62;
+    private static final long PAGE = 2L << 62;
+    private static final long ROW = 3L << 62;
+
+    private final Stripe[] stripes;
+    private final Thread detector;
+    private final long detectionIntervalMillis;
+    private volatile boolean closed;
+    private final AtomicLong deadlocksDetected = new AtomicLong();
+
+    private static final class Request {
+        final Transaction transaction;
+        // mode held, null while the first request is waiting
+        LockMode granted;
+        // mode being waited for, null when not waiting
+        LockMode waiting;
+        boolean victim;
+
+        Request(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+
+    private static final class Stripe {
+        // requests per resource, in arrival order
+        final Map<Long, List<Request>> queues = new HashMap<>();
+    }
+
+    public LockManager() {
+        this(DEFAULT_STRIPES, DEFAULT_DETECTION_INTERVAL_MILLIS);
+    }
+
+    public LockManager(int stripeCount, long detectionIntervalMillis) {
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two: " + stripeCount);
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.detectionIntervalMillis = detectionIntervalMillis;
+        this.detector = new Thread(this::detectDeadlocks, "deadlock-detector");
+        detector.setDaemon(true);
+        detector.start();
+    }
+
+    public void lockTable(Transaction tx, int tableId, LockMode mode) throws InterruptedException {
+        acquire(tx, tableKey(tableId), mode);
+    }
+
+    public void lockPage(Transaction tx, int tableId, int pageId, LockMode mode) throws InterruptedException {
+        acquire(tx, tableKey(tableId), mode.intention());
+        acquire(tx, pageKey(pageId), mode);
+    }
+
+    public void lockRow(Transaction tx, int tableId, RecordId rid, LockMode mode) throws InterruptedException {
+        LockMode intention = mode.intention();
+        acquire(tx, tableKey(tableId), intention);
+        acquire(tx, pageKey(rid.getPageId()), intention);
+        acquire(tx, rowKey(rid), mode);
+    }
+
+    // Mode the transaction holds on the row, null if none
+    public LockMode getRowLock(Transaction tx, RecordId rid) {
+        return tx.getLocks().get(rowKey(rid));
+    }
+
+    private static long tableKey(int tableId) {
+        return TABLE | (tableId & 0xFFFFFFFFL);
+    }
+
+    private static long pageKey(int pageId) {
+        return PAGE | (pageId & 0xFFFFFFFFL);
+    }
+
+    private static long rowKey(RecordId rid) {
+        return ROW | rid.toLong();
+    }
+
+    private Stripe stripeFor(long key) {
+        return stripes[LongIntHashMap.hash(key) & (stripes.length - 1)];
+    }
+
+    private void acquire(Transaction tx, long key, LockMode mode) throws InterruptedException {
+        tx.checkActive();
+        Map<Long, LockMode> held = tx.getLocks();
+        LockMode current = held.get(key);
+        if (current != null && current.covers(mode)) {
+            return;
+        }
+        LockMode wanted = current == null ? mode : current.combine(mode);
+
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            List<Request> queue = stripe.queues.computeIfAbsent(key, k -> new ArrayList<>(2));
+            Request request = current == null ? null : find(queue, tx);
+            if (request == null) {
+                request = new Request(tx);
+                queue.add(request);
+            }
+            request.waiting = wanted;
+
+            try {
+                while (!isGrantable(queue, request)) {
+                    if (request.victim) {
+                        cancel(stripe, key, queue, request);
+                        deadlocksDetected.incrementAndGet();
+                        throw new DeadlockException("Transaction " + tx.getId() + " aborted to break a deadlock");
+                    }
+                    stripe.wait();
+                }
+            } catch (InterruptedException e) {
+                cancel(stripe, key, queue, request);
+                throw e;
+            }
+
+            // a victim whose blocker ended before it woke was in no deadlock,
+            // and a later upgrade by the transaction reuses this request
+            request.granted = wanted;
+            request.waiting = null;
+            request.victim = false;
+        }
+        held.put(key, wanted);
+    }
+
+    private static Request find(List<Request> queue, Transaction tx) {
+        for (Request request : queue) {
+            if (request.transaction == tx) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    // Compatible with every other holder; new requests also wait behind earlier waiters
+    private static boolean isGrantable(List<Request> queue, Request request) {
+        boolean ignoreWaiters = request.granted != null;
+        for (Request other : queue) {
+            if (other == request) {
+                // waiters behind this request do not matter
+                ignoreWaiters = true;
+                continue;
+            }
+            if (other.granted != null && !other.granted.isCompatible(request.waiting)) {
+                return false;
+            }
+            if (!ignoreWaiters && other.waiting != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void cancel(Stripe stripe, long key, List<Request> queue, Request request) {
+        request.waiting = null;
+        request.victim = false;
+        if (request.granted == null) {
+            queue.remove(request);
+            if (queue.isEmpty()) {
+                stripe.queues.remove(key);
+            }
+        }
+        stripe.notifyAll();
+    }
+
+    /**
+     * Release every lock of the transaction, called when it commits or aborts.
+     */
+    public void releaseAll(Transaction tx) {
+        Map<Long, LockMode> held = tx.getLocks();
+        for (long key : held.keySet()) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                List<Request> queue = stripe.queues.get(key);
+                queue.remove(find(queue, tx));
+                if (queue.isEmpty()) {
+                    stripe.queues.remove(key);
+                } else {
+                    stripe.notifyAll();
+                }
+            }
+        }
+        held.clear();
+    }
+
+    public long getDeadlocksDetected() {
+        return deadlocksDetected.get();
+    }
+
+    private void detectDeadlocks() {
+        while (!closed) {
+            try {
+                Thread.sleep(detectionIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            breakCycles();
+        }
+    }
+
+    // Build the wait-for graph stripe by stripe. A real deadlock cannot resolve itself,
+    // so seeing stripes at slightly different moments does not produce false victims.
+    private void breakCycles() {
+        Map<Long, Set<Long>> waitsFor = new HashMap<>();
+        Map<Long, Request> waitingRequests = new HashMap<>();
+        Map<Long, Stripe> waitingStripes = new HashMap<>();
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (List<Request> queue : stripe.queues.values()) {
+                    addEdges(queue, stripe, waitsFor, waitingRequests, waitingStripes);
+                }
+            }
+        }
+
+        Long victim;
+        while ((victim = findVictim(waitsFor)) != null) {
+            waitsFor.remove(victim);
+            for (Set<Long> targets : waitsFor.values()) {
+                targets.remove(victim);
+            }
+
+            Stripe stripe = waitingStripes.get(victim);
+            synchronized (stripe) {
+                Request request = waitingRequests.get(victim);
+                if (request.waiting != null) {
+                    request.victim = true;
+                    stripe.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static void addEdges(List<Request> queue, Stripe stripe, Map<Long, Set<Long>> waitsFor,
+                                 Map<Long, Request> waitingRequests, Map<Long, Stripe> waitingStripes) {
+        for (int i = 0; i < queue.size(); i++) {
+            Request request = queue.get(i);
+            if (request.waiting == null) {
+                continue;
+            }
+            long waiter = request.transaction.getId();
+            waitingRequests.put(waiter, request);
+            waitingStripes.put(waiter, stripe);
+
+            boolean upgrade = request.granted != null;
+            for (int j = 0; j < queue.size(); j++) {
+                Request other = queue.get(j);
+                if (other == request) {
+                    continue;
+                }
+                boolean blocks = (other.granted != null && !other.granted.isCompatible(request.waiting))
+                        || (!upgrade && j < i && other.waiting != null);
+                if (blocks) {
+                    waitsFor.computeIfAbsent(waiter, k -> new HashSet<>()).add(other.transaction.getId());
+                }
+            }
+        }
+    }
+
+    // Youngest transaction on some cycle, null if the graph has none
+    private static Long findVictim(Map<Long, Set<Long>> waitsFor) {
+        Set<Long> done = new HashSet<>();
+        for (Long start : waitsFor.keySet()) {
+            List<Long> path = new ArrayList<>();
+            Long cycleStart = findCycle(start, waitsFor, done, new HashSet<>(), path);
+            if (cycleStart != null) {
+                long youngest = cycleStart;
+                for (int i = path.indexOf(cycleStart); i < path.size(); i++) {
+                    youngest = Math.max(youngest, path.get(i));
+                }
+                return youngest;
+            }
+        }
+        return null;
+    }
+
+    private static Long findCycle(Long node, Map<Long, Set<Long>> waitsFor, Set<Long> done,
+                                  Set<Long> onPath, List<Long> path) {
+        if (onPath.contains(node)) {
+            return node;
+        }
+        if (!done.add(node)) {
+            return null;
+        }
+
+        onPath.add(node);
+        path.add(node);
+        Set<Long> targets = waitsFor.get(node);
+        if (targets != null) {
+            for (Long target : targets) {
+                Long cycleStart = findCycle(target, waitsFor, done, onPath, path);
+                if (cycleStart != null) {
+                    return cycleStart;
+                }
+            }
+        }
+        onPath.remove(node);
+        path.remove(path.size() - 1);
+        return null;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        detector.interrupt();
+    }
+}
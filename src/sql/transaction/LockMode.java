@@ -0,0 +1,50 @@
+package sql.transaction;
+
+/**
+ * Lock modes for hierarchical locking. Intention modes on a table or page announce
+ * shared or exclusive locks further down, so coarse and fine locks conflict correctly.
+ */
+public enum LockMode {
+    IS, IX, S, SIX, X;
+
+    //                                       IS     IX     S      SIX    X
+    private static final boolean[][] COMPATIBLE = {
+            /* IS  */ {true, true, true, true, false},
+            /* IX  */ {true, true, false, false, false},
+            /* S   */ {true, false, true, false, false},
+            /* SIX */ {true, false, false, false, false},
+            /* X   */ {false, false, false, false, false},
+    };
+
+    public boolean isCompatible(LockMode other) {
+        return COMPATIBLE[ordinal()][other.ordinal()];
+    }
+
+    // Holding this mode already grants everything the other mode would
+    public boolean covers(LockMode other) {
+        return this == other || combine(other) == this;
+    }
+
+    // Weakest mode that grants both
+    public LockMode combine(LockMode other) {
+        if (this == other) {
+            return this;
+        }
+        if (this == X || other == X) {
+            return X;
+        }
+        if (this == IS) {
+            return other;
+        }
+        if (other == IS) {
+            return this;
+        }
+        // any two of IX, S, SIX
+        return SIX;
+    }
+
+    // Mode the parent resource needs before locking a child in this mode
+    public LockMode intention() {
+        return this == IS || this == S ? IS : IX;
+    }
+}
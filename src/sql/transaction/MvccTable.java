@@ -0,0 +1,341 @@
+package sql.transaction;
+
+import sql.record.RecordId;
+import sql.table.RecordVisibility;
+import sql.table.SequentialScan;
+import sql.table.TableHeap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Snapshot isolation over a TableHeap.
+ *
+ * Every stored record starts with a header: xmin, the transaction that wrote this
+ * version, and xmax, the one that deleted it (0 while live). The newest version stays
+ * in the heap under its original RecordId, so indexes never change on update. Older
+ * versions move to an in-memory chain per RecordId, where readers with older snapshots
+ * find them. Readers never wait for writers beyond the table latch of one record.
+ *
+ * Two transactions updating the same record conflict: the second one gets a
+ * {@link WriteConflictException} (first updater wins).
+ */
+public class MvccTable {
+    public static final int HEADER_SIZE = 2 * Long.BYTES;
+
+    private final TableHeap heap;
+    private final TransactionManager manager;
+
+    // Previous versions of each record, newest first
+    private final Map<RecordId, Version> versions = new ConcurrentHashMap<>();
+
+    private static final class Version {
+        final byte[] stored;
+        final Version older;
+
+        Version(byte[] stored, Version older) {
+            this.stored = stored;
+            this.older = older;
+        }
+    }
+
+    /**
+     * Open the table over a heap that may hold versions from an earlier run. The manager
+     * then hands out ids above every stored xmin and xmax, so those versions count as
+     * committed. Aborted writes were undone before their abort returned; a transaction
+     * still running when the earlier run stopped has no log to undo it and counts as committed.
+     */
+    public MvccTable(TableHeap heap, TransactionManager manager) throws IOException {
+        this.heap = heap;
+        this.manager = manager;
+        manager.advancePast(largestStoredXid());
+    }
+
+    private long largestStoredXid() throws IOException {
+        long largest = TransactionManager.INVALID_XID;
+        SequentialScan scan = heap.scan();
+        try {
+            byte[] stored;
+            while ((stored = scan.next()) != null) {
+                largest = Math.max(largest, Math.max(xmin(stored), xmax(stored)));
+            }
+        } finally {
+            scan.close();
+        }
+        return largest;
+    }
+
+    public TableHeap getHeap() {
+        return heap;
+    }
+
+    public RecordId insert(Transaction tx, byte[] data) throws IOException {
+        tx.checkActive();
+        RecordId rid = heap.insert(withHeader(tx.getId(), TransactionManager.INVALID_XID, data));
+        tx.logWrite(this, rid, Transaction.WriteKind.INSERT);
+        return rid;
+    }
+
+    // The version of the record visible to the transaction, null if none
+    public byte[] read(Transaction tx, RecordId rid) throws IOException {
+        return heap.read(rid, visibility(tx));
+    }
+
+    /**
+     * Replace the record visible to the transaction.
+     * Returns false if the transaction cannot see the record (deleted or never existed).
+     */
+    public boolean update(Transaction tx, RecordId rid, byte[] data) throws IOException {
+        tx.checkActive();
+        Lock latch = heap.getLatch().writeLock();
+        latch.lock();
+        try {
+            byte[] stored = heap.read(rid);
+            if (!checkWritable(tx, rid, stored)) {
+                return false;
+            }
+
+            // our own version can simply be overwritten, the older one is already saved
+            if (xmin(stored) != tx.getId()) {
+                setXmax(stored, tx.getId());
+                versions.compute(rid, (key, older) -> new Version(stored, older));
+                tx.logWrite(this, rid, Transaction.WriteKind.UPDATE);
+            }
+            heap.update(rid, withHeader(tx.getId(), TransactionManager.INVALID_XID, data));
+            return true;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    /**
+     * Mark the record deleted by the transaction. Readers with older snapshots still see it.
+     * Returns false if the transaction cannot see the record.
+     */
+    public boolean delete(Transaction tx, RecordId rid) throws IOException {
+        tx.checkActive();
+        Lock latch = heap.getLatch().writeLock();
+        latch.lock();
+        try {
+            byte[] stored = heap.read(rid);
+            if (!checkWritable(tx, rid, stored)) {
+                return false;
+            }
+
+            setXmax(stored, tx.getId());
+            heap.update(rid, stored);
+            tx.logWrite(this, rid, Transaction.WriteKind.DELETE);
+            return true;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    // Called with the write latch held
+    private boolean checkWritable(Transaction tx, RecordId rid, byte[] stored) {
+        if (stored == null) {
+            return false;
+        }
+
+        long xmin = xmin(stored);
+        long xmax = xmax(stored);
+        if (xmax == tx.getId()) {
+            return false;
+        }
+        if (!manager.isVisible(tx, xmin)) {
+            // written by a transaction still running, or committed after our snapshot
+            throw new WriteConflictException(rid, "Record changed by transaction " + xmin);
+        }
+        if (xmax != TransactionManager.INVALID_XID) {
+            if (manager.isVisible(tx, xmax)) {
+                return false;
+            }
+            throw new WriteConflictException(rid, "Record deleted by transaction " + xmax);
+        }
+        return true;
+    }
+
+    // Undo one write of an aborted transaction, newest writes are undone first
+    void rollback(Transaction tx, Transaction.Write write) throws IOException {
+        RecordId rid = write.recordId();
+        Lock latch = heap.getLatch().writeLock();
+        latch.lock();
+        try {
+            switch (write.kind()) {
+                case INSERT -> heap.delete(rid);
+                case DELETE -> {
+                    byte[] stored = heap.read(rid);
+                    setXmax(stored, TransactionManager.INVALID_XID);
+                    heap.update(rid, stored);
+                }
+                case UPDATE -> {
+                    Version previous = versions.get(rid);
+                    byte[] restored = previous.stored.clone();
+                    setXmax(restored, TransactionManager.INVALID_XID);
+                    heap.update(rid, restored);
+                    if (previous.older == null) {
+                        versions.remove(rid);
+                    } else {
+                        versions.put(rid, previous.older);
+                    }
+                }
+            }
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    public SequentialScan scan(Transaction tx) throws IOException {
+        return heap.scan(visibility(tx));
+    }
+
+    /**
+     * Resolves stored records to the version the transaction sees, without the header.
+     * Pass it to TableHeap reads or to operators scanning this table.
+     */
+    public RecordVisibility visibility(Transaction tx) {
+        return (rid, stored) -> {
+            byte[] version = stored;
+            Version older = versions.get(rid);
+
+            while (true) {
+                if (manager.isVisible(tx, xmin(version))) {
+                    return manager.isVisible(tx, xmax(version)) ? null : payload(version);
+                }
+
+                // written by a transaction this snapshot does not include, try the previous version
+                if (older == null) {
+                    return null;
+                }
+                version = older.stored;
+                older = older.older;
+            }
+        };
+    }
+
+    /**
+     * Drop versions no running transaction can see anymore.
+     * A version is dead once the transaction that replaced or deleted it committed below
+     * the horizon. Dead old versions leave the chains, rows whose delete is dead leave
+     * the heap, and aborted ids below the horizon are forgotten.
+     * Returns the number of versions removed.
+     */
+    public int vacuum() throws IOException {
+        long horizon = manager.getHorizon();
+        int removed = 0;
+
+        Lock latch = heap.getLatch().writeLock();
+        latch.lock();
+        try {
+            // newest versions of deleted rows, collected first so the scan sees a stable heap
+            List<RecordId> deleted = new ArrayList<>();
+            SequentialScan scan = heap.scan();
+            try {
+                byte[] stored;
+                while ((stored = scan.next()) != null) {
+                    long deletedBy = xmax(stored);
+                    if (deletedBy != TransactionManager.INVALID_XID && isDead(deletedBy, horizon)) {
+                        deleted.add(scan.getLastRecordId());
+                    }
+                }
+            } finally {
+                scan.close();
+            }
+            for (RecordId rid : deleted) {
+                heap.delete(rid);
+                // every older version was replaced before the delete, so it is dead too
+                Version older = versions.remove(rid);
+                removed += 1 + chainLength(older);
+            }
+
+            Iterator<Map.Entry<RecordId, Version>> entries = versions.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<RecordId, Version> entry = entries.next();
+
+                int length = chainLength(entry.getValue());
+                int kept = 0;
+                for (Version v = entry.getValue(); v != null && !isDead(v, horizon); v = v.older) {
+                    kept++;
+                }
+                removed += length - kept;
+
+                if (kept == 0) {
+                    entries.remove();
+                } else if (kept < length) {
+                    entry.setValue(truncate(entry.getValue(), kept));
+                }
+            }
+        } finally {
+            latch.unlock();
+        }
+
+        manager.forgetAborted(horizon);
+        return removed;
+    }
+
+    private boolean isDead(Version version, long horizon) {
+        return isDead(xmax(version.stored), horizon);
+    }
+
+    private boolean isDead(long replacedBy, long horizon) {
+        return replacedBy < horizon && !manager.isAborted(replacedBy);
+    }
+
+    private static int chainLength(Version version) {
+        int length = 0;
+        for (; version != null; version = version.older) {
+            length++;
+        }
+        return length;
+    }
+
+    // Copy of the first count versions, versions are immutable so readers keep a consistent chain
+    private static Version truncate(Version version, int count) {
+        if (count == 0) {
+            return null;
+        }
+        return new Version(version.stored, truncate(version.older, count - 1));
+    }
+
+    // Number of old versions currently kept, for tests and monitoring
+    public int getVersionCount() {
+        int count = 0;
+        for (Version version : versions.values()) {
+            count += chainLength(version);
+        }
+        return count;
+    }
+
+    private static byte[] withHeader(long xmin, long xmax, byte[] data) {
+        byte[] stored = new byte[HEADER_SIZE + data.length];
+        ByteBuffer header = ByteBuffer.wrap(stored).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0, xmin);
+        header.putLong(Long.BYTES, xmax);
+        System.arraycopy(data, 0, stored, HEADER_SIZE, data.length);
+        return stored;
+    }
+
+    private static long xmin(byte[] stored) {
+        return ByteBuffer.wrap(stored).order(ByteOrder.LITTLE_ENDIAN).getLong(0);
+    }
+
+    private static long xmax(byte[] stored) {
+        return ByteBuffer.wrap(stored).order(ByteOrder.LITTLE_ENDIAN).getLong(Long.BYTES);
+    }
+
+    private static void setXmax(byte[] stored, long xmax) {
+        ByteBuffer.wrap(stored).order(ByteOrder.LITTLE_ENDIAN).putLong(Long.BYTES, xmax);
+    }
+
+    private static byte[] payload(byte[] stored) {
+        return Arrays.copyOfRange(stored, HEADER_SIZE, stored.length);
+    }
+}
@@ -0,0 +1,43 @@
+package sql.transaction;
+
+import java.util.Arrays;
+
+/**
+ * The set of transactions whose writes a transaction can see: everything that
+ * had finished when it began. Aborted ones are filtered by the manager.
+ */
+public class Snapshot {
+    // Every id below xmin had finished when the snapshot was taken
+    private final long xmin;
+    // First id not yet assigned when the snapshot was taken
+    private final long xmax;
+    // Sorted ids in [xmin, xmax) still running when the snapshot was taken
+    private final long[] active;
+
+    Snapshot(long xmin, long xmax, long[] active) {
+        this.xmin = xmin;
+        this.xmax = xmax;
+        this.active = active;
+    }
+
+    public long getXmin() {
+        return xmin;
+    }
+
+    public long getXmax() {
+        return xmax;
+    }
+
+    // True if the transaction had finished before this snapshot was taken
+    public boolean includes(long xid) {
+        if (xid < xmin) {
+            return true;
+        }
+        return xid < xmax && Arrays.binarySearch(active, xid) < 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot{xmin=" + xmin + ", xmax=" + xmax + ", active=" + Arrays.toString(active) + '}';
+    }
+}
@@ -0,0 +1,77 @@
+package sql.transaction;
+
+import sql.record.RecordId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One transaction: its id, the snapshot its reads use, and the writes to undo if it aborts.
+ * A transaction is used by one thread at a time.
+ */
+public class Transaction {
+    public enum State {
+        ACTIVE, COMMITTED, ABORTED
+    }
+
+    enum WriteKind {
+        INSERT, UPDATE, DELETE
+    }
+
+    // A change to undo on abort, the previous version is on the table's version chain
+    record Write(MvccTable table, RecordId recordId, WriteKind kind) {
+    }
+
+    private final long id;
+    private final Snapshot snapshot;
+    private final List<Write> writes = new ArrayList<>();
+    // Locks held through the LockManager, by resource key
+    private final Map<Long, LockMode> locks = new HashMap<>();
+    private volatile State state = State.ACTIVE;
+
+    Transaction(long id, Snapshot snapshot) {
+        this.id = id;
+        this.snapshot = snapshot;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    void checkActive() {
+        if (state != State.ACTIVE) {
+            throw new IllegalStateException("Transaction " + id + " is " + state);
+        }
+    }
+
+    void logWrite(MvccTable table, RecordId recordId, WriteKind kind) {
+        writes.add(new Write(table, recordId, kind));
+    }
+
+    List<Write> getWrites() {
+        return writes;
+    }
+
+    Map<Long, LockMode> getLocks() {
+        return locks;
+    }
+
+    @Override
+    public String toString() {
+        return "Transaction{id=" + id + ", state=" + state + '}';
+    }
+}
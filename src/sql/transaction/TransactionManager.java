@@ -0,0 +1,135 @@
+package sql.transaction;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out transaction ids and snapshots and tracks which ids committed.
+ *
+ * Ids grow from 1, 0 means "no transaction" in version headers. An id below
+ * the next id that is neither active nor aborted has committed. Tables opened over
+ * stored versions move the next id past theirs, see {@link #advancePast(long)}.
+ * With a LockManager, a transaction's locks are released when it ends.
+ */
+public class TransactionManager {
+    public static final long INVALID_XID = 0;
+
+    private final LockManager lockManager;
+
+    private long nextXid = 1;
+    // Running transactions by id, ordered so the oldest is first
+    private final TreeMap<Long, Transaction> active = new TreeMap<>();
+    private final Set<Long> aborted = ConcurrentHashMap.newKeySet();
+
+    public TransactionManager() {
+        this(null);
+    }
+
+    public TransactionManager(LockManager lockManager) {
+        this.lockManager = lockManager;
+    }
+
+    public LockManager getLockManager() {
+        return lockManager;
+    }
+
+    /**
+     * Hand out only ids above xid from now on. Ids skipped this way were never seen by
+     * this manager, so they count as committed.
+     */
+    public synchronized void advancePast(long xid) {
+        nextXid = Math.max(nextXid, xid + 1);
+    }
+
+    public synchronized Transaction begin() {
+        long xid = nextXid++;
+
+        long[] running = new long[active.size()];
+        int i = 0;
+        for (long id : active.keySet()) {
+            running[i++] = id;
+        }
+        long xmin = active.isEmpty() ? xid : active.firstKey();
+
+        Transaction transaction = new Transaction(xid, new Snapshot(xmin, xid, running));
+        active.put(xid, transaction);
+        return transaction;
+    }
+
+    public void commit(Transaction transaction) {
+        synchronized (this) {
+            transaction.checkActive();
+            transaction.setState(Transaction.State.COMMITTED);
+            active.remove(transaction.getId());
+        }
+        releaseLocks(transaction);
+    }
+
+    /**
+     * Undo the transaction's writes, newest first. Readers ignore its versions as soon
+     * as it is marked aborted, so they never see a half rolled back state.
+     */
+    public void abort(Transaction transaction) throws IOException {
+        synchronized (this) {
+            transaction.checkActive();
+            aborted.add(transaction.getId());
+            transaction.setState(Transaction.State.ABORTED);
+        }
+
+        List<Transaction.Write> writes = transaction.getWrites();
+        for (int i = writes.size() - 1; i >= 0; i--) {
+            Transaction.Write write = writes.get(i);
+            write.table().rollback(transaction, write);
+        }
+
+        synchronized (this) {
+            active.remove(transaction.getId());
+        }
+        releaseLocks(transaction);
+    }
+
+    private void releaseLocks(Transaction transaction) {
+        if (lockManager != null) {
+            lockManager.releaseAll(transaction);
+        }
+    }
+
+    // Versions written by xid are visible to the given transaction
+    public boolean isVisible(Transaction transaction, long xid) {
+        if (xid == transaction.getId()) {
+            return true;
+        }
+        return xid != INVALID_XID && transaction.getSnapshot().includes(xid) && !aborted.contains(xid);
+    }
+
+    public boolean isAborted(long xid) {
+        return aborted.contains(xid);
+    }
+
+    /**
+     * Forget aborted ids below the horizon. Their rollback finished before every running
+     * snapshot began, so no stored version carries them anymore.
+     */
+    public void forgetAborted(long horizon) {
+        aborted.removeIf(xid -> xid < horizon);
+    }
+
+    public int getAbortedCount() {
+        return aborted.size();
+    }
+
+    /**
+     * Every running snapshot includes all commits below this id, so versions
+     * replaced by such commits are no longer needed.
+     */
+    public synchronized long getHorizon() {
+        long horizon = nextXid;
+        for (Transaction transaction : active.values()) {
+            horizon = Math.min(horizon, transaction.getSnapshot().getXmin());
+        }
+        return horizon;
+    }
+}
@@ -0,0 +1,22 @@
+package sql.transaction;
+
+import sql.record.RecordId;
+
+/**
+ * Another transaction changed the record after this transaction's snapshot was taken.
+ * The transaction should be aborted and retried.
+ */
+public class WriteConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final RecordId recordId;
+
+    public WriteConflictException(RecordId recordId, String message) {
+        super(message + ": " + recordId);
+        this.recordId = recordId;
+    }
+
+    public RecordId getRecordId() {
+        return recordId;
+    }
+}